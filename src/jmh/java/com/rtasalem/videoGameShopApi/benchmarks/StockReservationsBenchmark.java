@@ -0,0 +1,96 @@
+package com.rtasalem.videoGameShopApi.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.rtasalem.videoGameShopApi.VideoGameShopApiApplication;
+import com.rtasalem.videoGameShopApi.exception.OutOfStockException;
+import com.rtasalem.videoGameShopApi.inventory.StockCounter;
+import com.rtasalem.videoGameShopApi.service.VideoGameService;
+
+/**
+ * Measures purchases of one launch-day game by 8 threads at once: through the service and its sharded in-memory
+ * counters, and with a conditional UPDATE per purchase, which holds the row lock until it commits. Both run against
+ * the real H2 database with the application context started once per fork and no web server. takeFromCounter
+ * measures a StockCounter on its own, without the service's metrics and tracing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class StockReservationsBenchmark {
+
+	private static final int GAME_ID = 1;
+
+	private static final String PURCHASE_WITH_ROW_LOCK = "update VideoGame set stock = stock - 1 where id = ? and stock >= 1";
+
+	private ConfigurableApplicationContext context;
+
+	private VideoGameService videoGameService;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private final StockCounter counter = new StockCounter(1000000000, 8);
+
+	@Setup(Level.Trial)
+	public void startApplication() {
+		context = new SpringApplicationBuilder(VideoGameShopApiApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_ON_EXIT=FALSE", "spring.jpa.show-sql=false",
+						"logging.level.root=WARN")
+				.run();
+		videoGameService = context.getBean(VideoGameService.class);
+		jdbcTemplate = context.getBean(JdbcTemplate.class);
+		jdbcTemplate.update("update VideoGame set stock = 1000000000 where id = ?", GAME_ID);
+	}
+
+	@TearDown(Level.Trial)
+	public void stopApplication() {
+		context.close();
+	}
+
+	@Benchmark
+	public void purchase() {
+		try {
+			videoGameService.purchaseGame(GAME_ID, 1);
+		} catch (OutOfStockException ex) {
+			videoGameService.restockGame(GAME_ID, 1000000);
+		}
+	}
+
+	@Benchmark
+	public boolean takeFromCounter() {
+		return counter.tryTake(1) || restock();
+	}
+
+	@Benchmark
+	public int purchaseWithRowLock() {
+		return jdbcTemplate.update(PURCHASE_WITH_ROW_LOCK, GAME_ID);
+	}
+
+	private boolean restock() {
+		counter.add(1000000);
+		return false;
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.rtasalem.videoGameShopApi.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import com.rtasalem.videoGameShopApi.controller.VideoGameController;
+import com.rtasalem.videoGameShopApi.controller.VideoGameControllerAdvice;
+import com.rtasalem.videoGameShopApi.exception.ResourceNotFoundException;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Measures the error path from the exception to the response body handed to the message converter: a rejected
+ * request body with one or more invalid fields, and a lookup of a missing video game. The missing game is thrown
+ * from stackDepth frames down, as it would be from deep inside a Spring MVC request, since filling in the stack trace
+ * costs more the deeper it is.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VideoGameControllerAdviceBenchmark {
+
+	@Param({"1", "4"})
+	private int errorCount;
+
+	@Param({"80"})
+	private int stackDepth;
+
+	private VideoGameControllerAdvice advice;
+
+	private MethodArgumentNotValidException exception;
+
+	@Setup
+	public void createException() throws NoSuchMethodException {
+		advice = new VideoGameControllerAdvice(new SimpleMeterRegistry());
+		BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new VideoGame(), "videoGame");
+		String[] fields = {"title", "genre", "developer", "price"};
+		for (int i = 0; i < errorCount; i++) {
+			bindingResult.addError(new FieldError("videoGame", fields[i], "Video game " + fields[i] + " is invalid."));
+		}
+		MethodParameter parameter = new MethodParameter(
+				VideoGameController.class.getMethod("addNewGame", VideoGame.class), 0);
+		exception = new MethodArgumentNotValidException(parameter, bindingResult);
+	}
+
+	@Benchmark
+	public ResponseEntity<?> handleMethodArgumentNotValidException() {
+		return advice.handleMethodArgumentNotValidException(exception);
+	}
+
+	@Benchmark
+	public ResponseEntity<?> throwAndHandleResourceNotFoundException() {
+		try {
+			return findMissingGame(stackDepth);
+		} catch (ResourceNotFoundException ex) {
+			return advice.handleResourceNotFoundException(ex);
+		}
+	}
+
+	private ResponseEntity<?> findMissingGame(int depth) {
+		if (depth > 0) {
+			return findMissingGame(depth - 1);
+		}
+		throw new ResourceNotFoundException("A video game with an ID of " + depth + " does not exist.");
+	}
+
+}
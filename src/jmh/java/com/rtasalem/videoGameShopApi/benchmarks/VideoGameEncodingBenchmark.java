@@ -0,0 +1,100 @@
+package com.rtasalem.videoGameShopApi.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import com.rtasalem.videoGameShopApi.model.PagedResponse;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+
+/**
+ * Compares the encodings a client can negotiate for a page of video games: JSON or CBOR, each sent as is or gzipped
+ * the way Tomcat compresses responses. writePage is the work the server does per response and readPage the work a
+ * client does to parse it. The size of each encoded page is printed once per run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VideoGameEncodingBenchmark {
+
+	@Param({"json", "cbor"})
+	private String format;
+
+	@Param({"identity", "gzip"})
+	private String contentEncoding;
+
+	@Param({"10000"})
+	private int size;
+
+	private ObjectMapper objectMapper;
+
+	private PagedResponse<VideoGame> page;
+
+	private byte[] encodedPage;
+
+	@Setup
+	public void createPage() throws IOException {
+		Jackson2ObjectMapperBuilder objectMapperBuilder = Jackson2ObjectMapperBuilder.json();
+		if (format.equals("cbor")) {
+			objectMapperBuilder.factory(new CBORFactory());
+		}
+		objectMapper = objectMapperBuilder.build();
+		List<VideoGame> videoGames = new ArrayList<>(size);
+		for (int i = 1; i <= size; i++) {
+			VideoGame videoGame = new VideoGame("Benchmark game " + i, "Action-adventure", "Naughty Dog", 5 + (i % 2500) / 100.0);
+			videoGame.setId(i);
+			videoGame.setVersion(3L);
+			videoGame.setLastModified(Instant.parse("2024-01-01T12:00:00Z").plusSeconds(i));
+			videoGames.add(videoGame);
+		}
+		page = new PagedResponse<>(videoGames, 0, size, size, 1);
+		encodedPage = writePage();
+		System.out.printf("%n%s/%s: %,d bytes per page of %,d video games%n", format, contentEncoding, encodedPage.length, size);
+	}
+
+	@Benchmark
+	public byte[] writePage() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (OutputStream outputStream = contentEncoding.equals("gzip") ? new GZIPOutputStream(bytes) : bytes) {
+			objectMapper.writeValue(outputStream, page);
+		}
+		return bytes.toByteArray();
+	}
+
+	@Benchmark
+	public JsonNode readPage() throws IOException {
+		InputStream bytes = new ByteArrayInputStream(encodedPage);
+		try (InputStream inputStream = contentEncoding.equals("gzip") ? new GZIPInputStream(bytes) : bytes) {
+			return objectMapper.readTree(inputStream);
+		}
+	}
+
+}
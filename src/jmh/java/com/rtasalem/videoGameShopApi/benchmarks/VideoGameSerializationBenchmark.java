@@ -0,0 +1,63 @@
+package com.rtasalem.videoGameShopApi.benchmarks;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+
+/**
+ * Measures how long Jackson takes to write a list of video games, with an ObjectMapper built the way Spring Boot
+ * builds the one used by the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VideoGameSerializationBenchmark {
+
+	@Param({"1", "20", "100", "1000"})
+	private int size;
+
+	private ObjectMapper objectMapper;
+
+	private List<VideoGame> videoGames;
+
+	@Setup
+	public void createGames() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		videoGames = new ArrayList<>(size);
+		for (int i = 1; i <= size; i++) {
+			VideoGame videoGame = new VideoGame("Benchmark game " + i, "Action-adventure", "Naughty Dog", 19.99);
+			videoGame.setId(i);
+			videoGame.setVersion(3L);
+			videoGame.setLastModified(Instant.parse("2024-01-01T12:00:00Z"));
+			videoGames.add(videoGame);
+		}
+	}
+
+	@Benchmark
+	public byte[] writeList() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(videoGames);
+	}
+
+}
@@ -0,0 +1,79 @@
+package com.rtasalem.videoGameShopApi.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.rtasalem.videoGameShopApi.VideoGameShopApiApplication;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+import com.rtasalem.videoGameShopApi.service.VideoGameService;
+
+/**
+ * Measures the single-game read and write paths against the real H2 database, with the application context started
+ * once per fork and no web server. findGameById is served by the cache after the first call, so the uncached
+ * read is measured separately through the repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VideoGameServiceBenchmark {
+
+	private ConfigurableApplicationContext context;
+
+	private VideoGameService videoGameService;
+
+	private VideoGameDAO videoGameRepo;
+
+	private long gameNumber;
+
+	@Setup(Level.Trial)
+	public void startApplication() {
+		context = new SpringApplicationBuilder(VideoGameShopApiApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_ON_EXIT=FALSE", "spring.jpa.show-sql=false",
+						"logging.level.root=WARN")
+				.run();
+		videoGameService = context.getBean(VideoGameService.class);
+		videoGameRepo = context.getBean(VideoGameDAO.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void stopApplication() {
+		context.close();
+	}
+
+	@Benchmark
+	public VideoGame findGameById() {
+		return videoGameService.findGameById(1);
+	}
+
+	@Benchmark
+	public VideoGame findGameByIdFromRepository() {
+		return videoGameRepo.findById(1).orElseThrow();
+	}
+
+	// Every call inserts a new row, so the table grows by one game per invocation over the run.
+	@Benchmark
+	public VideoGame createNewGame() {
+		return videoGameService.createNewGame(new VideoGame("Benchmark game " + (++gameNumber), "Puzzle", "Nintendo", 9.99));
+	}
+
+}
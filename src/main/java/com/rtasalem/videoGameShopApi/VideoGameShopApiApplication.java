@@ -2,8 +2,12 @@ package com.rtasalem.videoGameShopApi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import com.rtasalem.videoGameShopApi.config.NativeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeHints.class)
 public class VideoGameShopApiApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,78 @@
+package com.rtasalem.videoGameShopApi.cache;
+
+import java.time.Instant;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.model.CatalogueVersion;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+
+/**
+ * Holds the CatalogueVersion that listing ETags are computed from, so that a listing costs a volatile read rather
+ * than an aggregate over the whole table. The version is read from the database the first time it is asked for and
+ * moved on from VideoGameChangedEvent after that: a creation raises the count and the highest id, an update raises
+ * the sum of the versions and a deletion lowers the count. It stops matching what the aggregate query would return
+ * after the first deletion, but no two states of the catalogue this instance has seen share a version.
+ *
+ * Like the facets and the search index, only writes made through this instance are seen. A write made by another
+ * instance against the same database leaves the version, and so the ETags of this instance's listings, as they were
+ * until this instance next writes.
+ */
+@Component
+public class CatalogueVersionHolder {
+
+	private final VideoGameDAO videoGameRepo;
+
+	// Null until the version has been read from the database.
+	private volatile CatalogueVersion current;
+
+	public CatalogueVersionHolder(VideoGameDAO videoGameRepo) {
+		super();
+		this.videoGameRepo = videoGameRepo;
+	}
+
+	public CatalogueVersion current() {
+		CatalogueVersion version = current;
+		return version != null ? version : load();
+	}
+
+	private synchronized CatalogueVersion load() {
+		if (current == null) {
+			current = videoGameRepo.findCatalogueVersion();
+		}
+		return current;
+	}
+
+	// Runs after CatalogueSnapshotHolder has marked the game as stale.
+	@Order(Ordered.LOWEST_PRECEDENCE)
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void onVideoGameChanged(VideoGameChangedEvent event) {
+		CatalogueVersion version = current;
+		// The write is already in the database, so it is counted when the version is first read.
+		if (version == null) {
+			return;
+		}
+		current = switch (event.type()) {
+			case CREATED -> new CatalogueVersion(version.count() + 1, Math.max(version.maxId(), event.id()),
+					version.versionSum(), latest(version.lastModified(), event.videoGame()));
+			case UPDATED -> new CatalogueVersion(version.count(), version.maxId(), version.versionSum() + 1,
+					latest(version.lastModified(), event.videoGame()));
+			case DELETED -> new CatalogueVersion(version.count() - 1, version.maxId(), version.versionSum(),
+					version.lastModified());
+		};
+	}
+
+	private static Instant latest(Instant lastModified, VideoGame videoGame) {
+		Instant written = videoGame == null ? null : videoGame.getLastModified();
+		if (written == null || (lastModified != null && lastModified.isAfter(written))) {
+			return lastModified;
+		}
+		return written;
+	}
+
+}
@@ -0,0 +1,56 @@
+package com.rtasalem.videoGameShopApi.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key. The first caller runs the loader and every caller that arrives while it
+ * is running waits for, and shares, its result or exception. The key is released as soon as the load finishes, so
+ * nothing is cached here: a caller arriving afterwards runs the loader again.
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	public V execute(K key, Supplier<V> loader) {
+		CompletableFuture<V> load = new CompletableFuture<>();
+		CompletableFuture<V> existingLoad = inFlight.putIfAbsent(key, load);
+		if (existingLoad != null) {
+			return await(existingLoad);
+		}
+		try {
+			V value = loader.get();
+			load.complete(value);
+			return value;
+		} catch (RuntimeException | Error ex) {
+			load.completeExceptionally(ex);
+			throw ex;
+		} finally {
+			inFlight.remove(key, load);
+		}
+	}
+
+	// The number of keys currently being loaded.
+	public int inFlight() {
+		return inFlight.size();
+	}
+
+	private V await(CompletableFuture<V> load) {
+		try {
+			return load.join();
+		} catch (CompletionException ex) {
+			// Rethrows the loader's own exception, so waiting callers fail exactly like the one that ran it.
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			if (ex.getCause() instanceof Error cause) {
+				throw cause;
+			}
+			throw ex;
+		}
+	}
+
+}
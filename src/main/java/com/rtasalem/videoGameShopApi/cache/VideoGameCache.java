@@ -0,0 +1,163 @@
+package com.rtasalem.videoGameShopApi.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * A bounded, in-process cache of video games keyed by id. Entries expire after a time to live and the least
+ * valuable entries are evicted once the maximum size is reached. Ids that do not exist are cached as well, for
+ * a much shorter time, so that repeated lookups of missing ids do not all reach the database.
+ *
+ * A read that misses the cache can take long enough for a write to commit and invalidate the id before the read puts
+ * what it loaded. Every invalidation therefore raises the id's write generation, and a loaded video game is only put
+ * if the generation is still the one the reader saw before it queried the database.
+ */
+@Component
+public class VideoGameCache {
+
+	public static final String CACHE_NAME = "videoGames";
+
+	// Stands in for an id that is known not to exist.
+	private static final VideoGame MISSING = new VideoGame();
+
+	// Ids share generations, which only means a load is now and then not cached because another id was written.
+	private static final int GENERATION_STRIPES = 1024;
+
+	private final Cache<Integer, VideoGame> cache;
+
+	private final AtomicLongArray writeGenerations = new AtomicLongArray(GENERATION_STRIPES);
+
+	@Autowired
+	public VideoGameCache(@Value("${videogames.cache.maximum-size:10000}") long maximumSize,
+			@Value("${videogames.cache.time-to-live:5m}") Duration timeToLive,
+			@Value("${videogames.cache.negative-time-to-live:5s}") Duration negativeTimeToLive,
+			MeterRegistry meterRegistry) {
+		this(maximumSize, timeToLive, negativeTimeToLive, Ticker.systemTicker());
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	public VideoGameCache(long maximumSize, Duration timeToLive, Duration negativeTimeToLive, Ticker ticker) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfter(new PositiveAndNegativeExpiry(timeToLive.toNanos(), negativeTimeToLive.toNanos()))
+				.ticker(ticker)
+				.recordStats()
+				.build();
+	}
+
+	// Returns the cached video game, or null if it is not cached or is known not to exist.
+	public VideoGame getIfPresent(int id) {
+		VideoGame videoGame = cache.getIfPresent(id);
+		return videoGame == MISSING ? null : videoGame;
+	}
+
+	public boolean isKnownMissing(int id) {
+		return cache.getIfPresent(id) == MISSING;
+	}
+
+	public void put(VideoGame videoGame) {
+		cache.put(videoGame.getId(), videoGame);
+	}
+
+	public void putMissing(int id) {
+		cache.put(id, MISSING);
+	}
+
+	// Read before loading a video game from the database, and passed to putIfUnchanged() with what was loaded.
+	public long writeGeneration(int id) {
+		return writeGenerations.get(stripe(id));
+	}
+
+	// Caches the video game unless its id has been invalidated since the write generation was read. Returns whether it
+	// was cached.
+	public boolean putIfUnchanged(VideoGame videoGame, long writeGeneration) {
+		return putIfUnchanged(videoGame.getId(), videoGame, writeGeneration);
+	}
+
+	public boolean putMissingIfUnchanged(int id, long writeGeneration) {
+		return putIfUnchanged(id, MISSING, writeGeneration);
+	}
+
+	public void invalidate(int id) {
+		// Raised under the entry's lock, so that no putIfUnchanged() can check the old generation and then put after it.
+		cache.asMap().compute(id, (key, cached) -> {
+			writeGenerations.incrementAndGet(stripe(key));
+			return null;
+		});
+	}
+
+	// Inside a transaction the entries are only dropped once it commits, so a concurrent read cannot put the
+	// uncommitted (or rolled back) state back into the cache.
+	public void invalidateAfterCommit(Collection<Integer> ids) {
+		List<Integer> idsToInvalidate = List.copyOf(ids);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					idsToInvalidate.forEach(VideoGameCache.this::invalidate);
+				}
+			});
+		} else {
+			idsToInvalidate.forEach(this::invalidate);
+		}
+	}
+
+	public long size() {
+		return cache.estimatedSize();
+	}
+
+	private boolean putIfUnchanged(int id, VideoGame videoGame, long writeGeneration) {
+		VideoGame current = cache.asMap().compute(id,
+				(key, cached) -> writeGenerations.get(stripe(key)) == writeGeneration ? videoGame : cached);
+		return current == videoGame;
+	}
+
+	private static int stripe(int id) {
+		return Math.floorMod(id, GENERATION_STRIPES);
+	}
+
+	private static class PositiveAndNegativeExpiry implements Expiry<Integer, VideoGame> {
+
+		private final long timeToLiveNanos;
+		private final long negativeTimeToLiveNanos;
+
+		PositiveAndNegativeExpiry(long timeToLiveNanos, long negativeTimeToLiveNanos) {
+			this.timeToLiveNanos = timeToLiveNanos;
+			this.negativeTimeToLiveNanos = negativeTimeToLiveNanos;
+		}
+
+		@Override
+		public long expireAfterCreate(Integer id, VideoGame videoGame, long currentTime) {
+			return videoGame == MISSING ? negativeTimeToLiveNanos : timeToLiveNanos;
+		}
+
+		@Override
+		public long expireAfterUpdate(Integer id, VideoGame videoGame, long currentTime, long currentDuration) {
+			return expireAfterCreate(id, videoGame, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(Integer id, VideoGame videoGame, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+
+	}
+
+}
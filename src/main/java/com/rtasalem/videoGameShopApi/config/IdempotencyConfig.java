@@ -0,0 +1,33 @@
+package com.rtasalem.videoGameShopApi.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import com.rtasalem.videoGameShopApi.controller.IdempotencyFilter;
+import com.rtasalem.videoGameShopApi.idempotency.IdempotencyStore;
+
+/**
+ * Honours the Idempotency-Key header on POST /api/v1/games, the one endpoint clients retry after a timeout without
+ * knowing whether the video game was created. Only servlet web applications have a handlerExceptionResolver, so a
+ * context started without a web server, as by the benchmarks, does without the filter.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class IdempotencyConfig {
+
+	@Bean
+	public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyStore idempotencyStore,
+			@Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver) {
+		FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(
+				new IdempotencyFilter(idempotencyStore, exceptionResolver));
+		registration.addUrlPatterns("/api/v1/games");
+		return registration;
+	}
+
+}
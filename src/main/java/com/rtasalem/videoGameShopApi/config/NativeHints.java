@@ -0,0 +1,39 @@
+package com.rtasalem.videoGameShopApi.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.util.ReflectionUtils;
+
+import com.rtasalem.videoGameShopApi.controller.VideoGameControllerAdvice;
+import com.rtasalem.videoGameShopApi.model.CatalogueChange;
+import com.rtasalem.videoGameShopApi.model.CatalogueVersion;
+
+/**
+ * Reflection that a native image cannot discover on its own. Spring already registers the entity, the controller
+ * request and response types and the springdoc configuration, so only the rest is listed here.
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+	private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+	@Override
+	public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+		// Created by Hibernate from the "select new" in VideoGameDAO.findCatalogueVersion().
+		hints.reflection().registerType(CatalogueVersion.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+		// Serialised by Jackson without appearing in a controller method signature.
+		bindingHints.registerReflectionHints(hints.reflection(), CatalogueChange.class,
+				VideoGameControllerAdvice.FieldErrorDetail.class);
+		// Looked up by VirtualThreadConfig, which still compiles for Java 17.
+		Method newVirtualThreadPerTaskExecutor = ReflectionUtils.findMethod(Executors.class, "newVirtualThreadPerTaskExecutor");
+		if (newVirtualThreadPerTaskExecutor != null) {
+			hints.reflection().registerMethod(newVirtualThreadPerTaskExecutor, ExecutableMode.INVOKE);
+		}
+	}
+
+}
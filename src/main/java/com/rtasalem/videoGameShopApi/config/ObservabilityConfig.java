@@ -0,0 +1,22 @@
+package com.rtasalem.videoGameShopApi.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+
+/**
+ * Turns every method of a class annotated with @Observed into an observation, which Spring Boot records as a timer
+ * (with a histogram, see application.properties) and as a tracing span. This replaces the entry and exit logging
+ * that the controller and service used to do on every call.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ObservabilityConfig {
+
+	@Bean
+	public ObservedAspect observedAspect(ObservationRegistry observationRegistry) {
+		return new ObservedAspect(observationRegistry);
+	}
+
+}
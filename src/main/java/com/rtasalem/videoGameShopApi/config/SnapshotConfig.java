@@ -0,0 +1,32 @@
+package com.rtasalem.videoGameShopApi.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import com.rtasalem.videoGameShopApi.cache.CatalogueVersionHolder;
+import com.rtasalem.videoGameShopApi.controller.SnapshotReadFilter;
+import com.rtasalem.videoGameShopApi.pricing.PriceUpdatePipeline;
+import com.rtasalem.videoGameShopApi.snapshot.CatalogueSnapshotHolder;
+import com.rtasalem.videoGameShopApi.throttle.RateLimiter;
+
+/**
+ * Serves the catalogue reads of storefront nodes from an in-memory snapshot when videogames.snapshot.enabled=true.
+ * The filter is always registered and lets every request through while the snapshot is disabled, because whether it
+ * is enabled is only known at runtime once the application has been processed ahead of time.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+public class SnapshotConfig {
+
+	@Bean
+	public FilterRegistrationBean<SnapshotReadFilter> snapshotReadFilter(CatalogueSnapshotHolder snapshotHolder,
+			CatalogueVersionHolder catalogueVersion, PriceUpdatePipeline priceUpdates, RateLimiter rateLimiter) {
+		FilterRegistrationBean<SnapshotReadFilter> registration = new FilterRegistrationBean<>(
+				new SnapshotReadFilter(snapshotHolder, catalogueVersion, priceUpdates, rateLimiter));
+		registration.addUrlPatterns("/api/v1/games", "/api/v1/games/*");
+		return registration;
+	}
+
+}
@@ -0,0 +1,29 @@
+package com.rtasalem.videoGameShopApi.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shuts the application down as soon as it has started when videogames.startup.training-run=true. The prod build
+ * starts it like this once, with -XX:DumpLoadedClassList, to find the classes that belong in its class data sharing
+ * archive.
+ * 
+ * The property is read at runtime rather than used as a condition, as conditions are fixed by AOT processing.
+ */
+@Component
+public class StartupTrainingRun implements ApplicationListener<ApplicationReadyEvent> {
+
+	public static final String TRAINING_RUN_PROPERTY = "videogames.startup.training-run";
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		ConfigurableApplicationContext context = event.getApplicationContext();
+		if (context.getEnvironment().getProperty(TRAINING_RUN_PROPERTY, Boolean.class, false)) {
+			System.exit(SpringApplication.exit(context));
+		}
+	}
+
+}
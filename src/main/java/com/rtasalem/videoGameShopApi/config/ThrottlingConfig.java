@@ -0,0 +1,35 @@
+package com.rtasalem.videoGameShopApi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.rtasalem.videoGameShopApi.controller.ThrottlingInterceptor;
+import com.rtasalem.videoGameShopApi.throttle.AdaptiveConcurrencyLimiter;
+import com.rtasalem.videoGameShopApi.throttle.RateLimiter;
+
+/**
+ * Applies the per-client rate limits and the adaptive concurrency limit (see application.properties) to every games
+ * endpoint of the servlet stack. Actuator and Swagger endpoints are left alone.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+public class ThrottlingConfig implements WebMvcConfigurer {
+
+	private final RateLimiter rateLimiter;
+
+	private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+	public ThrottlingConfig(RateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter) {
+		super();
+		this.rateLimiter = rateLimiter;
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new ThrottlingInterceptor(rateLimiter, concurrencyLimiter)).addPathPatterns("/api/**");
+	}
+
+}
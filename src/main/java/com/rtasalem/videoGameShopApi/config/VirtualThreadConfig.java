@@ -0,0 +1,68 @@
+package com.rtasalem.videoGameShopApi.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Runs Tomcat request handling, and therefore every blocking VideoGameService call, on virtual threads instead of
+ * the fixed platform-thread pool. Async work such as the NDJSON export uses the same executor. Enabled by default on
+ * JDK 21 and later; set videogames.virtual-threads.enabled=false to fall back to platform threads.
+ * 
+ * The Hikari pool (see application.properties) then becomes the real limit on concurrent database work. There is no
+ * thread pool in front of it, so a burst of thousands of requests all wait for a connection at once. Its connection
+ * timeout is therefore long enough for the pool to work through a burst, rather than failing it with 500s.
+ */
+@Configuration(proxyBeanMethods = false)
+@Conditional(VirtualThreadConfig.VirtualThreadsAvailableCondition.class)
+public class VirtualThreadConfig {
+
+	public static final String ENABLED_PROPERTY = "videogames.virtual-threads.enabled";
+
+	private final static Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+	// Named applicationTaskExecutor so that Spring MVC also uses it for async requests.
+	@Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+	public AsyncTaskExecutor applicationTaskExecutor() {
+		log.info("Serving requests on virtual threads");
+		return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor());
+	}
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(AsyncTaskExecutor applicationTaskExecutor) {
+		return protocolHandler -> protocolHandler.setExecutor(applicationTaskExecutor);
+	}
+
+	// The project compiles for Java 17, so the Java 21 factory method is looked up reflectively.
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException("Virtual threads are not available on this JVM", ex);
+		}
+	}
+
+	static class VirtualThreadsAvailableCondition implements Condition {
+
+		@Override
+		public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			boolean enabled = context.getEnvironment().getProperty(ENABLED_PROPERTY, Boolean.class, true);
+			return enabled && Runtime.version().feature() >= 21;
+		}
+
+	}
+
+}
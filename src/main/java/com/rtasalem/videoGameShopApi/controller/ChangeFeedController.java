@@ -0,0 +1,115 @@
+package com.rtasalem.videoGameShopApi.controller;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.rtasalem.videoGameShopApi.feed.ChangeFeed;
+import com.rtasalem.videoGameShopApi.model.CatalogueChange;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+// Streams the change feed as server-sent events. Only the servlet stack serves it.
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/v1/games")
+public class ChangeFeedController {
+
+	public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+	// Sent instead of the missed changes when they are no longer in the buffer.
+	public static final String RESET_EVENT = "reset";
+
+	private final ChangeFeed changeFeed;
+
+	// Streams are closed after this long, and EventSource clients reconnect with Last-Event-ID.
+	private final long timeoutMillis;
+
+	public ChangeFeedController(ChangeFeed changeFeed,
+			@Value("${videogames.change-feed.timeout:30m}") Duration timeout) {
+		super();
+		this.changeFeed = changeFeed;
+		this.timeoutMillis = timeout.toMillis();
+	}
+
+	@Operation(
+			summary = "Streams every change to the catalogue as server-sent events.",
+			description = "Each created, updated or deleted video game is sent as an event named after the change, whose id is its "
+					+ "sequence number and whose data is a JSON object with the sequence, type, id and, unless deleted, the video game. "
+					+ "Send the id of the last event received in Last-Event-ID (or after) to resume from it. If those changes are no "
+					+ "longer kept, a reset event is sent first, after which the catalogue should be reloaded.",
+			method = "GET",
+			responses = {
+					@ApiResponse(
+							responseCode = "200",
+							description = "A stream of change events that stays open until the timeout.",
+							content = {@Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)}
+					)
+			}
+	)
+	@GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamChanges(
+			@Parameter(in = ParameterIn.HEADER, description = "The id of the last event received.") @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId,
+			@Parameter(description = "Same as Last-Event-ID, for clients that cannot set headers.") @RequestParam(required = false) String after) {
+		SseEmitter emitter = new SseEmitter(timeoutMillis);
+		ChangeFeed.Subscription subscription = changeFeed.subscribe(parseSequence(lastEventId != null ? lastEventId : after),
+				new EmitterSubscriber(emitter));
+		emitter.onCompletion(subscription::cancel);
+		emitter.onTimeout(subscription::cancel);
+		emitter.onError(ex -> subscription.cancel());
+		return emitter;
+	}
+
+	// Anything that is not a sequence number cannot be resumed from, so it is sent a reset.
+	private static Long parseSequence(String lastEventId) {
+		if (lastEventId == null) {
+			return null;
+		}
+		try {
+			return Long.parseLong(lastEventId.trim());
+		} catch (NumberFormatException ex) {
+			return -1L;
+		}
+	}
+
+	private record EmitterSubscriber(SseEmitter emitter) implements ChangeFeed.Subscriber {
+
+		@Override
+		public void send(CatalogueChange change) throws IOException {
+			emitter.send(SseEmitter.event().id(Long.toString(change.sequence()))
+					.name(change.type().name().toLowerCase()).data(change, MediaType.APPLICATION_JSON));
+		}
+
+		@Override
+		public void reset(long sequence) throws IOException {
+			emitter.send(SseEmitter.event().id(Long.toString(sequence)).name(RESET_EVENT)
+					.data(Map.of("sequence", sequence), MediaType.APPLICATION_JSON));
+		}
+
+		@Override
+		public void heartbeat() throws IOException {
+			emitter.send(SseEmitter.event().comment("heartbeat"));
+		}
+
+		@Override
+		public void close() {
+			emitter.complete();
+		}
+
+	}
+
+}
@@ -0,0 +1,32 @@
+package com.rtasalem.videoGameShopApi.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.rtasalem.videoGameShopApi.exception.InvalidQueryParameterException;
+
+// Encodes the last seen video game id as an opaque, URL-safe cursor so clients do not depend on its format.
+final class GameCursors {
+
+	private static final String PREFIX = "id:";
+
+	private GameCursors() {
+	}
+
+	static String encode(int lastId) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+	}
+
+	static int decode(String cursor) {
+		try {
+			String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if (!decoded.startsWith(PREFIX)) {
+				throw new IllegalArgumentException(decoded);
+			}
+			return Integer.parseInt(decoded.substring(PREFIX.length()));
+		} catch (IllegalArgumentException ex) {
+			throw InvalidQueryParameterException.invalidCursor(cursor);
+		}
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.rtasalem.videoGameShopApi.controller;
+
+import com.rtasalem.videoGameShopApi.exception.PreconditionFailedException;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+
+// Strong ETags for a single video game are its quoted version number.
+final class GameETags {
+
+	private GameETags() {
+	}
+
+	// Returns null when the version of the video game is not known.
+	static String of(VideoGame videoGame) {
+		return videoGame.getVersion() == null ? null : "\"" + videoGame.getVersion() + "\"";
+	}
+
+	// Returns the version an If-Match header requires, or null if any version is acceptable.
+	static Long parseIfMatch(String ifMatch) {
+		if (ifMatch == null || ifMatch.trim().equals("*")) {
+			return null;
+		}
+		String eTag = ifMatch.trim();
+		// If-Match uses strong comparison, so weak ETags can never match.
+		if (eTag.length() < 3 || !eTag.startsWith("\"") || !eTag.endsWith("\"")) {
+			throw PreconditionFailedException.ifMatchMismatch(ifMatch);
+		}
+		try {
+			return Long.parseLong(eTag.substring(1, eTag.length() - 1));
+		} catch (NumberFormatException ex) {
+			throw PreconditionFailedException.ifMatchMismatch(ifMatch);
+		}
+	}
+
+}
@@ -0,0 +1,217 @@
+package com.rtasalem.videoGameShopApi.controller;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.rtasalem.videoGameShopApi.exception.IdempotencyKeyInProgressException;
+import com.rtasalem.videoGameShopApi.exception.IdempotencyKeyMismatchException;
+import com.rtasalem.videoGameShopApi.exception.InvalidIdempotencyKeyException;
+import com.rtasalem.videoGameShopApi.exception.RequestBodyTooLargeException;
+import com.rtasalem.videoGameShopApi.idempotency.IdempotencyStore;
+import com.rtasalem.videoGameShopApi.idempotency.StoredResponse;
+import com.rtasalem.videoGameShopApi.service.VideoGameService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Makes POST requests that carry an Idempotency-Key safe to retry. The 201 response to the first request with a key
+ * is stored, and a retry with the same key is sent that response again, Location header and all, before its body is
+ * validated and without reaching the controller. Any other response is not stored, so the retry is handled afresh.
+ * 
+ * The response is stored with a hash of the client's remote address, the path and the body of the request. A retry
+ * must match it, so a key reused for a different video game, or by another client, is refused with 422 rather than
+ * being sent a response to a request it did not make.
+ * 
+ * The body is read into memory to hash it, so one larger than MAX_BODY_BYTES is refused with 413 before any more of it
+ * is read.
+ * 
+ * Errors are handed to the HandlerExceptionResolver, so that VideoGameControllerAdvice answers them like any other.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+	public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+	// Set on a response that is being sent again.
+	public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
+	public static final int MAX_KEY_LENGTH = 255;
+
+	// Comfortably more than the JSON of a video game with every field at its longest.
+	public static final int MAX_ITEM_BYTES = 2048;
+
+	// Enough for the largest batch the service accepts.
+	public static final int MAX_BODY_BYTES = VideoGameService.MAX_BATCH_SIZE * MAX_ITEM_BYTES;
+
+	private final IdempotencyStore idempotencyStore;
+
+	private final HandlerExceptionResolver exceptionResolver;
+
+	public IdempotencyFilter(IdempotencyStore idempotencyStore, HandlerExceptionResolver exceptionResolver) {
+		super();
+		this.idempotencyStore = idempotencyStore;
+		this.exceptionResolver = exceptionResolver;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+		StoredResponse storedResponse;
+		String requestHash;
+		byte[] body;
+		try {
+			// A declared length is checked before reading, and a chunked body is read no further than one byte past the cap.
+			if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+				throw RequestBodyTooLargeException.forLimit(MAX_BODY_BYTES);
+			}
+			body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+			if (body.length > MAX_BODY_BYTES) {
+				throw RequestBodyTooLargeException.forLimit(MAX_BODY_BYTES);
+			}
+			if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+				throw InvalidIdempotencyKeyException.forMaxLength(MAX_KEY_LENGTH);
+			}
+			requestHash = requestHash(request, body);
+			storedResponse = idempotencyStore.begin(key, requestHash);
+		} catch (RequestBodyTooLargeException | InvalidIdempotencyKeyException | IdempotencyKeyInProgressException
+				| IdempotencyKeyMismatchException ex) {
+			exceptionResolver.resolveException(request, response, null, ex);
+			return;
+		}
+		if (storedResponse != null) {
+			replay(storedResponse, response);
+			return;
+		}
+		ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+		boolean completed = false;
+		try {
+			filterChain.doFilter(new CachedBodyRequest(request, body), responseWrapper);
+			if (responseWrapper.getStatus() == HttpStatus.CREATED.value()) {
+				idempotencyStore.complete(key, new StoredResponse(requestHash, responseWrapper.getStatus(),
+						responseWrapper.getHeader(HttpHeaders.LOCATION), responseWrapper.getContentType(),
+						responseWrapper.getContentAsByteArray()));
+				completed = true;
+			}
+		} finally {
+			if (!completed) {
+				idempotencyStore.release(key);
+			}
+			responseWrapper.copyBodyToResponse();
+		}
+	}
+
+	private static void replay(StoredResponse storedResponse, HttpServletResponse response) throws IOException {
+		response.setStatus(storedResponse.status());
+		if (storedResponse.location() != null) {
+			response.setHeader(HttpHeaders.LOCATION, storedResponse.location());
+		}
+		if (storedResponse.contentType() != null) {
+			response.setContentType(storedResponse.contentType());
+		}
+		response.setHeader(IDEMPOTENT_REPLAYED_HEADER, "true");
+		response.setContentLength(storedResponse.body().length);
+		response.getOutputStream().write(storedResponse.body());
+	}
+
+	// SHA-256 of the client, path and body, each followed by a zero byte so that no two requests run together.
+	private static String requestHash(HttpServletRequest request, byte[] body) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+		digest.update(request.getRemoteAddr().getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update(body);
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	// Hands the body, already read to hash it, to the controller.
+	private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+		private final byte[] body;
+
+		CachedBodyRequest(HttpServletRequest request, byte[] body) {
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			ByteArrayInputStream input = new ByteArrayInputStream(body);
+			return new ServletInputStream() {
+
+				@Override
+				public int read() {
+					return input.read();
+				}
+
+				@Override
+				public int read(byte[] buffer, int offset, int length) {
+					return input.read(buffer, offset, length);
+				}
+
+				@Override
+				public boolean isFinished() {
+					return input.available() == 0;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				// The whole body is already in memory, so it is available, and then all read, as soon as a listener is set.
+				@Override
+				public void setReadListener(ReadListener readListener) {
+					try {
+						readListener.onDataAvailable();
+						if (isFinished()) {
+							readListener.onAllDataRead();
+						}
+					} catch (IOException ex) {
+						readListener.onError(ex);
+					}
+				}
+
+			};
+		}
+
+		@Override
+		public BufferedReader getReader() {
+			String encoding = getCharacterEncoding();
+			Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+			return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+		}
+
+	}
+
+}
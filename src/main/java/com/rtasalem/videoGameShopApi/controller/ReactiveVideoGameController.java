@@ -0,0 +1,235 @@
+package com.rtasalem.videoGameShopApi.controller;
+
+import java.net.URI;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.rtasalem.videoGameShopApi.exception.InvalidQueryParameterException;
+import com.rtasalem.videoGameShopApi.model.PagedResponse;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.model.VideoGameFilter;
+import com.rtasalem.videoGameShopApi.service.ReactiveVideoGameService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.validation.Valid;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Serves the same paths as VideoGameController when the application runs with the reactive profile. Errors are
+// signalled with the same exceptions, which VideoGameControllerAdvice maps to the same statuses and messages.
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/games")
+public class ReactiveVideoGameController {
+	
+	private final ReactiveVideoGameService videoGameService;
+
+	public ReactiveVideoGameController(ReactiveVideoGameService videoGameService) {
+		super();
+		this.videoGameService = videoGameService;
+	}
+	
+	@Operation(
+			summary = "Retrieves a page of the video games in the database.",
+			description = "Returns a page of VideoGame objects along with the page metadata, in the same shape and with the "
+					+ "same parameters as the servlet stack. The optional genre, developer and price range filters are applied "
+					+ "in the database query. The page size is capped at " + VideoGameController.MAX_PAGE_SIZE + ".",
+			method = "GET",
+			responses = {
+					@ApiResponse(
+							responseCode = "200",
+							description = "Displays a JSON page of video games.",
+							content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "400",
+							description = "The paging, sorting or filter parameters are invalid. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					)
+			}
+	)
+	@GetMapping
+	public Mono<PagedResponse<VideoGame>> getAllGames(
+			@Parameter(description = "Zero-based page index.") @RequestParam(defaultValue = "0") int page,
+			@Parameter(description = "Number of video games per page.") @RequestParam(defaultValue = "20") int size,
+			@Parameter(description = "Sort order in the form property,direction e.g. price,desc.") @RequestParam(defaultValue = "id,asc") String sort,
+			@RequestParam(required = false) String genre,
+			@RequestParam(required = false) String developer,
+			@RequestParam(required = false) Double minPrice,
+			@RequestParam(required = false) Double maxPrice) {
+		if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+			throw new InvalidQueryParameterException("The minPrice must not be greater than the maxPrice.");
+		}
+		Pageable pageable = VideoGameController.toPageable(page, size, sort);
+		return videoGameService.findAllGames(new VideoGameFilter(genre, developer, minPrice, maxPrice), pageable);
+	}
+	
+	@Operation(
+			summary = "Exports every video game in the database as newline-delimited JSON.",
+			description = "Streams one JSON object per line, ordered by id. Rows are only read from the database as the "
+					+ "client consumes them, so a slow client slows the query down instead of filling memory.",
+			method = "GET",
+			responses = {
+					@ApiResponse(
+							responseCode = "200",
+							description = "Streams the video games as NDJSON, ordered by id.",
+							content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)}
+					)
+			}
+	)
+	@GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<VideoGame> exportAllGames() {
+		return videoGameService.streamAllGames();
+	}
+	
+	@Operation(
+			summary = "Retrieves a video game using the supplied id.",
+			description = "Retrieves a VideoGame object based on the supplied id by calling the findGameById() method on the "
+					+ "videoGameService.",
+			method = "GET",
+			responses = {
+				@ApiResponse(
+						responseCode = "200",
+						description = "If the video game exists it will be returned as a JSON object.",
+						content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)}
+				),
+				@ApiResponse(
+						responseCode = "304",
+						description = "The video game has not changed since the ETag in If-None-Match was issued. Returns no body."
+				),
+				@ApiResponse(
+						responseCode = "404",
+						description = "If the video game does not exist an RFC 7807 problem detail will be returned.",
+						content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+				)
+			}
+	)
+	@GetMapping("/{id}")
+	public Mono<ResponseEntity<VideoGame>> getGameById(@PathVariable int id) {
+		return videoGameService.findGameById(id)
+				.map(videoGame -> withVersionHeaders(ResponseEntity.status(HttpStatus.OK), videoGame).body(videoGame));
+	}
+	
+	@Operation(
+			summary = "Creates a new video game in the database.",
+			description = "Accepts and validates a VideoGame object passed through the body of the request.",
+			method = "POST",
+			responses = {
+					@ApiResponse(
+							responseCode = "201",
+							description = "Video game was added to the database and returned as JSON object.",
+							content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "400",
+							description = "The supplied video game is invalid. Returns an RFC 7807 problem detail listing each invalid field.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "409",
+							description = "Another video game already has the title. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					)
+			}
+	)
+	@PostMapping
+	public Mono<ResponseEntity<VideoGame>> addNewGame(@Valid @RequestBody VideoGame videoGame, UriComponentsBuilder uriBuilder) {
+		return videoGameService.createNewGame(videoGame)
+				.map(savedGame -> {
+					URI location = uriBuilder.path("/api/v1/games/{id}").buildAndExpand(savedGame.getId()).toUri();
+					return ResponseEntity.created(location).body(savedGame);
+				});
+	}
+	
+	@Operation(
+			summary = "Allows for the details of an existing video game to be updated.",
+			description = "Replaces an existing VideoGame object, identified by the supplied id, with the data in the request "
+					+ "body. Sending the ETag of the video game in If-Match makes the update fail if someone else has changed "
+					+ "it in the meantime.",
+			method = "PUT",
+			responses = {
+						@ApiResponse(
+								responseCode = "200",
+								description = "Video game information updated and returned as JSON object.",
+								content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)}
+						),
+						@ApiResponse(
+								responseCode = "404",
+								description = "Video game information cannot be updated as the id does not exist. Returns an RFC 7807 problem detail.",
+								content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+						),
+						@ApiResponse(
+								responseCode = "409",
+								description = "Another video game already has the new title. Returns an RFC 7807 problem detail.",
+								content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+						),
+						@ApiResponse(
+								responseCode = "412",
+								description = "The video game no longer matches the ETag in If-Match. Returns an RFC 7807 problem detail.",
+								content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+						)
+			}
+	)
+	@PutMapping("/{id}")
+	public Mono<ResponseEntity<VideoGame>> updateExistingGame(@PathVariable int id,
+			@Parameter(in = ParameterIn.HEADER, description = "The ETag the video game must still have.") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@Valid @RequestBody VideoGame videoGame) {
+		return videoGameService.editExistingGame(videoGame, id, GameETags.parseIfMatch(ifMatch))
+				.map(updatedGame -> withVersionHeaders(ResponseEntity.ok(), updatedGame).body(updatedGame));
+	}
+	
+	@Operation(
+			summary = "Allows for a video game to be completely removed from the database.",
+			description = "Removes the VideoGame object identified by the supplied id from the database.",
+			method = "DELETE",
+			responses = {
+					@ApiResponse(
+							responseCode = "200",
+							description = "Video game object deleted. Returns a JSON object with no body content.",
+							content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "404",
+							description = "Video Game object could not be deleted as the id does not exists. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					)
+			}
+	)
+	@DeleteMapping("/{id}")
+	public Mono<ResponseEntity<Void>> deleteGameById(@PathVariable int id) {
+		return videoGameService.removeGameById(id)
+				.then(Mono.fromSupplier(() -> ResponseEntity.status(HttpStatus.OK).<Void>build()));
+	}
+	
+	private ResponseEntity.BodyBuilder withVersionHeaders(ResponseEntity.BodyBuilder builder, VideoGame videoGame) {
+		String eTag = GameETags.of(videoGame);
+		if (eTag != null) {
+			builder.eTag(eTag);
+		}
+		if (videoGame.getLastModified() != null) {
+			builder.lastModified(videoGame.getLastModified());
+		}
+		return builder;
+	}
+
+}
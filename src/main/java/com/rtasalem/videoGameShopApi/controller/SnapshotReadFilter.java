@@ -0,0 +1,235 @@
+package com.rtasalem.videoGameShopApi.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+
+import com.rtasalem.videoGameShopApi.cache.CatalogueVersionHolder;
+import com.rtasalem.videoGameShopApi.exception.InvalidQueryParameterException;
+import com.rtasalem.videoGameShopApi.model.CatalogueVersion;
+import com.rtasalem.videoGameShopApi.model.VideoGameFilter;
+import com.rtasalem.videoGameShopApi.pricing.PriceUpdatePipeline;
+import com.rtasalem.videoGameShopApi.snapshot.CatalogueSnapshot;
+import com.rtasalem.videoGameShopApi.snapshot.CatalogueSnapshotHolder;
+import com.rtasalem.videoGameShopApi.throttle.RateLimiter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Answers GET /api/v1/games/{id} and GET /api/v1/games from the CatalogueSnapshot, by writing out the JSON each game
+ * was serialised to when the snapshot was built. The responses, ETags and 304s are the same as the controller's,
+ * which still handles every request the snapshot cannot answer exactly: while there is no snapshot, for a game that
+ * has been written since the snapshot was built or has a price waiting to be written, for a listing while any game
+ * has, for a listing sorted by anything but id or price, for any parameter the filter does not recognise or cannot
+ * parse, and for clients that do not accept JSON.
+ *
+ * Requests are rate limited under the name of the controller method, as they would have been by
+ * ThrottlingInterceptor. One that is over its limit is passed on to the controller, where the interceptor rejects it.
+ * They are not counted against the concurrency limit, which protects the database.
+ */
+public class SnapshotReadFilter extends OncePerRequestFilter {
+
+	private static final String GAMES_PATH = "/api/v1/games";
+
+	private static final String GAME_PATH_PATTERN = GAMES_PATH + "/{id}";
+
+	// The rate limits the requests would have been counted against in VideoGameController.
+	private static final String GET_ALL_GAMES = "getAllGames";
+
+	private static final String GET_GAME_BY_ID = "getGameById";
+
+	private static final Set<String> LISTING_PARAMETERS = Set.of("page", "size", "sort", "genre", "developer", "minPrice",
+			"maxPrice");
+
+	private static final byte[] LISTING_START = "{\"content\":[".getBytes(StandardCharsets.UTF_8);
+
+	private final CatalogueSnapshotHolder snapshotHolder;
+
+	// Listings carry the same ETag as the controller's because both take it from here.
+	private final CatalogueVersionHolder catalogueVersion;
+
+	private final PriceUpdatePipeline priceUpdates;
+
+	private final RateLimiter rateLimiter;
+
+	public SnapshotReadFilter(CatalogueSnapshotHolder snapshotHolder, CatalogueVersionHolder catalogueVersion,
+			PriceUpdatePipeline priceUpdates, RateLimiter rateLimiter) {
+		super();
+		this.snapshotHolder = snapshotHolder;
+		this.catalogueVersion = catalogueVersion;
+		this.priceUpdates = priceUpdates;
+		this.rateLimiter = rateLimiter;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !"GET".equals(request.getMethod()) || snapshotHolder.current() == null || !acceptsJson(request);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		CatalogueSnapshot snapshot = snapshotHolder.current();
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		boolean served;
+		if (path.equals(GAMES_PATH)) {
+			served = serveListing(request, response);
+		} else {
+			served = serveGame(snapshot, path.substring(GAMES_PATH.length() + 1), request, response);
+		}
+		if (!served) {
+			filterChain.doFilter(request, response);
+		}
+	}
+
+	private boolean serveGame(CatalogueSnapshot snapshot, String idText, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		int id = parseId(idText);
+		if (id < 0 || snapshotHolder.isStale(id) || priceUpdates.hasPending(id)) {
+			return false;
+		}
+		int index = snapshot.indexOf(id);
+		// Missing games are left to the controller, which answers them with a problem detail.
+		if (index < 0 || snapshot.version(index) == CatalogueSnapshot.NO_VERSION || !withinRateLimit(GET_GAME_BY_ID, request)) {
+			return false;
+		}
+		recordPathPattern(request, GAME_PATH_PATTERN);
+		if (new ServletWebRequest(request, response).checkNotModified("\"" + snapshot.version(index) + "\"",
+				snapshot.lastModified(index))) {
+			return true;
+		}
+		byte[] json = snapshot.json(index);
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setContentLength(json.length);
+		response.getOutputStream().write(json);
+		return true;
+	}
+
+	private boolean serveListing(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		// Read in this order, the snapshot holds at least every write the version counts: a write is marked stale
+		// before the version moves on, and is only cleared once a snapshot that holds it has been swapped in.
+		CatalogueVersion version = catalogueVersion.current();
+		if (snapshotHolder.hasStaleGames()) {
+			return false;
+		}
+		CatalogueSnapshot snapshot = snapshotHolder.current();
+		Map<String, String[]> parameters = request.getParameterMap();
+		for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+			if (!LISTING_PARAMETERS.contains(parameter.getKey()) || parameter.getValue().length != 1
+					|| parameter.getValue()[0].isBlank()) {
+				return false;
+			}
+		}
+		VideoGameFilter filter;
+		Pageable pageable;
+		try {
+			Double minPrice = parseDouble(request.getParameter("minPrice"));
+			Double maxPrice = parseDouble(request.getParameter("maxPrice"));
+			if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+				return false;
+			}
+			filter = new VideoGameFilter(request.getParameter("genre"), request.getParameter("developer"), minPrice, maxPrice);
+			pageable = VideoGameController.toPageable(parseInt(request.getParameter("page"), 0),
+					parseInt(request.getParameter("size"), 20), parameterOrDefault(request.getParameter("sort"), "id,asc"));
+		} catch (NumberFormatException | InvalidQueryParameterException ex) {
+			return false;
+		}
+		CatalogueSnapshot.Listing listing = snapshot.list(filter, pageable);
+		if (listing == null || !withinRateLimit(GET_ALL_GAMES, request)) {
+			return false;
+		}
+		recordPathPattern(request, GAMES_PATH);
+		String eTag = version.toETag(filter + " " + pageable);
+		if (new ServletWebRequest(request, response).checkNotModified(eTag)) {
+			return true;
+		}
+		// The same document PagedResponse is serialised to.
+		int pageSize = pageable.getPageSize();
+		long totalPages = (listing.totalElements() + pageSize - 1) / pageSize;
+		byte[] listingEnd = ("],\"page\":" + pageable.getPageNumber() + ",\"size\":" + pageSize + ",\"totalElements\":"
+				+ listing.totalElements() + ",\"totalPages\":" + totalPages + "}").getBytes(StandardCharsets.UTF_8);
+		int contentLength = LISTING_START.length + listingEnd.length + Math.max(0, listing.count() - 1);
+		for (int i = 0; i < listing.count(); i++) {
+			contentLength += snapshot.json(listing.page()[i]).length;
+		}
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setContentLength(contentLength);
+		ServletOutputStream outputStream = response.getOutputStream();
+		outputStream.write(LISTING_START);
+		for (int i = 0; i < listing.count(); i++) {
+			if (i > 0) {
+				outputStream.write(',');
+			}
+			outputStream.write(snapshot.json(listing.page()[i]));
+		}
+		outputStream.write(listingEnd);
+		return true;
+	}
+
+	private boolean withinRateLimit(String endpoint, HttpServletRequest request) {
+		return rateLimiter.tryAcquire(endpoint, request.getRemoteAddr()) == 0;
+	}
+
+	// Tags the http.server.requests metrics with the endpoint, as the controller mapping would have.
+	private void recordPathPattern(HttpServletRequest request, String pathPattern) {
+		ServerHttpObservationFilter.findObservationContext(request).ifPresent(context -> context.setPathPattern(pathPattern));
+	}
+
+	// CBOR is only sent to clients that ask for it, which are left to the controller.
+	private boolean acceptsJson(HttpServletRequest request) {
+		String accept = request.getHeader(HttpHeaders.ACCEPT);
+		if (accept == null) {
+			return true;
+		}
+		if (accept.contains("cbor")) {
+			return false;
+		}
+		try {
+			return MediaType.parseMediaTypes(accept).stream().anyMatch(mediaType -> mediaType.isCompatibleWith(MediaType.APPLICATION_JSON));
+		} catch (InvalidMediaTypeException ex) {
+			return false;
+		}
+	}
+
+	// Returns -1 for anything but a plain non-negative number.
+	private static int parseId(String text) {
+		if (text.isEmpty() || text.length() > 9) {
+			return -1;
+		}
+		int id = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			id = id * 10 + (c - '0');
+		}
+		return id;
+	}
+
+	private static int parseInt(String text, int defaultValue) {
+		return text == null ? defaultValue : Integer.parseInt(text.trim());
+	}
+
+	private static Double parseDouble(String text) {
+		return text == null ? null : Double.valueOf(text);
+	}
+
+	private static String parameterOrDefault(String text, String defaultValue) {
+		return text == null ? defaultValue : text;
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.rtasalem.videoGameShopApi.controller;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import com.rtasalem.videoGameShopApi.exception.ServiceOverloadedException;
+import com.rtasalem.videoGameShopApi.exception.TooManyRequestsException;
+import com.rtasalem.videoGameShopApi.throttle.AdaptiveConcurrencyLimiter;
+import com.rtasalem.videoGameShopApi.throttle.RateLimiter;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Turns requests away before they reach the controller: with 429 when the client has used up its rate limit for the
+ * endpoint, and with 503 when the concurrency limit is reached. Both are thrown as exceptions, so that
+ * VideoGameControllerAdvice answers them like any other error, with a Retry-After header.
+ * 
+ * Clients are told apart by their remote address. Behind a reverse proxy, set server.forward-headers-strategy so
+ * that this is the address of the client rather than of the proxy.
+ */
+public class ThrottlingInterceptor implements AsyncHandlerInterceptor {
+
+	private static final String STARTED_ATTRIBUTE = ThrottlingInterceptor.class.getName() + ".started";
+
+	private static final String ASYNC_ATTRIBUTE = ThrottlingInterceptor.class.getName() + ".async";
+
+	private final RateLimiter rateLimiter;
+
+	private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+	public ThrottlingInterceptor(RateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter) {
+		super();
+		this.rateLimiter = rateLimiter;
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		// The dispatch that completes an async request such as the export was let through when it started.
+		if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod handlerMethod)) {
+			return true;
+		}
+		long waitNanos = rateLimiter.tryAcquire(handlerMethod.getMethod().getName(), request.getRemoteAddr());
+		if (waitNanos > 0) {
+			long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+			throw TooManyRequestsException.retryAfter(retryAfterSeconds);
+		}
+		// Event streams stay open for as long as the client listens, so they are rate limited but hold no slot.
+		if (ResponseBodyEmitter.class.isAssignableFrom(handlerMethod.getMethod().getReturnType())) {
+			return true;
+		}
+		if (!concurrencyLimiter.tryAcquire()) {
+			throw new ServiceOverloadedException("The service is busy. Try again in 1 second.", 1);
+		}
+		request.setAttribute(STARTED_ATTRIBUTE, System.nanoTime());
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		request.setAttribute(ASYNC_ATTRIBUTE, Boolean.TRUE);
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		Object started = request.getAttribute(STARTED_ATTRIBUTE);
+		if (started == null) {
+			return;
+		}
+		request.removeAttribute(STARTED_ATTRIBUTE);
+		// Streaming the whole catalogue takes as long as it takes, so it does not count as a latency sample.
+		if (request.getAttribute(ASYNC_ATTRIBUTE) != null) {
+			concurrencyLimiter.release();
+		} else {
+			concurrencyLimiter.release(System.nanoTime() - (Long) started);
+		}
+	}
+
+}
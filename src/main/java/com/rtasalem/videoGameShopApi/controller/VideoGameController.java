@@ -1,68 +1,307 @@
 package com.rtasalem.videoGameShopApi.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
+import java.util.Set;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import com.rtasalem.videoGameShopApi.exception.InvalidQueryParameterException;
+import com.rtasalem.videoGameShopApi.model.BatchResponse;
+import com.rtasalem.videoGameShopApi.model.CatalogueVersion;
+import com.rtasalem.videoGameShopApi.model.CursorPage;
+import com.rtasalem.videoGameShopApi.model.FacetCounts;
+import com.rtasalem.videoGameShopApi.model.MultiGetResponse;
+import com.rtasalem.videoGameShopApi.model.PagedResponse;
+import com.rtasalem.videoGameShopApi.model.PriceUpdate;
+import com.rtasalem.videoGameShopApi.model.Purchase;
+import com.rtasalem.videoGameShopApi.model.Restock;
 import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.model.VideoGameFilter;
 import com.rtasalem.videoGameShopApi.service.VideoGameService;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
 
+// Replaced by ReactiveVideoGameController when the application runs with the reactive profile.
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/games")
 public class VideoGameController {
 	
 	// Creating an instance of the VideoGameService class to access the methods from the service layer.
 	private final VideoGameService videoGameService;
+	
+	// Used to write the NDJSON export one video game at a time.
+	private final ObjectMapper objectMapper;
 
 	// The service layer is injected into the controller layer via constructor injection.
-	public VideoGameController(VideoGameService videoGameService) {
+	public VideoGameController(VideoGameService videoGameService, ObjectMapper objectMapper) {
 		super();
 		this.videoGameService = videoGameService;
+		this.objectMapper = objectMapper;
 	}
 	
-	// Importing the Logger so that information logs can be written for each method.
-	private final static Logger log = LoggerFactory.getLogger(VideoGameController.class);
+	// Page sizes above this limit are clamped so that no single request can pull the whole table.
+	public static final int MAX_PAGE_SIZE = 100;
+	
+	public static final int MAX_CURSOR_LIMIT = 1000;
+	
+	public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+	
+	private static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "title", "genre", "developer", "price");
 	
 	@Operation(
-			summary = "Retrieves a list of all the video games in the database (which is an in-memory datbase).",
+			summary = "Retrieves a page of the video games in the database (which is an in-memory datbase).",
 			description = "The end point called getAllGames will return a ResponseEntity "
-					+ "object containing a list of VideoGame objects. This is achieved by calling "
-					+ "the findAllGames() method on the videoGameService.",
+					+ "object containing a page of VideoGame objects along with the page metadata. This is achieved by calling "
+					+ "the findAllGames() method on the videoGameService. The optional genre, developer and price range filters "
+					+ "are applied in the database query. The page size is capped at " + MAX_PAGE_SIZE + ". The ETag is derived "
+					+ "from a catalogue-wide version, so an unchanged listing is answered with 304 without loading any rows.",
 			method = "GET",
 			responses = {
 					@ApiResponse(
 							responseCode = "200",
-							description = "Displays a JSON list of video games.",
-							content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)}
+							description = "Displays a JSON page of video games.",
+							content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)},
+							headers = {
+									@Header(
+											name = HttpHeaders.ETAG,
+											description = "Changes whenever the catalogue or the requested page changes."
+									)
+							}
+					),
+					@ApiResponse(
+							responseCode = "304",
+							description = "The catalogue has not changed since the ETag in If-None-Match was issued. Returns no body."
+					),
+					@ApiResponse(
+							responseCode = "400",
+							description = "The paging, sorting or filter parameters are invalid. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
 					)
 			}
 	)
 	@GetMapping
-	public ResponseEntity<List<VideoGame>> getAllGames() {
-		log.info("Entering getAllGames()");
-		log.info("Exiting getAllGames()");
-		return ResponseEntity.status(HttpStatus.OK).body(videoGameService.findAllGames());
+	public ResponseEntity<PagedResponse<VideoGame>> getAllGames(
+			@Parameter(description = "Zero-based page index.") @RequestParam(defaultValue = "0") int page,
+			@Parameter(description = "Number of video games per page.") @RequestParam(defaultValue = "20") int size,
+			@Parameter(description = "Sort order in the form property,direction e.g. price,desc.") @RequestParam(defaultValue = "id,asc") String sort,
+			@RequestParam(required = false) String genre,
+			@RequestParam(required = false) String developer,
+			@RequestParam(required = false) Double minPrice,
+			@RequestParam(required = false) Double maxPrice,
+			WebRequest webRequest) {
+		if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+			throw new InvalidQueryParameterException("The minPrice must not be greater than the maxPrice.");
+		}
+		VideoGameFilter filter = new VideoGameFilter(genre, developer, minPrice, maxPrice);
+		Pageable pageable = toPageable(page, size, sort);
+		CatalogueVersion catalogueVersion = videoGameService.findCatalogueVersion();
+		String eTag = catalogueVersion.toETag(filter + " " + pageable);
+		if (webRequest.checkNotModified(eTag)) {
+			// The response has already been completed as 304 Not Modified.
+			return null;
+		}
+		PagedResponse<VideoGame> videoGames = PagedResponse.from(videoGameService.findAllGames(filter, pageable, catalogueVersion));
+		return ResponseEntity.status(HttpStatus.OK).eTag(eTag).body(videoGames);
+	}
+	
+	@Operation(
+			summary = "Retrieves many video games by id in a single request.",
+			description = "Intended for pages such as the cart and wishlist that show a known set of games. The end point "
+					+ "called getGamesByIds is selected when the ids parameter is present and calls the findGamesById() method "
+					+ "on the videoGameService, which answers from the cache where it can and loads the rest with a single "
+					+ "query. Ids that do not exist are listed in missingIds instead of failing the request. At most "
+					+ VideoGameService.MAX_MULTI_GET_SIZE + " distinct ids may be requested at once.",
+			method = "GET",
+			responses = {
+					@ApiResponse(
+							responseCode = "200",
+							description = "Displays the video games found, in the order requested, and the ids that do not exist.",
+							content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "400",
+							description = "No ids, an invalid id or too many ids were supplied. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					)
+			}
+	)
+	@GetMapping(params = "ids")
+	public ResponseEntity<MultiGetResponse> getGamesByIds(
+			@Parameter(description = "Comma separated video game ids, e.g. 1,2,3.") @RequestParam List<Integer> ids) {
+		if (ids.isEmpty()) {
+			throw new InvalidQueryParameterException("At least one id must be supplied.");
+		}
+		if (ids.contains(null)) {
+			throw new InvalidQueryParameterException("The ids must not contain an empty value.");
+		}
+		MultiGetResponse response = videoGameService.findGamesById(ids);
+		return ResponseEntity.status(HttpStatus.OK).body(response);
+	}
+	
+	@Operation(
+			summary = "Retrieves the video games that follow a cursor, ordered by id.",
+			description = "Intended for clients that sync the whole catalogue. The end point called getGamesAfterCursor "
+					+ "returns up to limit video games after the supplied cursor by calling the findGamesAfter() method on "
+					+ "the videoGameService, together with the cursor for the next page. Omitting the cursor starts from the "
+					+ "beginning of the catalogue and a null nextCursor means the end has been reached. The limit is capped at "
+					+ MAX_CURSOR_LIMIT + ".",
+			method = "GET",
+			responses = {
+					@ApiResponse(
+							responseCode = "200",
+							description = "Displays a JSON page of video games and the next cursor.",
+							content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "400",
+							description = "The cursor or limit is invalid. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					)
+			}
+	)
+	@GetMapping("/cursor")
+	public ResponseEntity<CursorPage<VideoGame>> getGamesAfterCursor(
+			@Parameter(description = "The nextCursor returned by the previous page.") @RequestParam(required = false) String after,
+			@Parameter(description = "Maximum number of video games to return.") @RequestParam(defaultValue = "100") int limit) {
+		if (limit < 1) {
+			throw new InvalidQueryParameterException("The limit must be at least 1.");
+		}
+		int afterId = after == null ? 0 : GameCursors.decode(after);
+		Slice<VideoGame> slice = videoGameService.findGamesAfter(afterId, Math.min(limit, MAX_CURSOR_LIMIT));
+		List<VideoGame> videoGames = slice.getContent();
+		String nextCursor = slice.hasNext() ? GameCursors.encode(videoGames.get(videoGames.size() - 1).getId()) : null;
+		return ResponseEntity.status(HttpStatus.OK).body(new CursorPage<>(videoGames, nextCursor));
+	}
+	
+	@Operation(
+			summary = "Searches the titles, developers and genres of the video games.",
+			description = "Intended for search boxes that query on every keystroke. The end point called searchGames splits "
+					+ "the query into words and returns the video games in which every word starts one of the words of the "
+					+ "title, developer or genre, ignoring case. Results are ranked with title matches first, then developer "
+					+ "and then genre, and whole words rank above prefixes. This is achieved by calling the searchGames() "
+					+ "method on the videoGameService, which answers from an in-memory index without querying the database. "
+					+ "The limit is capped at " + MAX_PAGE_SIZE + ".",
+			method = "GET",
+			responses = {
+					@ApiResponse(
+							responseCode = "200",
+							description = "Displays a JSON array of the best matching video games, best first.",
+							content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "400",
+							description = "The query is blank or the limit is invalid. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					)
+			}
+	)
+	@GetMapping("/search")
+	public ResponseEntity<List<VideoGame>> searchGames(
+			@Parameter(description = "The words to search for, e.g. zel nin.") @RequestParam String q,
+			@Parameter(description = "Maximum number of video games to return.") @RequestParam(defaultValue = "20") int limit) {
+		if (q.isBlank()) {
+			throw new InvalidQueryParameterException("The search query must not be blank.");
+		}
+		if (limit < 1) {
+			throw new InvalidQueryParameterException("The limit must be at least 1.");
+		}
+		List<VideoGame> videoGames = videoGameService.searchGames(q, Math.min(limit, MAX_PAGE_SIZE));
+		return ResponseEntity.status(HttpStatus.OK).body(videoGames);
+	}
+	
+	@Operation(
+			summary = "Counts the video games per genre, per developer and per £5 price range.",
+			description = "The end point called getFacetCounts returns the counts by calling the findFacetCounts() method on "
+					+ "the videoGameService. The counts are kept up to date on every write, so the table is never scanned.",
+			method = "GET",
+			responses = {
+					@ApiResponse(
+							responseCode = "200",
+							description = "Displays the total, the counts per genre and per developer with the most games first, "
+									+ "and the counts per price range from £5.00 to £30.00.",
+							content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)}
+					)
+			}
+	)
+	@GetMapping("/facets")
+	public ResponseEntity<FacetCounts> getFacetCounts() {
+		FacetCounts facetCounts = videoGameService.findFacetCounts();
+		return ResponseEntity.status(HttpStatus.OK).body(facetCounts);
+	}
+	
+	@Operation(
+			summary = "Exports every video game in the database as newline-delimited JSON.",
+			description = "The end point called exportAllGames streams one JSON object per line by calling the "
+					+ "exportAllGames() method on the videoGameService. Rows are read through a database cursor and written "
+					+ "out as they arrive, so the whole catalogue is never held in memory.",
+			method = "GET",
+			responses = {
+					@ApiResponse(
+							responseCode = "200",
+							description = "Streams the video games as NDJSON, ordered by id.",
+							content = {@Content(mediaType = APPLICATION_NDJSON_VALUE)}
+					)
+			}
+	)
+	@GetMapping(value = "/export", produces = APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportAllGames() {
+		StreamingResponseBody body = outputStream -> {
+			try (SequenceWriter writer = objectMapper.writerFor(VideoGame.class)
+					.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+					.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+					.withRootValueSeparator("\n")
+					.writeValues(outputStream)) {
+				long exported = videoGameService.exportAllGames(videoGame -> {
+					try {
+						writer.write(videoGame);
+					} catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				});
+				writer.flush();
+				if (exported > 0) {
+					outputStream.write('\n');
+				}
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE)).body(body);
 	}
 	
 	@Operation(
@@ -74,26 +313,48 @@ public class VideoGameController {
 				@ApiResponse(
 						responseCode = "200",
 						description = "If the video game exists it will be returned as a JSON object.",
-						content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)}
+						content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)},
+						headers = {
+								@Header(
+										name = HttpHeaders.ETAG,
+										description = "The version of the video game."
+								),
+								@Header(
+										name = HttpHeaders.LAST_MODIFIED,
+										description = "When the video game was last changed."
+								)
+						}
+				),
+				@ApiResponse(
+						responseCode = "304",
+						description = "The video game has not changed since the ETag in If-None-Match was issued. Returns no body."
 				),
 				@ApiResponse(
 						responseCode = "404",
-						description = "If the video game does not exist an error message will be returned as plain text.",
-						content = {@Content(mediaType = MediaType.TEXT_PLAIN_VALUE)}
+						description = "If the video game does not exist an RFC 7807 problem detail will be returned.",
+						content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
 				)
 			}
 	)
 	@GetMapping("/{id}")
 	public ResponseEntity<VideoGame> getGameById(@PathVariable int id) {
-		log.info("Entering getGameById()");
-		log.info("Exiting getGameById()");
-		return ResponseEntity.status(HttpStatus.OK).body(videoGameService.findGameById(id));
+		VideoGame videoGame = videoGameService.findGameById(id);
+		// Spring answers If-None-Match and If-Modified-Since with 304 from these headers, before the body is written.
+		return withVersionHeaders(ResponseEntity.status(HttpStatus.OK), videoGame).body(videoGame);
 	}
 	
 	@Operation(
 			summary = "Creates a new video game in the database.",
-			description = "Accepts and validates an VideoGame object passed through the body of the request.",
+			description = "Accepts and validates an VideoGame object passed through the body of the request. A retry sent with "
+					+ "the same Idempotency-Key is answered with the original 201 response instead of creating the video game again.",
 			method = "POST",
+			parameters = {
+					@Parameter(
+							in = ParameterIn.HEADER,
+							name = IdempotencyFilter.IDEMPOTENCY_KEY_HEADER,
+							description = "A unique value, such as a UUID, that identifies this request across retries."
+					)
+			},
 			responses = {
 					@ApiResponse(
 							responseCode = "201",
@@ -108,18 +369,34 @@ public class VideoGameController {
 					),
 					@ApiResponse(
 							responseCode = "400",
-							description = "The supplied video game is invalid. Returns a CSV plain text of validation errors.",
-							content = {@Content(mediaType = MediaType.TEXT_PLAIN_VALUE)}
+							description = "The supplied video game is invalid. Returns an RFC 7807 problem detail listing each invalid field.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "409",
+							description = "The title is taken, or a request with the same Idempotency-Key is still being processed. "
+									+ "Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "422",
+							description = "The Idempotency-Key was already used by a different client or with a different body. "
+									+ "Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "413",
+							description = "The request carries an Idempotency-Key and its body is larger than the filter will buffer. "
+									+ "Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
 					)
 			}
 			
 	)
 	@PostMapping
 	public ResponseEntity<VideoGame> addNewGame(@Valid @RequestBody VideoGame videoGame) {
-		log.info("Entering addNewGame()");
 		videoGameService.createNewGame(videoGame);
 		URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(videoGame.getId()).toUri();
-		log.info("Exiting addNewGame()");
 		return ResponseEntity.created(location).body(videoGame);		
 	}
 	
@@ -127,7 +404,8 @@ public class VideoGameController {
 			summary = "Allows for the details of an existing video game to be updated.",
 			description = "Specifies a URL pattern and allows for an existing VideoGame object to be updated using a supplied "
 					+ "id with the data in the request body (videoGame). This is achieved by calling the editExistingGame() method on the "
-					+ "videoGameService. The updated VideoGame object is then returned as the response body.",
+					+ "videoGameService. The updated VideoGame object is then returned as the response body. Sending the ETag of the "
+					+ "video game in If-Match makes the update fail if someone else has changed it in the meantime.",
 			method = "PUT",
 			responses = {
 						@ApiResponse(
@@ -137,16 +415,123 @@ public class VideoGameController {
 						),
 						@ApiResponse(
 								responseCode = "404",
-								description = "Video game information cannot be updated as the id does not exist. Returns a plain text error message.",
-								content = {@Content(mediaType = MediaType.TEXT_PLAIN_VALUE)}
+								description = "Video game information cannot be updated as the id does not exist. Returns an RFC 7807 problem detail.",
+								content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+						),
+						@ApiResponse(
+								responseCode = "409",
+								description = "Another video game already has the new title. Returns an RFC 7807 problem detail.",
+								content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+						),
+						@ApiResponse(
+								responseCode = "412",
+								description = "The video game no longer matches the ETag in If-Match. Returns an RFC 7807 problem detail.",
+								content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
 						)
 			}
 	)
 	@PutMapping("/{id}")
-	public ResponseEntity<VideoGame> updateExistingGame(@PathVariable int id, @Valid @RequestBody VideoGame videoGame) {
-		log.info("Entering updateExistingGame()");
-		log.info("Exiting updateExistingGame()");
-		return ResponseEntity.ok(videoGameService.editExistingGame(videoGame, id));
+	public ResponseEntity<VideoGame> updateExistingGame(@PathVariable int id,
+			@Parameter(in = ParameterIn.HEADER, description = "The ETag the video game must still have.") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@Valid @RequestBody VideoGame videoGame) {
+		VideoGame updatedGame = videoGameService.editExistingGame(videoGame, id, GameETags.parseIfMatch(ifMatch));
+		return withVersionHeaders(ResponseEntity.ok(), updatedGame).body(updatedGame);
+	}
+	
+	@Operation(
+			summary = "Changes the price of an existing video game.",
+			description = "Queues the new price, which is written to the database in a batch shortly afterwards. Repeated changes "
+					+ "to the same video game before then are combined into one write. The video game is returned with its new price, "
+					+ "which getGameById() also returns from now on. It has no ETag until the price has been written.",
+			method = "PATCH",
+			responses = {
+					@ApiResponse(
+							responseCode = "202",
+							description = "The new price was accepted. Returns the video game with that price as a JSON object.",
+							content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "400",
+							description = "The price is missing or out of range. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "404",
+							description = "The id does not exist. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "503",
+							description = "Too many price changes are waiting to be written. Returns an RFC 7807 problem detail and Retry-After.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					)
+			}
+	)
+	@PatchMapping("/{id}/price")
+	public ResponseEntity<VideoGame> updateGamePrice(@PathVariable int id, @Valid @RequestBody PriceUpdate priceUpdate) {
+		VideoGame videoGame = videoGameService.updateGamePrice(id, priceUpdate.price());
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(videoGame);
+	}
+	
+	@Operation(
+			summary = "Buys copies of a video game.",
+			description = "Takes the copies from the stock of the video game straight away, and either all of them or none. The "
+					+ "new stock level is written to the database in a batch shortly afterwards, and shown with the video game "
+					+ "from then on.",
+			method = "POST",
+			responses = {
+					@ApiResponse(
+							responseCode = "204",
+							description = "The copies were taken from the stock. Returns no body content."
+					),
+					@ApiResponse(
+							responseCode = "400",
+							description = "The quantity is missing or out of range. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "404",
+							description = "The id does not exist. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "409",
+							description = "Fewer copies are left in stock than were asked for. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					)
+			}
+	)
+	@PostMapping("/{id}/purchase")
+	public ResponseEntity<Void> purchaseGame(@PathVariable int id, @Valid @RequestBody Purchase purchase) {
+		videoGameService.purchaseGame(id, purchase.quantity());
+		return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+	}
+	
+	@Operation(
+			summary = "Adds delivered copies of a video game to its stock.",
+			description = "The copies are added to the stock in the database straight away, and can be bought from then on.",
+			method = "POST",
+			responses = {
+					@ApiResponse(
+							responseCode = "204",
+							description = "The copies were added to the stock. Returns no body content."
+					),
+					@ApiResponse(
+							responseCode = "400",
+							description = "The quantity is missing or out of range. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "404",
+							description = "The id does not exist. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					)
+			}
+	)
+	@PostMapping("/{id}/restock")
+	public ResponseEntity<Void> restockGame(@PathVariable int id, @Valid @RequestBody Restock restock) {
+		videoGameService.restockGame(id, restock.quantity());
+		return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
 	}
 	
 	@Operation(
@@ -163,17 +548,141 @@ public class VideoGameController {
 					),
 					@ApiResponse(
 							responseCode = "404",
-							description = "Video Game object could not be deleted as the id does not exists. Returns a plain text error message.",
-							content = {@Content(mediaType = MediaType.TEXT_PLAIN_VALUE)}
+							description = "Video Game object could not be deleted as the id does not exists. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
 					)
 			}
 	)
 	@DeleteMapping("/{id}")
 	public ResponseEntity<Void> deleteGameById(@PathVariable int id) {
-		log.info("Entering deleteGameById()");
 		videoGameService.removeGameById(id);
-		log.info("Exiting deleteGameById()");
 		return ResponseEntity.status(HttpStatus.OK).build();
 	}
+	
+	@Operation(
+			summary = "Creates many new video games in a single request.",
+			description = "Accepts a JSON array of VideoGame objects and passes it to the createNewGames() method on the "
+					+ "videoGameService. Every item is validated and all titles are checked for duplicates in one query, then "
+					+ "the valid games are inserted in a single transaction. At most " + VideoGameService.MAX_BATCH_SIZE
+					+ " games may be sent at once.",
+			method = "POST",
+			responses = {
+					@ApiResponse(
+							responseCode = "200",
+							description = "Returns a JSON summary with the result of every item, in request order.",
+							content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "400",
+							description = "The batch is too large. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "409",
+							description = "A title was taken by another request while the batch was being written. Nothing "
+									+ "was written. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					)
+			}
+	)
+	@PostMapping("/batch")
+	public ResponseEntity<BatchResponse> addNewGamesInBatch(@RequestBody List<VideoGame> videoGames) {
+		BatchResponse response = new BatchResponse(videoGameService.createNewGames(videoGames));
+		return ResponseEntity.ok(response);
+	}
+	
+	@Operation(
+			summary = "Updates many existing video games in a single request.",
+			description = "Accepts a JSON array of VideoGame objects, each identified by its id, and passes it to the "
+					+ "editExistingGames() method on the videoGameService. The existing games are loaded in one query, every "
+					+ "new title is checked for duplicates in one query, and the games are updated in a single transaction. At "
+					+ "most " + VideoGameService.MAX_BATCH_SIZE + " games may be sent at once.",
+			method = "PUT",
+			responses = {
+					@ApiResponse(
+							responseCode = "200",
+							description = "Returns a JSON summary with the result of every item, in request order.",
+							content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "400",
+							description = "The batch is too large. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "409",
+							description = "A title was taken by another request while the batch was being written. Nothing "
+									+ "was written. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					)
+			}
+	)
+	@PutMapping("/batch")
+	public ResponseEntity<BatchResponse> updateExistingGamesInBatch(@RequestBody List<VideoGame> videoGames) {
+		BatchResponse response = new BatchResponse(videoGameService.editExistingGames(videoGames));
+		return ResponseEntity.ok(response);
+	}
+	
+	@Operation(
+			summary = "Removes many video games in a single request.",
+			description = "Accepts a JSON array of video game ids and passes it to the removeGamesById() method on the "
+					+ "videoGameService, which deletes every existing id with a single statement. At most "
+					+ VideoGameService.MAX_BATCH_SIZE + " ids may be sent at once.",
+			method = "DELETE",
+			responses = {
+					@ApiResponse(
+							responseCode = "200",
+							description = "Returns a JSON summary with the result of every id, in request order.",
+							content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE)}
+					),
+					@ApiResponse(
+							responseCode = "400",
+							description = "The batch is too large. Returns an RFC 7807 problem detail.",
+							content = {@Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE)}
+					)
+			}
+	)
+	@DeleteMapping("/batch")
+	public ResponseEntity<BatchResponse> deleteGamesInBatch(@RequestBody List<Integer> ids) {
+		BatchResponse response = new BatchResponse(videoGameService.removeGamesById(ids));
+		return ResponseEntity.ok(response);
+	}
+	
+	private ResponseEntity.BodyBuilder withVersionHeaders(ResponseEntity.BodyBuilder builder, VideoGame videoGame) {
+		String eTag = GameETags.of(videoGame);
+		if (eTag != null) {
+			builder.eTag(eTag);
+		}
+		if (videoGame.getLastModified() != null) {
+			builder.lastModified(videoGame.getLastModified());
+		}
+		return builder;
+	}
+	
+	// Also used by SnapshotReadFilter, so that a listing served from the snapshot is paged and sorted exactly alike.
+	static Pageable toPageable(int page, int size, String sort) {
+		if (page < 0) {
+			throw new InvalidQueryParameterException("The page index must not be negative.");
+		}
+		if (size < 1) {
+			throw new InvalidQueryParameterException("The page size must be at least 1.");
+		}
+		String[] sortParts = sort.split(",");
+		String property = sortParts[0].trim();
+		if (!SORTABLE_PROPERTIES.contains(property)) {
+			throw InvalidQueryParameterException.unsortableProperty(property);
+		}
+		Sort.Direction direction = Sort.Direction.ASC;
+		if (sortParts.length > 1) {
+			direction = Sort.Direction.fromOptionalString(sortParts[1].trim())
+					.orElseThrow(() -> new InvalidQueryParameterException("The sort direction must be asc or desc."));
+		}
+		// Ties are broken on the id so that rows never shift between pages.
+		Sort order = Sort.by(direction, property);
+		if (!property.equals("id")) {
+			order = order.and(Sort.by("id"));
+		}
+		return PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE), order);
+	}
 
 }
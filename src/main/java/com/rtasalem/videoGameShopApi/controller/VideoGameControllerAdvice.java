@@ -1,37 +1,195 @@
 package com.rtasalem.videoGameShopApi.controller;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import com.rtasalem.videoGameShopApi.exception.BatchSizeExceededException;
+import com.rtasalem.videoGameShopApi.exception.IdempotencyKeyInProgressException;
+import com.rtasalem.videoGameShopApi.exception.IdempotencyKeyMismatchException;
+import com.rtasalem.videoGameShopApi.exception.InvalidIdempotencyKeyException;
+import com.rtasalem.videoGameShopApi.exception.InvalidQueryParameterException;
+import com.rtasalem.videoGameShopApi.exception.OutOfStockException;
+import com.rtasalem.videoGameShopApi.exception.PreconditionFailedException;
+import com.rtasalem.videoGameShopApi.exception.RequestBodyTooLargeException;
 import com.rtasalem.videoGameShopApi.exception.ResourceNotFoundException;
+import com.rtasalem.videoGameShopApi.exception.ServiceOverloadedException;
+import com.rtasalem.videoGameShopApi.exception.TooManyRequestsException;
 import com.rtasalem.videoGameShopApi.exception.VideoGameTitleExistsException;
 
+import io.micrometer.core.instrument.MeterRegistry;
 
+/**
+ * Answers every error as an RFC 7807 problem detail (application/problem+json), with the message of the exception as
+ * the detail. An invalid request body also lists each invalid field and its validation message under errors.
+ */
 @RestControllerAdvice
 public class VideoGameControllerAdvice {
 	
+	public static final String INVALID_BODY_DETAIL = "The request body is invalid.";
+	
+	public static final String MODIFIED_CONCURRENTLY_DETAIL = "The video game was modified by another request.";
+	
+	// Validation messages come from the constraint annotations, so there are only a handful of field and message pairs.
+	// Each is built once and then shared by every response that reports it, up to a bound in case that ever changes.
+	private static final int MAX_CACHED_FIELD_ERRORS = 1024;
+	
+	private final Map<String, Map<String, FieldErrorDetail>> fieldErrors = new ConcurrentHashMap<>();
+	
+	// Handled exceptions never reach the http.server.requests exception tag, so they are counted here by type.
+	private final MeterRegistry meterRegistry;
+
+	public VideoGameControllerAdvice(MeterRegistry meterRegistry) {
+		super();
+		this.meterRegistry = meterRegistry;
+	}
+	
 	@ExceptionHandler(value = ResourceNotFoundException.class)
-	public ResponseEntity<String> handleResourceNotFoundException(ResourceNotFoundException ex) {
-		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+	public ResponseEntity<ProblemDetail> handleResourceNotFoundException(ResourceNotFoundException ex) {
+		return respond(HttpStatus.NOT_FOUND, ex, ex.getMessage());
 	}
 
 	@ExceptionHandler(value = VideoGameTitleExistsException.class)
-	public ResponseEntity<String> handleBookTitleExistsException(VideoGameTitleExistsException ex) {
-		return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+	public ResponseEntity<ProblemDetail> handleBookTitleExistsException(VideoGameTitleExistsException ex) {
+		return respond(HttpStatus.CONFLICT, ex, ex.getMessage());
+	}
+
+	@ExceptionHandler(value = OutOfStockException.class)
+	public ResponseEntity<ProblemDetail> handleOutOfStockException(OutOfStockException ex) {
+		return respond(HttpStatus.CONFLICT, ex, ex.getMessage());
+	}
+	
+	@ExceptionHandler(value = InvalidQueryParameterException.class)
+	public ResponseEntity<ProblemDetail> handleInvalidQueryParameterException(InvalidQueryParameterException ex) {
+		return respond(HttpStatus.BAD_REQUEST, ex, ex.getMessage());
+	}
+
+	@ExceptionHandler(value = InvalidIdempotencyKeyException.class)
+	public ResponseEntity<ProblemDetail> handleInvalidIdempotencyKeyException(InvalidIdempotencyKeyException ex) {
+		return respond(HttpStatus.BAD_REQUEST, ex, ex.getMessage());
+	}
+
+	@ExceptionHandler(value = IdempotencyKeyInProgressException.class)
+	public ResponseEntity<ProblemDetail> handleIdempotencyKeyInProgressException(IdempotencyKeyInProgressException ex) {
+		return respond(HttpStatus.CONFLICT, ex, ex.getMessage());
+	}
+
+	@ExceptionHandler(value = IdempotencyKeyMismatchException.class)
+	public ResponseEntity<ProblemDetail> handleIdempotencyKeyMismatchException(IdempotencyKeyMismatchException ex) {
+		return respond(HttpStatus.UNPROCESSABLE_ENTITY, ex, ex.getMessage());
+	}
+
+	@ExceptionHandler(value = BatchSizeExceededException.class)
+	public ResponseEntity<ProblemDetail> handleBatchSizeExceededException(BatchSizeExceededException ex) {
+		return respond(HttpStatus.BAD_REQUEST, ex, ex.getMessage());
+	}
+
+	@ExceptionHandler(value = RequestBodyTooLargeException.class)
+	public ResponseEntity<ProblemDetail> handleRequestBodyTooLargeException(RequestBodyTooLargeException ex) {
+		return respond(HttpStatus.PAYLOAD_TOO_LARGE, ex, ex.getMessage());
+	}
+
+	@ExceptionHandler(value = PreconditionFailedException.class)
+	public ResponseEntity<ProblemDetail> handlePreconditionFailedException(PreconditionFailedException ex) {
+		return respond(HttpStatus.PRECONDITION_FAILED, ex, ex.getMessage());
+	}
+
+	// Raised when a concurrent update wins the race between reading the version and writing the new one.
+	@ExceptionHandler(value = ObjectOptimisticLockingFailureException.class)
+	public ResponseEntity<ProblemDetail> handleObjectOptimisticLockingFailureException(ObjectOptimisticLockingFailureException ex) {
+		return respond(HttpStatus.PRECONDITION_FAILED, ex, MODIFIED_CONCURRENTLY_DETAIL);
 	}
 
 	@ExceptionHandler(value = MethodArgumentNotValidException.class)
-	public ResponseEntity<String> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
-		List<ObjectError> errors = ex.getAllErrors();
-		StringBuilder sb = new StringBuilder();
-		errors.forEach(error -> sb.append(error.getDefaultMessage() + ", "));
-		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(sb.toString());
+	public ResponseEntity<ProblemDetail> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
+		return respondInvalid(ex, ex.getBindingResult());
+	}
+
+	// The reactive profile reports an invalid @Valid body with this exception instead, in the same format.
+	@ExceptionHandler(value = WebExchangeBindException.class)
+	public ResponseEntity<ProblemDetail> handleWebExchangeBindException(WebExchangeBindException ex) {
+		return respondInvalid(ex, ex.getBindingResult());
+	}
+
+	// A path variable or query parameter that cannot be converted, such as ids=abc, would otherwise be answered by
+	// Spring's default error page rather than a problem detail.
+	@ExceptionHandler(value = MethodArgumentTypeMismatchException.class)
+	public ResponseEntity<ProblemDetail> handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException ex) {
+		return respond(HttpStatus.BAD_REQUEST, ex, "The value '" + ex.getValue() + "' is not valid for the " + ex.getName() + " parameter.");
+	}
+
+	@ExceptionHandler(value = TooManyRequestsException.class)
+	public ResponseEntity<ProblemDetail> handleTooManyRequestsException(TooManyRequestsException ex) {
+		return respond(HttpStatus.TOO_MANY_REQUESTS, ex, ex.getMessage(), ex.getRetryAfterSeconds());
+	}
+
+	@ExceptionHandler(value = ServiceOverloadedException.class)
+	public ResponseEntity<ProblemDetail> handleServiceOverloadedException(ServiceOverloadedException ex) {
+		return respond(HttpStatus.SERVICE_UNAVAILABLE, ex, ex.getMessage(), ex.getRetryAfterSeconds());
+	}
+
+	private ResponseEntity<ProblemDetail> respondInvalid(Exception ex, BindingResult bindingResult) {
+		List<ObjectError> errors = bindingResult.getAllErrors();
+		List<FieldErrorDetail> details = new ArrayList<>(errors.size());
+		for (ObjectError error : errors) {
+			String field = error instanceof FieldError fieldError ? fieldError.getField() : error.getObjectName();
+			details.add(fieldErrorDetail(field, error.getDefaultMessage()));
+		}
+		ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, INVALID_BODY_DETAIL);
+		problemDetail.setProperty("errors", details);
+		countError(HttpStatus.BAD_REQUEST, ex);
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(problemDetail);
+	}
+
+	private FieldErrorDetail fieldErrorDetail(String field, String message) {
+		Map<String, FieldErrorDetail> byMessage = fieldErrors.get(field);
+		FieldErrorDetail detail = byMessage == null ? null : byMessage.get(message);
+		if (detail != null) {
+			return detail;
+		}
+		detail = new FieldErrorDetail(field, message);
+		if (fieldErrors.size() < MAX_CACHED_FIELD_ERRORS && message != null) {
+			Map<String, FieldErrorDetail> messages = fieldErrors.computeIfAbsent(field, key -> new ConcurrentHashMap<>());
+			if (messages.size() < MAX_CACHED_FIELD_ERRORS) {
+				messages.putIfAbsent(message, detail);
+			}
+		}
+		return detail;
+	}
+
+	private ResponseEntity<ProblemDetail> respond(HttpStatus status, Exception ex, String detail) {
+		countError(status, ex);
+		return ResponseEntity.status(status).body(ProblemDetail.forStatusAndDetail(status, detail));
+	}
+
+	private ResponseEntity<ProblemDetail> respond(HttpStatus status, Exception ex, String detail, long retryAfterSeconds) {
+		countError(status, ex);
+		return ResponseEntity.status(status).header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+				.body(ProblemDetail.forStatusAndDetail(status, detail));
+	}
+
+	private void countError(HttpStatus status, Exception ex) {
+		meterRegistry.counter("videogames.errors", "exception", ex.getClass().getSimpleName(),
+				"status", String.valueOf(status.value())).increment();
+	}
+
+	// One invalid field of a request body, as listed under errors.
+	public record FieldErrorDetail(String field, String message) {
 	}
 
 }
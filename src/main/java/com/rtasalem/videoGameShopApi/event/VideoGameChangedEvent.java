@@ -0,0 +1,28 @@
+package com.rtasalem.videoGameShopApi.event;
+
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+
+/**
+ * Published by VideoGameService for every video game it creates, updates or deletes. Listeners that keep their own
+ * copy of the catalogue should use @TransactionalEventListener(fallbackExecution = true) so that they only see
+ * changes that were committed. The video game is null for a deletion.
+ */
+public record VideoGameChangedEvent(Type type, int id, VideoGame videoGame) {
+
+	public enum Type {
+		CREATED, UPDATED, DELETED
+	}
+
+	public static VideoGameChangedEvent created(VideoGame videoGame) {
+		return new VideoGameChangedEvent(Type.CREATED, videoGame.getId(), videoGame);
+	}
+
+	public static VideoGameChangedEvent updated(VideoGame videoGame) {
+		return new VideoGameChangedEvent(Type.UPDATED, videoGame.getId(), videoGame);
+	}
+
+	public static VideoGameChangedEvent deleted(int id) {
+		return new VideoGameChangedEvent(Type.DELETED, id, null);
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.rtasalem.videoGameShopApi.exception;
+
+public class BatchSizeExceededException extends StacklessException {
+
+	private static final long serialVersionUID = -2466051938813409375L;
+
+	private static final String TOO_MANY_ITEMS = "A batch must not contain more than %d items.";
+
+	public BatchSizeExceededException(String message) {
+		super(message);
+	}
+
+	private BatchSizeExceededException(String format, Object... arguments) {
+		super(format, arguments);
+	}
+
+	public static BatchSizeExceededException forLimit(int maxSize) {
+		return new BatchSizeExceededException(TOO_MANY_ITEMS, maxSize);
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.rtasalem.videoGameShopApi.exception;
+
+public class IdempotencyKeyInProgressException extends StacklessException {
+
+	private static final long serialVersionUID = 4182569387207318712L;
+
+	private static final String IN_PROGRESS = "A request with the Idempotency-Key %s is still being processed. Try again shortly.";
+
+	public IdempotencyKeyInProgressException(String message) {
+		super(message);
+	}
+
+	private IdempotencyKeyInProgressException(String format, Object... arguments) {
+		super(format, arguments);
+	}
+
+	public static IdempotencyKeyInProgressException forKey(String key) {
+		return new IdempotencyKeyInProgressException(IN_PROGRESS, key);
+	}
+
+}
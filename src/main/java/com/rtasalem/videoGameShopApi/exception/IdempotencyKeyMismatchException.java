@@ -0,0 +1,21 @@
+package com.rtasalem.videoGameShopApi.exception;
+
+public class IdempotencyKeyMismatchException extends StacklessException {
+
+	private static final long serialVersionUID = -2718306541936728405L;
+
+	private static final String USED_FOR_ANOTHER_REQUEST = "The Idempotency-Key %s has already been used for a different request. Use a new key for each request.";
+
+	public IdempotencyKeyMismatchException(String message) {
+		super(message);
+	}
+
+	private IdempotencyKeyMismatchException(String format, Object... arguments) {
+		super(format, arguments);
+	}
+
+	public static IdempotencyKeyMismatchException forKey(String key) {
+		return new IdempotencyKeyMismatchException(USED_FOR_ANOTHER_REQUEST, key);
+	}
+
+}
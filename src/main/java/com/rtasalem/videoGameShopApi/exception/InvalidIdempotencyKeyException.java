@@ -0,0 +1,21 @@
+package com.rtasalem.videoGameShopApi.exception;
+
+public class InvalidIdempotencyKeyException extends StacklessException {
+
+	private static final long serialVersionUID = -6315127003908854420L;
+
+	private static final String WRONG_LENGTH = "The Idempotency-Key must be between 1 and %d characters long.";
+
+	public InvalidIdempotencyKeyException(String message) {
+		super(message);
+	}
+
+	private InvalidIdempotencyKeyException(String format, Object... arguments) {
+		super(format, arguments);
+	}
+
+	public static InvalidIdempotencyKeyException forMaxLength(int maxLength) {
+		return new InvalidIdempotencyKeyException(WRONG_LENGTH, maxLength);
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.rtasalem.videoGameShopApi.exception;
+
+public class InvalidQueryParameterException extends StacklessException {
+
+	private static final long serialVersionUID = 3182406794377262513L;
+
+	private static final String INVALID_CURSOR = "The cursor %s is not valid.";
+
+	private static final String UNSORTABLE_PROPERTY = "Video games cannot be sorted by %s.";
+
+	public InvalidQueryParameterException(String message) {
+		super(message);
+	}
+
+	private InvalidQueryParameterException(String format, Object... arguments) {
+		super(format, arguments);
+	}
+
+	public static InvalidQueryParameterException invalidCursor(String cursor) {
+		return new InvalidQueryParameterException(INVALID_CURSOR, cursor);
+	}
+
+	public static InvalidQueryParameterException unsortableProperty(String property) {
+		return new InvalidQueryParameterException(UNSORTABLE_PROPERTY, property);
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.rtasalem.videoGameShopApi.exception;
+
+public class OutOfStockException extends StacklessException {
+
+	private static final long serialVersionUID = 3178402215619523304L;
+
+	private static final String NOT_ENOUGH_STOCK = "The video game with an ID of %d does not have %d %s left in stock.";
+
+	public OutOfStockException(String message) {
+		super(message);
+	}
+
+	private OutOfStockException(String format, Object... arguments) {
+		super(format, arguments);
+	}
+
+	public static OutOfStockException forQuantity(int id, int quantity) {
+		return new OutOfStockException(NOT_ENOUGH_STOCK, id, quantity, quantity == 1 ? "copy" : "copies");
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.rtasalem.videoGameShopApi.exception;
+
+public class PreconditionFailedException extends StacklessException {
+
+	private static final long serialVersionUID = 7526431781245078824L;
+
+	private static final String MODIFIED_SINCE = "The video game with an ID of %d has been modified since version %d.";
+
+	private static final String IF_MATCH_MISMATCH = "The If-Match header %s does not match the current ETag.";
+
+	public PreconditionFailedException(String message) {
+		super(message);
+	}
+
+	private PreconditionFailedException(String format, Object... arguments) {
+		super(format, arguments);
+	}
+
+	public static PreconditionFailedException modifiedSince(int id, long expectedVersion) {
+		return new PreconditionFailedException(MODIFIED_SINCE, id, expectedVersion);
+	}
+
+	public static PreconditionFailedException ifMatchMismatch(String ifMatch) {
+		return new PreconditionFailedException(IF_MATCH_MISMATCH, ifMatch);
+	}
+
+}
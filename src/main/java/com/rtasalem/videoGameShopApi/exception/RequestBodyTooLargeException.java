@@ -0,0 +1,21 @@
+package com.rtasalem.videoGameShopApi.exception;
+
+public class RequestBodyTooLargeException extends StacklessException {
+
+	private static final long serialVersionUID = 5148320976512204837L;
+
+	private static final String TOO_LARGE = "A request body must not be larger than %d bytes.";
+
+	public RequestBodyTooLargeException(String message) {
+		super(message);
+	}
+
+	private RequestBodyTooLargeException(String format, Object... arguments) {
+		super(format, arguments);
+	}
+
+	public static RequestBodyTooLargeException forLimit(long maxBytes) {
+		return new RequestBodyTooLargeException(TOO_LARGE, maxBytes);
+	}
+
+}
@@ -1,11 +1,21 @@
 package com.rtasalem.videoGameShopApi.exception;
 
-public class ResourceNotFoundException extends RuntimeException {
+public class ResourceNotFoundException extends StacklessException {
 
 	private static final long serialVersionUID = -8857922258747259845L;
 
+	private static final String NO_SUCH_ID = "A video game with an ID of %d does not exist.";
+
 	public ResourceNotFoundException(String message) {
 		super(message);
 	}
 
+	private ResourceNotFoundException(String format, Object... arguments) {
+		super(format, arguments);
+	}
+
+	public static ResourceNotFoundException forId(int id) {
+		return new ResourceNotFoundException(NO_SUCH_ID, id);
+	}
+
 }
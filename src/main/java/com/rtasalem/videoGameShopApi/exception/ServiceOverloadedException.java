@@ -0,0 +1,19 @@
+package com.rtasalem.videoGameShopApi.exception;
+
+public class ServiceOverloadedException extends StacklessException {
+
+	private static final long serialVersionUID = 3150823719650237794L;
+
+	// Sent back as the Retry-After header.
+	private final long retryAfterSeconds;
+
+	public ServiceOverloadedException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.rtasalem.videoGameShopApi.exception;
+
+import java.util.Locale;
+
+/**
+ * Base class for the exceptions that the API throws to answer a request with an error status. They are expected,
+ * handled by VideoGameControllerAdvice and never logged, so they skip capturing a stack trace, which is most of the
+ * cost of throwing an exception from deep inside a request.
+ *
+ * For the same reason a message that depends on the request is kept as a format and its arguments, and only put
+ * together when getMessage() is called, which the advice does once it is writing the problem detail. Subclasses
+ * expose the formats they use through static factories such as ResourceNotFoundException.forId().
+ */
+public abstract class StacklessException extends RuntimeException {
+
+	private static final long serialVersionUID = -6046432446470593916L;
+
+	private final String format;
+
+	private final Object[] arguments;
+
+	protected StacklessException(String message) {
+		this(message, new Object[0]);
+	}
+
+	protected StacklessException(String format, Object... arguments) {
+		super(null, null, false, false);
+		this.format = format;
+		this.arguments = arguments;
+	}
+
+	@Override
+	public String getMessage() {
+		return arguments.length == 0 ? format : String.format(Locale.ROOT, format, arguments);
+	}
+
+}
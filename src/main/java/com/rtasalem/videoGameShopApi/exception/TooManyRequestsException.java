@@ -0,0 +1,30 @@
+package com.rtasalem.videoGameShopApi.exception;
+
+public class TooManyRequestsException extends StacklessException {
+
+	private static final long serialVersionUID = -2284207160873325447L;
+
+	private static final String TRY_AGAIN_IN = "Too many requests. Try again in %d seconds.";
+
+	// Sent back as the Retry-After header.
+	private final long retryAfterSeconds;
+
+	public TooManyRequestsException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	private TooManyRequestsException(long retryAfterSeconds, String format, Object... arguments) {
+		super(format, arguments);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public static TooManyRequestsException retryAfter(long retryAfterSeconds) {
+		return new TooManyRequestsException(retryAfterSeconds, TRY_AGAIN_IN, retryAfterSeconds);
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+
+}
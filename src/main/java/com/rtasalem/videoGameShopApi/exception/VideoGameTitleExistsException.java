@@ -1,11 +1,33 @@
 package com.rtasalem.videoGameShopApi.exception;
 
-public class VideoGameTitleExistsException extends RuntimeException {
+public class VideoGameTitleExistsException extends StacklessException {
 
 	private static final long serialVersionUID = 595528910535481833L;
 
+	private static final String TITLE_EXISTS = "A video game with the title of %s already exists.";
+
+	private static final String TITLE_EXISTS_IN_BATCH = "A video game in the batch has a title that already exists.";
+
 	public VideoGameTitleExistsException(String message) {
 		super(message);
 	}
-	
+
+	private VideoGameTitleExistsException(String format, Object... arguments) {
+		super(format, arguments);
+	}
+
+	public static VideoGameTitleExistsException forTitle(String title) {
+		return new VideoGameTitleExistsException(TITLE_EXISTS, title);
+	}
+
+	// Used when the database only reports that some title in a batch was taken, not which.
+	public static VideoGameTitleExistsException inBatch() {
+		return new VideoGameTitleExistsException(TITLE_EXISTS_IN_BATCH);
+	}
+
+	// The message on its own, for a batch item result that is reported rather than thrown.
+	public static String messageFor(String title) {
+		return forTitle(title).getMessage();
+	}
+
 }
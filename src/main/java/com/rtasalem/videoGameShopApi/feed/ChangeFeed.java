@@ -0,0 +1,324 @@
+package com.rtasalem.videoGameShopApi.feed;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.model.CatalogueChange;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Numbers every committed VideoGameChangedEvent and keeps the latest of them in a ring buffer, so that subscribers
+ * such as downstream caches can follow the catalogue instead of polling it. A subscriber that reconnects passes the
+ * last sequence number it saw and is sent everything after it, as long as that is still in the buffer. Otherwise it
+ * is told to reset, meaning to reload the catalogue (for example with the export), and carries on from the newest
+ * change.
+ * 
+ * Sequence numbers start from the current time in microseconds rather than from one, so they keep increasing across
+ * restarts. A subscriber that resumes after a restart therefore falls outside the new buffer and resets, instead of
+ * being matched against unrelated changes that happen to have the same numbers.
+ * 
+ * Changes are sent to each subscriber on a pool of the feed's own, never on the thread making the change, so a slow
+ * subscriber only holds up itself. The pool has a fixed number of threads and a bounded queue, so subscribers cannot
+ * take threads or memory from requests. A subscriber whose delivery does not fit in the queue is dropped, and resumes
+ * from its last sequence when it reconnects. An idle stream is sent a heartbeat now and then, which is how
+ * subscribers that have gone away are noticed and dropped.
+ */
+@Component
+public class ChangeFeed implements SmartLifecycle {
+
+	private final static Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+
+	// The most changes that one send can pick up from the buffer.
+	private static final int MAX_CHANGES_PER_READ = 256;
+
+	/**
+	 * Where a subscription sends its changes. An exception from any method ends the subscription.
+	 */
+	public interface Subscriber {
+
+		void send(CatalogueChange change) throws IOException;
+
+		// The changes after the last one sent have been overwritten, so the subscriber continues after this sequence.
+		void reset(long sequence) throws IOException;
+
+		void heartbeat() throws IOException;
+
+		// Called when the feed shuts down.
+		void close();
+
+	}
+
+	private final CatalogueChange[] buffer;
+
+	private final Duration heartbeatInterval;
+
+	private final int deliveryThreads;
+
+	private final int deliveryQueueCapacity;
+
+	// Sends changes and heartbeats. Either passed in, or the delivery pool while the feed is running.
+	private volatile Executor executor;
+
+	private ThreadPoolExecutor deliveryPool;
+
+	private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+	private final long firstSequence = System.currentTimeMillis() * 1000;
+
+	// The sequence of the newest change, guarded by this.
+	private long head = firstSequence - 1;
+
+	private ScheduledExecutorService heartbeats;
+
+	@Autowired
+	public ChangeFeed(@Value("${videogames.change-feed.capacity:10000}") int capacity,
+			@Value("${videogames.change-feed.heartbeat-interval:15s}") Duration heartbeatInterval,
+			@Value("${videogames.change-feed.delivery-threads:4}") int deliveryThreads,
+			@Value("${videogames.change-feed.delivery-queue-capacity:1000}") int deliveryQueueCapacity,
+			MeterRegistry meterRegistry) {
+		this(capacity, heartbeatInterval, deliveryThreads, deliveryQueueCapacity, (Executor) null);
+		Gauge.builder("videogames.change-feed.subscribers", subscriptions, Set::size).register(meterRegistry);
+	}
+
+	// Sends every change and heartbeat on the given executor instead of a pool of the feed's own.
+	public ChangeFeed(int capacity, Duration heartbeatInterval, Executor executor) {
+		this(capacity, heartbeatInterval, 0, 0, executor);
+	}
+
+	private ChangeFeed(int capacity, Duration heartbeatInterval, int deliveryThreads, int deliveryQueueCapacity,
+			Executor executor) {
+		this.buffer = new CatalogueChange[capacity];
+		this.heartbeatInterval = heartbeatInterval;
+		this.deliveryThreads = deliveryThreads;
+		this.deliveryQueueCapacity = deliveryQueueCapacity;
+		this.executor = executor;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onVideoGameChanged(VideoGameChangedEvent event) {
+		append(event.type(), event.id(), event.videoGame());
+	}
+
+	public CatalogueChange append(VideoGameChangedEvent.Type type, int id, VideoGame videoGame) {
+		CatalogueChange change;
+		synchronized (this) {
+			change = new CatalogueChange(head + 1, type, id, videoGame);
+			buffer[index(change.sequence())] = change;
+			head = change.sequence();
+		}
+		subscriptions.forEach(Subscription::schedule);
+		return change;
+	}
+
+	public synchronized long head() {
+		return head;
+	}
+
+	/**
+	 * Returns up to limit changes after the given sequence, oldest first, or null if some of them are no longer in
+	 * the buffer.
+	 */
+	public synchronized List<CatalogueChange> changesAfter(long sequence, int limit) {
+		long oldest = Math.max(firstSequence, head - buffer.length + 1);
+		if (sequence < oldest - 1 || sequence > head) {
+			return null;
+		}
+		List<CatalogueChange> changes = new ArrayList<>((int) Math.min(limit, head - sequence));
+		for (long next = sequence + 1; next <= head && changes.size() < limit; next++) {
+			changes.add(buffer[index(next)]);
+		}
+		return changes;
+	}
+
+	// Starts sending the changes after lastSequence, or only new changes if it is null.
+	public Subscription subscribe(Long lastSequence, Subscriber subscriber) {
+		Subscription subscription = new Subscription(subscriber, lastSequence == null ? head() : lastSequence);
+		subscriptions.add(subscription);
+		subscription.schedule();
+		return subscription;
+	}
+
+	public int subscriberCount() {
+		return subscriptions.size();
+	}
+
+	private int index(long sequence) {
+		return (int) Math.floorMod(sequence, (long) buffer.length);
+	}
+
+	// Returns false if the task was turned away, because the queue is full or the feed is not running.
+	private boolean tryExecute(Runnable task) {
+		Executor current = executor;
+		if (current == null) {
+			return false;
+		}
+		try {
+			current.execute(task);
+			return true;
+		} catch (RejectedExecutionException ex) {
+			return false;
+		}
+	}
+
+	@Override
+	public synchronized void start() {
+		if (executor == null) {
+			AtomicInteger threadNumber = new AtomicInteger();
+			deliveryPool = new ThreadPoolExecutor(deliveryThreads, deliveryThreads, 0, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(deliveryQueueCapacity), runnable -> {
+						Thread thread = new Thread(runnable, "change-feed-" + threadNumber.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+			executor = deliveryPool;
+		}
+		heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "change-feed-heartbeats");
+			thread.setDaemon(true);
+			return thread;
+		});
+		heartbeats.scheduleWithFixedDelay(() -> subscriptions.forEach(Subscription::scheduleHeartbeat),
+				heartbeatInterval.toNanos(), heartbeatInterval.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	// Ends every stream, so that they do not hold up a graceful shutdown.
+	@Override
+	public synchronized void stop() {
+		if (heartbeats == null) {
+			return;
+		}
+		heartbeats.shutdownNow();
+		heartbeats = null;
+		subscriptions.forEach(subscription -> {
+			subscription.cancel();
+			subscription.subscriber.close();
+		});
+		if (deliveryPool != null) {
+			executor = null;
+			deliveryPool.shutdownNow();
+			deliveryPool = null;
+		}
+	}
+
+	@Override
+	public synchronized boolean isRunning() {
+		return heartbeats != null;
+	}
+
+	public final class Subscription {
+
+		private final Subscriber subscriber;
+
+		// Only one delivery runs at a time, so changes are sent in order and never twice.
+		private final ReentrantLock deliveryLock = new ReentrantLock();
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private volatile boolean cancelled;
+
+		private long lastSent;
+
+		private Subscription(Subscriber subscriber, long lastSent) {
+			this.subscriber = subscriber;
+			this.lastSent = lastSent;
+		}
+
+		public void cancel() {
+			cancelled = true;
+			subscriptions.remove(this);
+		}
+
+		private void schedule() {
+			if (!cancelled && scheduled.compareAndSet(false, true) && !tryExecute(this::deliver)) {
+				log.debug("Dropping a change feed subscriber that could not be scheduled");
+				cancel();
+				subscriber.close();
+			}
+		}
+
+		// A missed heartbeat does no harm, as the next one follows an interval later.
+		private void scheduleHeartbeat() {
+			tryExecute(this::heartbeat);
+		}
+
+		// A stream that is busy sending changes is not idle, and waiting for it would only hold up a pool thread.
+		private void heartbeat() {
+			if (deliveryLock.tryLock()) {
+				try {
+					run(subscriber::heartbeat);
+				} finally {
+					deliveryLock.unlock();
+				}
+			}
+		}
+
+		private void deliver() {
+			scheduled.set(false);
+			run(() -> {
+				while (!cancelled) {
+					List<CatalogueChange> changes = changesAfter(lastSent, MAX_CHANGES_PER_READ);
+					if (changes == null) {
+						lastSent = head();
+						subscriber.reset(lastSent);
+					} else if (changes.isEmpty()) {
+						return;
+					} else {
+						for (CatalogueChange change : changes) {
+							subscriber.send(change);
+							lastSent = change.sequence();
+						}
+					}
+				}
+			});
+		}
+
+		private void run(SubscriberAction action) {
+			deliveryLock.lock();
+			try {
+				if (!cancelled) {
+					action.run();
+				}
+			} catch (IOException | RuntimeException ex) {
+				log.debug("Dropping a change feed subscriber", ex);
+				cancel();
+			} finally {
+				deliveryLock.unlock();
+			}
+		}
+
+	}
+
+	@FunctionalInterface
+	private interface SubscriberAction {
+
+		void run() throws IOException;
+
+	}
+
+}
@@ -0,0 +1,147 @@
+package com.rtasalem.videoGameShopApi.idempotency;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.rtasalem.videoGameShopApi.exception.IdempotencyKeyInProgressException;
+import com.rtasalem.videoGameShopApi.exception.IdempotencyKeyMismatchException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Remembers the response to each request made with an Idempotency-Key, in a bounded, in-process cache whose entries
+ * expire after a time to live. A key is reserved while its first request is being handled, so that a retry sent in
+ * the meantime is turned away instead of creating the video game a second time.
+ * 
+ * With videogames.idempotency.persistent=true, responses are also written to the idempotency_key table, so that
+ * retries are still recognised after a restart or once the cache has evicted them.
+ */
+@Component
+@Profile("!reactive")
+public class IdempotencyStore {
+
+	public static final String CACHE_NAME = "idempotencyKeys";
+
+	// Stands in for a key whose first request has not finished yet.
+	private static final StoredResponse IN_PROGRESS = new StoredResponse(null, 0, null, null, new byte[0]);
+
+	private final Cache<String, StoredResponse> cache;
+
+	private final Duration timeToLive;
+
+	// Null unless responses are persisted.
+	private final JdbcTemplate jdbcTemplate;
+
+	// Expired rows are deleted at most once per time to live, by whichever request happens to come along.
+	private final AtomicLong nextPurgeMillis = new AtomicLong();
+
+	@Autowired
+	public IdempotencyStore(@Value("${videogames.idempotency.maximum-size:10000}") long maximumSize,
+			@Value("${videogames.idempotency.time-to-live:24h}") Duration timeToLive,
+			@Value("${videogames.idempotency.persistent:false}") boolean persistent,
+			ObjectProvider<JdbcTemplate> jdbcTemplate, MeterRegistry meterRegistry) {
+		this(maximumSize, timeToLive, Ticker.systemTicker(), persistent ? jdbcTemplate.getObject() : null);
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	public IdempotencyStore(long maximumSize, Duration timeToLive, Ticker ticker, JdbcTemplate jdbcTemplate) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(timeToLive)
+				.ticker(ticker)
+				.recordStats()
+				.build();
+		this.timeToLive = timeToLive;
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Returns the response already sent for the key, or null if this is the first request with it, in which case
+	 * the key is now reserved until it is completed or released. A response is only returned to the request it
+	 * answered, identified by its hash. Any other request that reuses the key is refused.
+	 */
+	public StoredResponse begin(String key, String requestHash) {
+		StoredResponse existing = cache.asMap().putIfAbsent(key, IN_PROGRESS);
+		if (existing == IN_PROGRESS) {
+			throw IdempotencyKeyInProgressException.forKey(key);
+		}
+		if (existing == null && jdbcTemplate != null) {
+			try {
+				existing = findPersisted(key);
+			} catch (RuntimeException ex) {
+				// Otherwise the key would stay reserved, and every retry turned away, until the entry expired.
+				release(key);
+				throw ex;
+			}
+			if (existing != null) {
+				cache.put(key, existing);
+			}
+		}
+		if (existing != null && !Objects.equals(existing.requestHash(), requestHash)) {
+			throw IdempotencyKeyMismatchException.forKey(key);
+		}
+		return existing;
+	}
+
+	public void complete(String key, StoredResponse response) {
+		cache.put(key, response);
+		if (jdbcTemplate != null) {
+			persist(key, response);
+		}
+	}
+
+	// Frees the key after its request failed, so that a retry is handled afresh.
+	public void release(String key) {
+		cache.asMap().remove(key, IN_PROGRESS);
+	}
+
+	public long size() {
+		return cache.estimatedSize();
+	}
+
+	private StoredResponse findPersisted(String key) {
+		List<StoredResponse> responses = jdbcTemplate.query(
+				"select request_hash, status, location, content_type, body from idempotency_key where idempotency_key = ? and created_at > ?",
+				(resultSet, rowNumber) -> new StoredResponse(resultSet.getString(1), resultSet.getInt(2),
+						resultSet.getString(3), resultSet.getString(4), resultSet.getBytes(5)),
+				key, Timestamp.from(Instant.now().minus(timeToLive)));
+		return responses.isEmpty() ? null : responses.get(0);
+	}
+
+	private void persist(String key, StoredResponse response) {
+		long now = System.currentTimeMillis();
+		long nextPurge = nextPurgeMillis.get();
+		if (now >= nextPurge && nextPurgeMillis.compareAndSet(nextPurge, now + timeToLive.toMillis())) {
+			jdbcTemplate.update("delete from idempotency_key where created_at <= ?",
+					Timestamp.from(Instant.ofEpochMilli(now).minus(timeToLive)));
+		}
+		try {
+			jdbcTemplate.update(
+					"insert into idempotency_key (idempotency_key, request_hash, status, location, content_type, body, created_at) values (?, ?, ?, ?, ?, ?, ?)",
+					key, response.requestHash(), response.status(), response.location(), response.contentType(), response.body(),
+					new Timestamp(now));
+		} catch (DuplicateKeyException ex) {
+			// An expired row that has not been purged yet. The new response replaces it.
+			jdbcTemplate.update(
+					"update idempotency_key set request_hash = ?, status = ?, location = ?, content_type = ?, body = ?, created_at = ? where idempotency_key = ?",
+					response.requestHash(), response.status(), response.location(), response.contentType(), response.body(), new Timestamp(now), key);
+		}
+	}
+
+}
@@ -0,0 +1,9 @@
+package com.rtasalem.videoGameShopApi.idempotency;
+
+/**
+ * A response as it was sent the first time a request was made with an Idempotency-Key, so that a retry can be sent
+ * exactly the same bytes. The request hash identifies the request it answers, so that a different request that
+ * reuses the key is not sent it. The location and content type are null when the response had none.
+ */
+public record StoredResponse(String requestHash, int status, String location, String contentType, byte[] body) {
+}
@@ -0,0 +1,155 @@
+package com.rtasalem.videoGameShopApi.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The copies of one video game that an instance holds to sell, split across shards so that buyers on different threads
+ * decrement different memory locations. A purchase takes from the shard of its own thread with a single
+ * compare-and-set and never blocks while that shard has enough.
+ *
+ * When it does not, the purchase takes the lock, drains every shard, takes its copies from the total and spreads
+ * what is left evenly again. Only stock that is in a shard can be taken, a shard is never taken below zero and
+ * stock is only ever added under the lock, so a purchase cannot oversell. It is only refused under the lock, after
+ * the drain has seen every copy that is left, so it is never refused while enough copies remain.
+ *
+ * Every copy taken is also added to the sold total, which StockReservations writes to the database in batches.
+ */
+public final class StockCounter {
+
+	// Shards are 16 longs (128 bytes) apart, so that no two share a cache line, or the pair of lines that some CPUs
+	// prefetch together.
+	private static final int SHARD_STRIDE = 16;
+
+	private final int shards;
+
+	private final AtomicLongArray cells;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// Only true once a drain found nothing left. Stock is only added under the lock, which clears it, so while it is
+	// set every purchase can be refused without taking the lock.
+	private volatile boolean soldOut;
+
+	// The copies taken since the sold total was last written.
+	private final LongAdder sold = new LongAdder();
+
+	public StockCounter(long stock, int shards) {
+		if (stock < 0 || shards < 1) {
+			throw new IllegalArgumentException("Stock must not be negative and there must be at least one shard.");
+		}
+		this.shards = shards;
+		this.cells = new AtomicLongArray(shards * SHARD_STRIDE);
+		spread(stock);
+		this.soldOut = stock == 0;
+	}
+
+	// Takes the given number of copies, or none at all if fewer are left. Returns whether they were taken.
+	public boolean tryTake(int quantity) {
+		if (quantity < 1) {
+			throw new IllegalArgumentException("Quantity must be at least 1.");
+		}
+		if (soldOut) {
+			return false;
+		}
+		int cell = homeShard() * SHARD_STRIDE;
+		long available = cells.get(cell);
+		while (available >= quantity) {
+			long witness = cells.compareAndExchange(cell, available, available - quantity);
+			if (witness == available) {
+				sold.add(quantity);
+				return true;
+			}
+			available = witness;
+		}
+		return takeSlowly(quantity);
+	}
+
+	public void add(int quantity) {
+		if (quantity < 1) {
+			throw new IllegalArgumentException("Quantity must be at least 1.");
+		}
+		lock.lock();
+		try {
+			spread(quantity);
+			soldOut = false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// The copies left. Exact only while no purchase is being made.
+	public long available() {
+		long available = 0;
+		for (int i = 0; i < shards; i++) {
+			available += cells.get(i * SHARD_STRIDE);
+		}
+		return available;
+	}
+
+	// Takes every copy that is left, so that none can be sold until more are added, and returns how many there were.
+	public long drain() {
+		lock.lock();
+		try {
+			long available = 0;
+			for (int i = 0; i < shards; i++) {
+				available += cells.getAndSet(i * SHARD_STRIDE, 0);
+			}
+			soldOut = true;
+			return available;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// Returns the copies taken since the last call, and starts counting afresh. A copy taken during the call is either
+	// counted or left for the next one.
+	public long takeSold() {
+		return sold.sumThenReset();
+	}
+
+	// Puts back copies whose sale could not be written, so that the next write includes them.
+	public void restoreSold(long copies) {
+		sold.add(copies);
+	}
+
+	private boolean takeSlowly(int quantity) {
+		lock.lock();
+		try {
+			// Buyers that find their shard drained come here too and wait for the stock to be spread out again.
+			long available = 0;
+			for (int i = 0; i < shards; i++) {
+				available += cells.getAndSet(i * SHARD_STRIDE, 0);
+			}
+			boolean taken = available >= quantity;
+			if (taken) {
+				available -= quantity;
+				sold.add(quantity);
+			}
+			spread(available);
+			soldOut = available == 0;
+			return taken;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// Adds the stock to the shards as evenly as it divides.
+	private void spread(long stock) {
+		long share = stock / shards;
+		long remainder = stock % shards;
+		for (int i = 0; i < shards; i++) {
+			long amount = share + (i < remainder ? 1 : 0);
+			if (amount > 0) {
+				cells.addAndGet(i * SHARD_STRIDE, amount);
+			}
+		}
+	}
+
+	// Platform thread ids are handed out in sequence, so consecutive request threads land on different shards.
+	private int homeShard() {
+		return (int) (Thread.currentThread().getId() % shards);
+	}
+
+}
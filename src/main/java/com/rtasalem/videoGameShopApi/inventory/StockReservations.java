@@ -0,0 +1,347 @@
+package com.rtasalem.videoGameShopApi.inventory;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rtasalem.videoGameShopApi.cache.VideoGameCache;
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.exception.OutOfStockException;
+import com.rtasalem.videoGameShopApi.exception.ResourceNotFoundException;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sells video games from in-memory StockCounters and writes the sales to the database later, in batches. A purchase
+ * usually never waits for the database or a row lock, so launch-day buyers of the same game only contend on a
+ * compare-and-set, and each game's sales since the last flush cost a single UPDATE.
+ *
+ * The copies in a counter are leased from the database before any of them is sold. A lease moves up to lease-size
+ * copies of a game from its free stock to its leased column with an UPDATE that only matches while that many copies
+ * are free, so no two instances, or buyers, can lease the same copy. A flush takes the copies sold from both stock and
+ * leased, and hands back the unsold copies of games that have sold nothing since the previous flush, so that other
+ * instances can sell them. Stopping hands back every lease.
+ *
+ * If the process dies without stopping, the copies it leased stay leased: its unwritten sales cannot be sold again,
+ * and neither can its unsold copies until leased is corrected. A crash therefore undersells, but never oversells.
+ *
+ * Restocks are written to the stock column straight away. After every write the cached copies of the written games
+ * are invalidated, like after any other update, so the stock shown with a video game is the level last written. They
+ * are then reloaded to be published as VideoGameChangedEvent.
+ */
+@Component
+public class StockReservations implements SmartLifecycle {
+
+	private final static Logger log = LoggerFactory.getLogger(StockReservations.class);
+
+	private static final String SELECT_FREE_STOCK = "select stock - leased from VideoGame where id = ?";
+
+	// Matches no row once fewer copies are free, for instance because another instance has just leased them.
+	private static final String LEASE_STOCK = "update VideoGame set leased = leased + ? where id = ? and stock - leased >= ?";
+
+	private static final String RETURN_LEASE = "update VideoGame set leased = leased - ? where id = ?";
+
+	// version and lastModified are raised as JPA would, so that ETags and the catalogue version change with the stock.
+	private static final String WRITE_SALES = "update VideoGame set stock = stock - ?, leased = leased - ?, version = version + 1, lastModified = ? where id = ?";
+
+	private static final String RESTOCK = "update VideoGame set stock = stock + ?, version = version + 1, lastModified = ? where id = ?";
+
+	private final int shards;
+
+	private final int leaseSize;
+
+	private final Duration flushInterval;
+
+	private final Map<Integer, LeasedStock> leasedStocks = new ConcurrentHashMap<>();
+
+	// Serialises flushes.
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final VideoGameDAO videoGameRepo;
+
+	private final VideoGameCache videoGameCache;
+
+	private final ApplicationEventPublisher eventPublisher;
+
+	private final Counter soldCounter;
+
+	private final Counter refusedCounter;
+
+	private ScheduledExecutorService scheduler;
+
+	private ScheduledFuture<?> scheduledFlush;
+
+	// The copies of a game this instance has leased and not sold yet. Leases are taken and handed back under the lock.
+	private record LeasedStock(StockCounter counter, ReentrantLock lock) {
+	}
+
+	@Autowired
+	public StockReservations(@Value("${videogames.stock.shards:8}") int shards,
+			@Value("${videogames.stock.lease-size:50}") int leaseSize,
+			@Value("${videogames.stock.flush-interval:100ms}") Duration flushInterval, JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager, VideoGameDAO videoGameRepo, VideoGameCache videoGameCache,
+			ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+		super();
+		this.shards = shards;
+		this.leaseSize = leaseSize;
+		this.flushInterval = flushInterval;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.videoGameRepo = videoGameRepo;
+		this.videoGameCache = videoGameCache;
+		this.eventPublisher = eventPublisher;
+		this.soldCounter = meterRegistry.counter("videogames.stock.sold");
+		this.refusedCounter = meterRegistry.counter("videogames.stock.refused");
+	}
+
+	// Takes the copies from the stock of an existing video game, or none at all if fewer are left.
+	public void purchase(int id, int quantity) {
+		LeasedStock leasedStock = leasedStockFor(id);
+		while (!leasedStock.counter().tryTake(quantity)) {
+			if (!lease(id, leasedStock, quantity)) {
+				refusedCounter.increment();
+				throw OutOfStockException.forQuantity(id, quantity);
+			}
+		}
+		soldCounter.increment(quantity);
+	}
+
+	// Adds the copies to the stock in the database, from which they can be leased straight away.
+	public void restock(int id, int quantity) {
+		if (videoGameCache.isKnownMissing(id)) {
+			throw ResourceNotFoundException.forId(id);
+		}
+		long writeGeneration = videoGameCache.writeGeneration(id);
+		if (jdbcTemplate.update(RESTOCK, quantity, Timestamp.from(Instant.now()), id) == 0) {
+			videoGameCache.putMissingIfUnchanged(id, writeGeneration);
+			throw ResourceNotFoundException.forId(id);
+		}
+		videoGameCache.invalidate(id);
+		videoGameRepo.findById(id).ifPresent(videoGame -> eventPublisher.publishEvent(VideoGameChangedEvent.updated(videoGame)));
+	}
+
+	// The copies of the video game this instance has leased and not sold yet.
+	public long available(int id) {
+		LeasedStock leasedStock = leasedStocks.get(id);
+		return leasedStock == null ? 0 : leasedStock.counter().available();
+	}
+
+	// Forgets the leased stock of a video game that has been deleted.
+	public void discard(int id) {
+		leasedStocks.remove(id);
+	}
+
+	// Writes the sales of every video game, hands back the leases of those that sold nothing since the last flush and
+	// returns how many video games were updated.
+	public int flush() {
+		return flush(false);
+	}
+
+	private int flush(boolean returnEveryLease) {
+		flushLock.lock();
+		try {
+			Map<Integer, Long> sales = new HashMap<>();
+			Map<Integer, LeasedStock> idleStocks = new HashMap<>();
+			leasedStocks.forEach((id, leasedStock) -> {
+				long sold = leasedStock.counter().takeSold();
+				if (sold != 0) {
+					sales.put(id, sold);
+				}
+				if (sold == 0 || returnEveryLease) {
+					idleStocks.put(id, leasedStock);
+				}
+			});
+			int written = writeSales(sales);
+			idleStocks.forEach(this::returnLease);
+			return written;
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	private int writeSales(Map<Integer, Long> sales) {
+		if (sales.isEmpty()) {
+			return 0;
+		}
+		Timestamp lastModified = Timestamp.from(Instant.now());
+		List<Object[]> updates = new ArrayList<>(sales.size());
+		List<Integer> ids = new ArrayList<>(sales.size());
+		sales.forEach((id, sold) -> {
+			updates.add(new Object[] { sold, sold, lastModified, id });
+			ids.add(id);
+		});
+		int[] updateCounts;
+		try {
+			updateCounts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(WRITE_SALES, updates));
+		} catch (RuntimeException ex) {
+			// Nothing was written, so the sales go back to be written by the next flush.
+			sales.forEach((id, sold) -> {
+				LeasedStock leasedStock = leasedStocks.get(id);
+				if (leasedStock != null) {
+					leasedStock.counter().restoreSold(sold);
+				}
+			});
+			throw ex;
+		}
+		// A game deleted since its stock was leased has no row left to update.
+		for (int i = 0; i < updateCounts.length; i++) {
+			if (updateCounts[i] == 0) {
+				leasedStocks.remove(ids.get(i));
+			}
+		}
+		// Putting the reloaded games instead could overwrite the invalidation of a write that commits in between.
+		sales.keySet().forEach(videoGameCache::invalidate);
+		List<VideoGame> updatedGames = videoGameRepo.findAllById(sales.keySet());
+		for (VideoGame videoGame : updatedGames) {
+			eventPublisher.publishEvent(VideoGameChangedEvent.updated(videoGame));
+		}
+		return updatedGames.size();
+	}
+
+	// Leases more copies once the counter has too few for a purchase. Returns false if too few are free to lease, in
+	// which case the purchase is refused.
+	private boolean lease(int id, LeasedStock leasedStock, int quantity) {
+		leasedStock.lock().lock();
+		try {
+			// Another buyer may have leased enough while this one was waiting for the lock.
+			long needed = quantity - leasedStock.counter().available();
+			if (needed <= 0) {
+				return true;
+			}
+			while (true) {
+				long writeGeneration = videoGameCache.writeGeneration(id);
+				List<Long> freeStock = jdbcTemplate.queryForList(SELECT_FREE_STOCK, Long.class, id);
+				if (freeStock.isEmpty()) {
+					leasedStocks.remove(id, leasedStock);
+					videoGameCache.putMissingIfUnchanged(id, writeGeneration);
+					throw ResourceNotFoundException.forId(id);
+				}
+				long copies = Math.min(Math.max(needed, leaseSize), freeStock.get(0));
+				if (copies < needed) {
+					return false;
+				}
+				if (jdbcTemplate.update(LEASE_STOCK, copies, id, copies) == 1) {
+					leasedStock.counter().add((int) copies);
+					return true;
+				}
+			}
+		} finally {
+			leasedStock.lock().unlock();
+		}
+	}
+
+	// Hands the unsold copies back to the database, where any instance can lease them again.
+	private void returnLease(int id, LeasedStock leasedStock) {
+		leasedStock.lock().lock();
+		try {
+			long unsold = leasedStock.counter().drain();
+			if (unsold == 0) {
+				return;
+			}
+			try {
+				jdbcTemplate.update(RETURN_LEASE, unsold, id);
+			} catch (RuntimeException ex) {
+				// The copies are still leased, so they can still be sold here.
+				leasedStock.counter().add((int) unsold);
+				throw ex;
+			}
+		} finally {
+			leasedStock.lock().unlock();
+		}
+	}
+
+	// An ID found not to exist when its stock is leased is remembered in the cache, like a miss in findGameById(), so
+	// repeated purchases of it do not query the database each time.
+	private LeasedStock leasedStockFor(int id) {
+		LeasedStock leasedStock = leasedStocks.get(id);
+		if (leasedStock != null) {
+			return leasedStock;
+		}
+		if (videoGameCache.isKnownMissing(id)) {
+			throw ResourceNotFoundException.forId(id);
+		}
+		return leasedStocks.computeIfAbsent(id, key -> new LeasedStock(new StockCounter(0, shards), new ReentrantLock()));
+	}
+
+	private void flushQuietly() {
+		flushQuietly(false);
+	}
+
+	private void flushQuietly(boolean returnEveryLease) {
+		try {
+			flush(returnEveryLease);
+		} catch (RuntimeException ex) {
+			log.warn("Failed to write stock changes, will retry", ex);
+		}
+	}
+
+	@Override
+	public synchronized void start() {
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "stock-reservations");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduledFlush = scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toNanos(),
+				flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	// Writes whatever has been sold, and hands back every lease, before the database goes away.
+	@Override
+	public synchronized void stop() {
+		if (scheduler == null) {
+			return;
+		}
+		scheduledFlush.cancel(false);
+		scheduler.shutdown();
+		try {
+			scheduler.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		scheduler = null;
+		flushQuietly(true);
+	}
+
+	// Stops after the web server, so that nothing can be sold once the last flush has run. Spring Boot's
+	// WebServerStartStopLifecycle stops in phase DEFAULT_PHASE - 2048, and lifecycles in the same phase stop in no
+	// particular order, so this one has to be strictly below it.
+	@Override
+	public int getPhase() {
+		return SmartLifecycle.DEFAULT_PHASE - 4096;
+	}
+
+	@Override
+	public synchronized boolean isRunning() {
+		return scheduler != null;
+	}
+
+}
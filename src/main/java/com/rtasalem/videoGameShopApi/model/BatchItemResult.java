@@ -0,0 +1,47 @@
+package com.rtasalem.videoGameShopApi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The outcome of a single item in a batch request. The index refers to the position of the item in the request
+ * body and the status uses the HTTP status code the item would have received on its own.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+	private final int index;
+	private final Integer id;
+	private final int status;
+	private final String message;
+
+	public BatchItemResult(int index, Integer id, int status, String message) {
+		super();
+		this.index = index;
+		this.id = id;
+		this.status = status;
+		this.message = message;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@JsonIgnore
+	public boolean isSuccessful() {
+		return status < 300;
+	}
+
+}
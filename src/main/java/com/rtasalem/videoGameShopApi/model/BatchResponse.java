@@ -0,0 +1,31 @@
+package com.rtasalem.videoGameShopApi.model;
+
+import java.util.List;
+
+// Summarises a batch request and reports the result of every item in the order they were submitted.
+public class BatchResponse {
+
+	private final int succeeded;
+	private final int failed;
+	private final List<BatchItemResult> results;
+
+	public BatchResponse(List<BatchItemResult> results) {
+		super();
+		this.succeeded = (int) results.stream().filter(BatchItemResult::isSuccessful).count();
+		this.failed = results.size() - succeeded;
+		this.results = results;
+	}
+
+	public int getSucceeded() {
+		return succeeded;
+	}
+
+	public int getFailed() {
+		return failed;
+	}
+
+	public List<BatchItemResult> getResults() {
+		return results;
+	}
+
+}
@@ -0,0 +1,12 @@
+package com.rtasalem.videoGameShopApi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+
+/**
+ * One entry of the change feed. Sequence numbers increase by one per change, and the video game is its state after a
+ * creation or update. It is left out for a deletion.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CatalogueChange(long sequence, VideoGameChangedEvent.Type type, int id, VideoGame videoGame) {
+}
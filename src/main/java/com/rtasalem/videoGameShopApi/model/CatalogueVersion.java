@@ -0,0 +1,20 @@
+package com.rtasalem.videoGameShopApi.model;
+
+import java.time.Instant;
+
+/**
+ * A cheap fingerprint of the whole catalogue, first computed with a single aggregate query and then kept up to date
+ * by CatalogueVersionHolder. Any insert raises the highest id, any update raises the sum of the versions and the
+ * latest modification time, and any delete lowers the count, so the fingerprint changes whenever the catalogue does.
+ */
+public record CatalogueVersion(Long count, Integer maxId, Long versionSum, Instant lastModified) {
+
+	// The ETag for a listing also depends on which page and filters were requested. The query is hashed from its
+	// string form so that every instance of the application issues the same ETag. It is weak because the same
+	// listing is sent gzipped or not, and Tomcat will not compress a response that carries a strong ETag.
+	public String toETag(String query) {
+		long lastModifiedMillis = lastModified == null ? 0 : lastModified.toEpochMilli();
+		return String.format("W/\"%d-%d-%d-%d-%08x\"", count, maxId, versionSum, lastModifiedMillis, query.hashCode());
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.rtasalem.videoGameShopApi.model;
+
+import java.util.List;
+
+/**
+ * A page of results fetched by keyset pagination. The nextCursor is opaque to clients and is null once
+ * the end of the catalogue has been reached.
+ */
+public class CursorPage<T> {
+
+	private final List<T> content;
+	private final String nextCursor;
+
+	public CursorPage(List<T> content, String nextCursor) {
+		super();
+		this.content = content;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<T> getContent() {
+		return content;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+}
@@ -0,0 +1,16 @@
+package com.rtasalem.videoGameShopApi.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How many video games there are per genre, per developer and per £5 price range. Genres and developers are listed
+ * with the most games first. A price range includes its lower bound and excludes its upper bound, except for the
+ * last range, which also includes £30.00.
+ */
+public record FacetCounts(long total, Map<String, Long> genres, Map<String, Long> developers, List<PriceRange> prices) {
+
+	public record PriceRange(double from, double to, long count) {
+	}
+
+}
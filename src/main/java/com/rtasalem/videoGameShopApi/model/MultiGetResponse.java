@@ -0,0 +1,28 @@
+package com.rtasalem.videoGameShopApi.model;
+
+import java.util.List;
+
+/**
+ * The video games found by a multi-get, in the order their ids were requested, and the requested ids that do not
+ * exist. Repeated ids are only reported once.
+ */
+public class MultiGetResponse {
+
+	private final List<VideoGame> videoGames;
+	private final List<Integer> missingIds;
+
+	public MultiGetResponse(List<VideoGame> videoGames, List<Integer> missingIds) {
+		super();
+		this.videoGames = videoGames;
+		this.missingIds = missingIds;
+	}
+
+	public List<VideoGame> getVideoGames() {
+		return videoGames;
+	}
+
+	public List<Integer> getMissingIds() {
+		return missingIds;
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.rtasalem.videoGameShopApi.model;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+
+/**
+ * A single page of results along with the metadata a client needs to request the next page,
+ * so the full table never has to be pulled in one go.
+ */
+public class PagedResponse<T> {
+
+	private final List<T> content;
+	private final int page;
+	private final int size;
+	private final long totalElements;
+	private final int totalPages;
+
+	public PagedResponse(List<T> content, int page, int size, long totalElements, int totalPages) {
+		super();
+		this.content = content;
+		this.page = page;
+		this.size = size;
+		this.totalElements = totalElements;
+		this.totalPages = totalPages;
+	}
+
+	public static <T> PagedResponse<T> from(Page<T> page) {
+		return new PagedResponse<>(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements(),
+				page.getTotalPages());
+	}
+
+	public List<T> getContent() {
+		return content;
+	}
+
+	public int getPage() {
+		return page;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public long getTotalElements() {
+		return totalElements;
+	}
+
+	public int getTotalPages() {
+		return totalPages;
+	}
+
+}
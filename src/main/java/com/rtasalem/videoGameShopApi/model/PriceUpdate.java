@@ -0,0 +1,13 @@
+package com.rtasalem.videoGameShopApi.model;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+
+// The body of a price change. The limits are the same as on VideoGame.
+public record PriceUpdate(
+		@NotNull(message = "Video game price must be supplied.")
+		@DecimalMax(value = "30.00", message = "Video game price must be less than £30.00 (GBP).")
+		@DecimalMin(value = "5.00", message = "Video game price must be less than £5.00 (GBP).")
+		Double price) {
+}
@@ -0,0 +1,13 @@
+package com.rtasalem.videoGameShopApi.model;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+// The body of a purchase. The limit keeps a single buyer from taking a launch allocation in one request.
+public record Purchase(
+		@NotNull(message = "Purchase quantity must be supplied.")
+		@Min(value = 1, message = "Purchase quantity must be at least 1.")
+		@Max(value = 10, message = "Purchase quantity must be no more than 10.")
+		Integer quantity) {
+}
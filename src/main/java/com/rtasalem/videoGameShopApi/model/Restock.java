@@ -0,0 +1,13 @@
+package com.rtasalem.videoGameShopApi.model;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+// The body of a delivery of new copies, which are added to the stock.
+public record Restock(
+		@NotNull(message = "Restock quantity must be supplied.")
+		@Min(value = 1, message = "Restock quantity must be at least 1.")
+		@Max(value = 1000000, message = "Restock quantity must be no more than 1000000.")
+		Integer quantity) {
+}
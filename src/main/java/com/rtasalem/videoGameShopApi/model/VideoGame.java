@@ -1,20 +1,41 @@
 package com.rtasalem.videoGameShopApi.model;
 
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
 @Entity
+// The schema is created by the Flyway migrations in db/migration. The constraint and indexes declared here mirror them.
+@Table(uniqueConstraints = @UniqueConstraint(name = VideoGame.TITLE_CONSTRAINT, columnNames = "title"), indexes = {
+		@Index(name = "IX_VIDEOGAME_GENRE", columnList = "genre"),
+		@Index(name = "IX_VIDEOGAME_DEVELOPER", columnList = "developer"),
+		@Index(name = "IX_VIDEOGAME_PRICE", columnList = "price")
+})
 public class VideoGame {
 	
+	// Titles are unique at the database level, so a duplicate is caught by the INSERT itself rather than a prior query.
+	public static final String TITLE_CONSTRAINT = "UK_VIDEOGAME_TITLE";
+	
+	// Ids are handed out in blocks of 50 (pooled-lo) so that batched inserts do not need a sequence call per row.
 	@Id
-	@SequenceGenerator(name = "GAME_ID_GEN", sequenceName = "GAME_ID_SEQ", allocationSize = 1)
+	@SequenceGenerator(name = "GAME_ID_GEN", sequenceName = "GAME_ID_SEQ", allocationSize = 50)
 	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "GAME_ID_GEN")
 	private int id;
 	
@@ -33,6 +54,21 @@ public class VideoGame {
 	@DecimalMax(value = "30.00", message = "Video game price must be less than £30.00 (GBP).")
 	@DecimalMin(value = "5.00", message = "Video game price must be less than £5.00 (GBP).")
 	private double price;
+	
+	// Incremented on every update. Drives the ETag of a video game and optimistic locking on If-Match.
+	// It is null when the version after an update is not known, e.g. an update made without If-Match.
+	@Version
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	private Long version;
+	
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	private Instant lastModified;
+	
+	// Copies left to sell, as last written by StockReservations, which is the only place it changes. JPA never updates
+	// it, so an entity loaded before a sale cannot write the old level back. Null when not known, as after an update.
+	@Column(updatable = false)
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	private Integer stock;
 
 	public VideoGame() {
 		super();
@@ -86,4 +122,42 @@ public class VideoGame {
 		this.price = price;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	public Instant getLastModified() {
+		return lastModified;
+	}
+
+	public void setLastModified(Instant lastModified) {
+		this.lastModified = lastModified;
+	}
+	
+	public Integer getStock() {
+		return stock;
+	}
+
+	public void setStock(Integer stock) {
+		this.stock = stock;
+	}
+	
+	// New video games have no copies until they are restocked.
+	@PrePersist
+	void beforeInsert() {
+		if (stock == null) {
+			stock = 0;
+		}
+		updateLastModified();
+	}
+	
+	@PreUpdate
+	void updateLastModified() {
+		lastModified = Instant.now();
+	}
+
 }
@@ -0,0 +1,13 @@
+package com.rtasalem.videoGameShopApi.model;
+
+/**
+ * Optional criteria used to narrow down a catalogue listing. Any criterion left as null is ignored,
+ * so an empty filter matches every video game.
+ */
+public record VideoGameFilter(String genre, String developer, Double minPrice, Double maxPrice) {
+
+	public static VideoGameFilter none() {
+		return new VideoGameFilter(null, null, null, null);
+	}
+
+}
@@ -0,0 +1,241 @@
+package com.rtasalem.videoGameShopApi.pricing;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rtasalem.videoGameShopApi.cache.VideoGameCache;
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.exception.ServiceOverloadedException;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Accepts price changes and writes them to the database later, in batches. Only the latest price per video game is
+ * kept until it is written, so a game whose price changes many times between flushes costs a single UPDATE. Flushes
+ * run every flush interval, and straight away once flush-size games are waiting.
+ * 
+ * The number of games waiting is bounded by the capacity. When it is reached the caller flushes the queue itself
+ * before its change is accepted, which slows down whoever is sending changes faster than they can be written. If
+ * that flush fails the change is rejected with 503.
+ * 
+ * Accepted prices are laid over the video game by overlay(), so that findGameById() returns the latest price before
+ * it reaches the database. After a flush the written games are invalidated in the cache and published as
+ * VideoGameChangedEvent, like any other update.
+ */
+@Component
+public class PriceUpdatePipeline implements SmartLifecycle {
+
+	private final static Logger log = LoggerFactory.getLogger(PriceUpdatePipeline.class);
+
+	// version and lastModified are raised as JPA would, so that ETags and the catalogue version change with the price.
+	private static final String UPDATE_PRICE = "update VideoGame set price = ?, version = version + 1, lastModified = ? where id = ?";
+
+	private final int capacity;
+
+	private final int flushSize;
+
+	private final Duration flushInterval;
+
+	// The latest accepted price of every video game that has not been written yet.
+	private final Map<Integer, Double> pending = new ConcurrentHashMap<>();
+
+	// Serialises flushes, and lets discard() wait for one that is writing the game it is discarding.
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final VideoGameDAO videoGameRepo;
+
+	private final VideoGameCache videoGameCache;
+
+	private final ApplicationEventPublisher eventPublisher;
+
+	private final Counter flushedCounter;
+
+	private ScheduledExecutorService scheduler;
+
+	private ScheduledFuture<?> scheduledFlush;
+
+	@Autowired
+	public PriceUpdatePipeline(@Value("${videogames.price-updates.capacity:10000}") int capacity,
+			@Value("${videogames.price-updates.flush-size:500}") int flushSize,
+			@Value("${videogames.price-updates.flush-interval:100ms}") Duration flushInterval,
+			JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, VideoGameDAO videoGameRepo,
+			VideoGameCache videoGameCache, ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+		super();
+		this.capacity = capacity;
+		this.flushSize = flushSize;
+		this.flushInterval = flushInterval;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.videoGameRepo = videoGameRepo;
+		this.videoGameCache = videoGameCache;
+		this.eventPublisher = eventPublisher;
+		Gauge.builder("videogames.price-updates.pending", pending, Map::size).register(meterRegistry);
+		this.flushedCounter = meterRegistry.counter("videogames.price-updates.flushed");
+	}
+
+	// Accepts the new price of an existing video game. It replaces any price for the game that is still waiting.
+	public void submit(int id, double price) {
+		if (pending.size() >= capacity && !pending.containsKey(id)) {
+			try {
+				flush();
+			} catch (DataAccessException ex) {
+				throw new ServiceOverloadedException("Too many price updates are waiting to be written. Try again in 1 second.", 1);
+			}
+		}
+		pending.put(id, price);
+		if (pending.size() >= flushSize && scheduler != null && flushRequested.compareAndSet(false, true)) {
+			scheduler.execute(this::flushQuietly);
+		}
+	}
+
+	// Returns the video game with its latest accepted price, as a copy if that price has not been written yet. The copy
+	// has no version or last modified time, as neither is known until the price is written.
+	public VideoGame overlay(VideoGame videoGame) {
+		Double price = pending.get(videoGame.getId());
+		if (price == null) {
+			return videoGame;
+		}
+		VideoGame overlaid = new VideoGame(videoGame.getTitle(), videoGame.getGenre(), videoGame.getDeveloper(), price);
+		overlaid.setId(videoGame.getId());
+		overlaid.setStock(videoGame.getStock());
+		return overlaid;
+	}
+
+	// Drops the waiting price of a video game that is about to be replaced or deleted, so that it cannot be written
+	// over the newer state afterwards.
+	public void discard(int id) {
+		if (!pending.containsKey(id)) {
+			return;
+		}
+		flushLock.lock();
+		try {
+			pending.remove(id);
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	public boolean hasPending(int id) {
+		return pending.containsKey(id);
+	}
+
+	public int pendingCount() {
+		return pending.size();
+	}
+
+	// Writes every waiting price and returns how many video games were updated.
+	public int flush() {
+		flushLock.lock();
+		try {
+			flushRequested.set(false);
+			if (pending.isEmpty()) {
+				return 0;
+			}
+			Map<Integer, Double> snapshot = Map.copyOf(pending);
+			Timestamp lastModified = Timestamp.from(Instant.now());
+			List<Object[]> updates = new ArrayList<>(snapshot.size());
+			snapshot.forEach((id, price) -> updates.add(new Object[] { price, lastModified, id }));
+			transactionTemplate.executeWithoutResult(status -> {
+				for (int from = 0; from < updates.size(); from += flushSize) {
+					jdbcTemplate.batchUpdate(UPDATE_PRICE, updates.subList(from, Math.min(updates.size(), from + flushSize)));
+				}
+			});
+			// The written games are reloaded for the events only. Putting them in the cache could overwrite a newer
+			// write that committed after the reload, so the next read loads them instead.
+			snapshot.keySet().forEach(videoGameCache::invalidate);
+			List<VideoGame> updatedGames = videoGameRepo.findAllById(snapshot.keySet());
+			for (VideoGame videoGame : updatedGames) {
+				eventPublisher.publishEvent(VideoGameChangedEvent.updated(videoGame));
+			}
+			// A price accepted during the flush replaced the one written and is left for the next flush.
+			snapshot.forEach(pending::remove);
+			flushedCounter.increment(updatedGames.size());
+			return updatedGames.size();
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (RuntimeException ex) {
+			log.warn("Failed to write {} price updates, will retry", pending.size(), ex);
+		}
+	}
+
+	@Override
+	public synchronized void start() {
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "price-updates");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduledFlush = scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toNanos(),
+				flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	// Writes whatever is still waiting before the database goes away.
+	@Override
+	public synchronized void stop() {
+		if (scheduler == null) {
+			return;
+		}
+		scheduledFlush.cancel(false);
+		scheduler.shutdown();
+		try {
+			scheduler.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		scheduler = null;
+		flushQuietly();
+	}
+
+	// Stops after the web server, so that no price can be accepted once the last flush has run. Spring Boot's
+	// WebServerStartStopLifecycle stops in phase DEFAULT_PHASE - 2048, and lifecycles in the same phase stop in no
+	// particular order, so this one has to be strictly below it.
+	@Override
+	public int getPhase() {
+		return SmartLifecycle.DEFAULT_PHASE - 4096;
+	}
+
+	@Override
+	public synchronized boolean isRunning() {
+		return scheduler != null;
+	}
+
+}
@@ -0,0 +1,179 @@
+package com.rtasalem.videoGameShopApi.repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.model.VideoGameFilter;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// The R2DBC counterpart of VideoGameDAO, used by the reactive profile. It reads and writes the same VideoGame table
+// that Hibernate creates, with the same single-statement writes, so neither stack can tell which one wrote a row.
+@Repository
+@Profile("reactive")
+public class ReactiveVideoGameRepository {
+	
+	private static final String COLUMNS = "id, title, genre, developer, price, version, lastModified, stock";
+	
+	private final DatabaseClient databaseClient;
+
+	public ReactiveVideoGameRepository(DatabaseClient databaseClient) {
+		super();
+		this.databaseClient = databaseClient;
+	}
+	
+	// Rows are emitted as the subscriber requests them, so a slow client holds back the query rather than the heap.
+	public Flux<VideoGame> findAllOrderedById() {
+		return databaseClient.sql("select " + COLUMNS + " from VideoGame order by id")
+				.map(ReactiveVideoGameRepository::toVideoGame)
+				.all();
+	}
+	
+	// The sort properties have already been checked against the sortable columns, so they are safe to write into the SQL.
+	public Flux<VideoGame> findPage(VideoGameFilter filter, Pageable pageable) {
+		Map<String, Object> parameters = new LinkedHashMap<>();
+		List<String> orderBy = new ArrayList<>();
+		for (Sort.Order order : pageable.getSort()) {
+			orderBy.add(order.getProperty() + (order.isAscending() ? " asc" : " desc"));
+		}
+		String sql = "select " + COLUMNS + " from VideoGame" + where(filter, parameters)
+				+ (orderBy.isEmpty() ? "" : " order by " + String.join(", ", orderBy)) + " limit :limit offset :offset";
+		parameters.put("limit", pageable.getPageSize());
+		parameters.put("offset", pageable.getOffset());
+		return bindAll(databaseClient.sql(sql), parameters)
+				.map(ReactiveVideoGameRepository::toVideoGame)
+				.all();
+	}
+	
+	public Mono<Long> count(VideoGameFilter filter) {
+		Map<String, Object> parameters = new LinkedHashMap<>();
+		return bindAll(databaseClient.sql("select count(*) from VideoGame" + where(filter, parameters)), parameters)
+				.map(row -> row.get(0, Long.class))
+				.one();
+	}
+	
+	public Mono<VideoGame> findById(int id) {
+		return databaseClient.sql("select " + COLUMNS + " from VideoGame where id = :id")
+				.bind("id", id)
+				.map(ReactiveVideoGameRepository::toVideoGame)
+				.one();
+	}
+	
+	public Mono<Boolean> existsById(int id) {
+		return databaseClient.sql("select count(*) from VideoGame where id = :id")
+				.bind("id", id)
+				.map(row -> row.get(0, Long.class) > 0)
+				.one();
+	}
+	
+	// Takes the id from the sequence Hibernate uses. Each call reserves a whole pooled-lo block, so the ids handed out
+	// here never overlap with the ones the JPA stack allocates from its own blocks.
+	public Mono<VideoGame> insert(VideoGame videoGame) {
+		return databaseClient.sql("select next value for GAME_ID_SEQ")
+				.map(row -> row.get(0, Long.class).intValue())
+				.one()
+				.flatMap(id -> databaseClient.sql("insert into VideoGame (" + COLUMNS + ") "
+								+ "values (:id, :title, :genre, :developer, :price, 0, :lastModified, 0)")
+						.bind("id", id)
+						.bind("title", videoGame.getTitle())
+						.bind("genre", videoGame.getGenre())
+						.bind("developer", videoGame.getDeveloper())
+						.bind("price", videoGame.getPrice())
+						.bind("lastModified", toTimestamp(videoGame.getLastModified()))
+						.then()
+						.thenReturn(id))
+				.map(id -> {
+					videoGame.setId(id);
+					videoGame.setVersion(0L);
+					videoGame.setStock(0);
+					return videoGame;
+				});
+	}
+	
+	// Mirrors VideoGameDAO.updateGame(). Returns the number of rows updated.
+	public Mono<Long> updateGame(int id, VideoGame videoGame, Long expectedVersion, Instant lastModified) {
+		DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("update VideoGame set title = :title, genre = :genre, "
+						+ "developer = :developer, price = :price, version = version + 1, lastModified = :lastModified "
+						+ "where id = :id" + (expectedVersion == null ? "" : " and version = :expectedVersion"))
+				.bind("id", id)
+				.bind("title", videoGame.getTitle())
+				.bind("genre", videoGame.getGenre())
+				.bind("developer", videoGame.getDeveloper())
+				.bind("price", videoGame.getPrice())
+				.bind("lastModified", toTimestamp(lastModified));
+		if (expectedVersion != null) {
+			spec = spec.bind("expectedVersion", expectedVersion);
+		}
+		return spec.fetch().rowsUpdated();
+	}
+	
+	// Returns the number of rows deleted.
+	public Mono<Long> deleteGameById(int id) {
+		return databaseClient.sql("delete from VideoGame where id = :id")
+				.bind("id", id)
+				.fetch()
+				.rowsUpdated();
+	}
+	
+	// Mirrors VideoGameSpecifications.matching(), adding the value of each criterion to the parameters.
+	private static String where(VideoGameFilter filter, Map<String, Object> parameters) {
+		List<String> predicates = new ArrayList<>();
+		if (filter.genre() != null) {
+			predicates.add("genre = :genre");
+			parameters.put("genre", filter.genre());
+		}
+		if (filter.developer() != null) {
+			predicates.add("developer = :developer");
+			parameters.put("developer", filter.developer());
+		}
+		if (filter.minPrice() != null) {
+			predicates.add("price >= :minPrice");
+			parameters.put("minPrice", filter.minPrice());
+		}
+		if (filter.maxPrice() != null) {
+			predicates.add("price <= :maxPrice");
+			parameters.put("maxPrice", filter.maxPrice());
+		}
+		return predicates.isEmpty() ? "" : " where " + String.join(" and ", predicates);
+	}
+	
+	private static DatabaseClient.GenericExecuteSpec bindAll(DatabaseClient.GenericExecuteSpec spec, Map<String, Object> parameters) {
+		for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+			spec = spec.bind(parameter.getKey(), parameter.getValue());
+		}
+		return spec;
+	}
+	
+	private static VideoGame toVideoGame(Readable row) {
+		VideoGame videoGame = new VideoGame();
+		videoGame.setId(row.get("id", Integer.class));
+		videoGame.setTitle(row.get("title", String.class));
+		videoGame.setGenre(row.get("genre", String.class));
+		videoGame.setDeveloper(row.get("developer", String.class));
+		videoGame.setPrice(row.get("price", Double.class));
+		videoGame.setVersion(row.get("version", Long.class));
+		OffsetDateTime lastModified = row.get("lastModified", OffsetDateTime.class);
+		videoGame.setLastModified(lastModified == null ? null : lastModified.toInstant());
+		videoGame.setStock(row.get("stock", Integer.class));
+		return videoGame;
+	}
+	
+	private static OffsetDateTime toTimestamp(Instant instant) {
+		return OffsetDateTime.ofInstant(instant, ZoneOffset.UTC);
+	}
+
+}
@@ -1,11 +1,64 @@
 package com.rtasalem.videoGameShopApi.repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.rtasalem.videoGameShopApi.model.CatalogueVersion;
 import com.rtasalem.videoGameShopApi.model.VideoGame;
 
-public interface VideoGameDAO extends JpaRepository<VideoGame, Integer> {
+import jakarta.persistence.QueryHint;
+
+public interface VideoGameDAO extends JpaRepository<VideoGame, Integer>, JpaSpecificationExecutor<VideoGame> {
+	
+	// Replaces every editable column in a single statement. The expected version is optional and, when given, the row
+	// is only updated if it still has that version. Returns the number of rows updated.
+	@Transactional
+	@Modifying
+	@Query("update VideoGame v set v.title = :#{#videoGame.title}, v.genre = :#{#videoGame.genre}, "
+			+ "v.developer = :#{#videoGame.developer}, v.price = :#{#videoGame.price}, v.version = v.version + 1, "
+			+ "v.lastModified = :lastModified where v.id = :id and (:expectedVersion is null or v.version = :expectedVersion)")
+	int updateGame(int id, VideoGame videoGame, Long expectedVersion, Instant lastModified);
+	
+	// Returns the number of rows deleted, so a missing id needs no separate existence check.
+	@Transactional
+	@Modifying
+	@Query("delete from VideoGame v where v.id = :id")
+	int deleteGameById(int id);
+	
+	// Used by the batch endpoints to check a whole payload with a single IN query.
+	@Query("select v.title from VideoGame v where v.title in :titles")
+	List<String> findTitlesIn(Collection<String> titles);
+	
+	@Query("select v.id from VideoGame v where v.id in :ids")
+	List<Integer> findIdsIn(Collection<Integer> ids);
+	
+	// Keyset pagination: a range scan on the primary key that costs the same however deep the client has read.
+	Slice<VideoGame> findByIdGreaterThanOrderByIdAsc(int id, Pageable pageable);
+	
+	// A single aggregate query, run once by CatalogueVersionHolder, which keeps the version up to date from then on.
+	@Query("select new com.rtasalem.videoGameShopApi.model.CatalogueVersion(count(v), coalesce(max(v.id), 0), "
+			+ "coalesce(sum(v.version), 0), max(v.lastModified)) from VideoGame v")
+	CatalogueVersion findCatalogueVersion();
 	
-	boolean existsByTitle(String title);
+	// Streams every row through a read-only JDBC cursor. Must be consumed inside a transaction and closed afterwards.
+	@QueryHints({
+		@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+		@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+		@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+	})
+	@Query("select v from VideoGame v order by v.id")
+	Stream<VideoGame> streamAllOrderedById();
 
 }
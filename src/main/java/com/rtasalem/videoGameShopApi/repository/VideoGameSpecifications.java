@@ -0,0 +1,38 @@
+package com.rtasalem.videoGameShopApi.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.model.VideoGameFilter;
+
+import jakarta.persistence.criteria.Predicate;
+
+// Translates a VideoGameFilter into a WHERE clause so that filtering happens in SQL rather than in memory.
+public final class VideoGameSpecifications {
+
+	private VideoGameSpecifications() {
+	}
+
+	public static Specification<VideoGame> matching(VideoGameFilter filter) {
+		return (root, query, criteriaBuilder) -> {
+			List<Predicate> predicates = new ArrayList<>();
+			if (filter.genre() != null) {
+				predicates.add(criteriaBuilder.equal(root.get("genre"), filter.genre()));
+			}
+			if (filter.developer() != null) {
+				predicates.add(criteriaBuilder.equal(root.get("developer"), filter.developer()));
+			}
+			if (filter.minPrice() != null) {
+				predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("price"), filter.minPrice()));
+			}
+			if (filter.maxPrice() != null) {
+				predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("price"), filter.maxPrice()));
+			}
+			return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+		};
+	}
+
+}
@@ -0,0 +1,166 @@
+package com.rtasalem.videoGameShopApi.search;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.model.FacetCounts;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Counts of video games per genre, per developer and per £5 price range, kept up to date from VideoGameChangedEvent
+ * so that reading them costs one pass over the counters rather than a scan of the table.
+ * 
+ * Updates and deletes only carry the id and the new state of a game, so the genre, developer and price range each
+ * game was counted under are remembered too, which is what lets the old counts be taken back. Like the search index
+ * the counters are built from the database once the application has started, reads take no locks and writes are
+ * serialised. A read made during a write may see that write half applied.
+ */
+@Component
+public class VideoGameFacets {
+
+	// The price range enforced by @DecimalMin and @DecimalMax on VideoGame.
+	public static final double MIN_PRICE = 5.00;
+
+	public static final double MAX_PRICE = 30.00;
+
+	public static final double PRICE_RANGE_WIDTH = 5.00;
+
+	private static final int PRICE_RANGES = (int) ((MAX_PRICE - MIN_PRICE) / PRICE_RANGE_WIDTH);
+
+	private final static Logger log = LoggerFactory.getLogger(VideoGameFacets.class);
+
+	// Replaced wholesale by rebuild().
+	private volatile Counters counters = new Counters();
+
+	private final VideoGameDAO videoGameRepo;
+
+	private final EntityManager entityManager;
+
+	private final TransactionTemplate transactionTemplate;
+
+	public VideoGameFacets(VideoGameDAO videoGameRepo, EntityManager entityManager,
+			PlatformTransactionManager transactionManager) {
+		super();
+		this.videoGameRepo = videoGameRepo;
+		this.entityManager = entityManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		long started = System.nanoTime();
+		Integer counted = transactionTemplate.execute(status -> {
+			try (Stream<VideoGame> videoGames = videoGameRepo.streamAllOrderedById()) {
+				return rebuild(videoGames.peek(entityManager::detach));
+			}
+		});
+		log.info("Counted facets of {} video games in {} ms", counted, (System.nanoTime() - started) / 1_000_000);
+	}
+
+	// Counts the given games from scratch and then swaps the new counters in. Returns the number of games counted.
+	public synchronized int rebuild(Stream<VideoGame> videoGames) {
+		Counters newCounters = new Counters();
+		videoGames.forEach(videoGame -> newCounters.put(videoGame.getId(), Facet.of(videoGame)));
+		counters = newCounters;
+		return newCounters.facets.size();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void onVideoGameChanged(VideoGameChangedEvent event) {
+		if (event.type() == VideoGameChangedEvent.Type.DELETED) {
+			counters.remove(event.id());
+		} else {
+			counters.put(event.id(), Facet.of(event.videoGame()));
+		}
+	}
+
+	public FacetCounts counts() {
+		Counters counters = this.counters;
+		List<FacetCounts.PriceRange> prices = IntStream.range(0, PRICE_RANGES)
+				.mapToObj(range -> new FacetCounts.PriceRange(MIN_PRICE + range * PRICE_RANGE_WIDTH,
+						MIN_PRICE + (range + 1) * PRICE_RANGE_WIDTH, counters.prices.get(range)))
+				.toList();
+		return new FacetCounts(counters.facets.size(), mostFirst(counters.genres), mostFirst(counters.developers), prices);
+	}
+
+	private static Map<String, Long> mostFirst(Map<String, Long> counts) {
+		Map<String, Long> sorted = new LinkedHashMap<>();
+		counts.entrySet().stream()
+				.sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+				.forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+		return sorted;
+	}
+
+	// Prices outside the allowed range are counted in the nearest range rather than dropped.
+	static int priceRangeOf(double price) {
+		int range = (int) Math.floor((price - MIN_PRICE) / PRICE_RANGE_WIDTH);
+		return Math.max(0, Math.min(PRICE_RANGES - 1, range));
+	}
+
+	private static final class Counters {
+
+		private final ConcurrentHashMap<Integer, Facet> facets = new ConcurrentHashMap<>();
+
+		private final ConcurrentHashMap<String, Long> genres = new ConcurrentHashMap<>();
+
+		private final ConcurrentHashMap<String, Long> developers = new ConcurrentHashMap<>();
+
+		private final AtomicLongArray prices = new AtomicLongArray(PRICE_RANGES);
+
+		void put(int id, Facet facet) {
+			Facet previous = facets.put(id, facet);
+			if (previous != null) {
+				count(previous, -1);
+			}
+			count(facet, 1);
+		}
+
+		void remove(int id) {
+			Facet previous = facets.remove(id);
+			if (previous != null) {
+				count(previous, -1);
+			}
+		}
+
+		// A name whose count drops to zero is removed, so that it is no longer listed.
+		private void count(Facet facet, long delta) {
+			genres.compute(facet.genre(), (genre, count) -> zeroToNull((count == null ? 0 : count) + delta));
+			developers.compute(facet.developer(), (developer, count) -> zeroToNull((count == null ? 0 : count) + delta));
+			prices.addAndGet(facet.priceRange(), delta);
+		}
+
+		private static Long zeroToNull(long count) {
+			return count == 0 ? null : count;
+		}
+
+	}
+
+	private record Facet(String genre, String developer, int priceRange) {
+
+		static Facet of(VideoGame videoGame) {
+			return new Facet(videoGame.getGenre(), videoGame.getDeveloper(), priceRangeOf(videoGame.getPrice()));
+		}
+
+	}
+
+}
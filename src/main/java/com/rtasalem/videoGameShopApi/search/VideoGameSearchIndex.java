@@ -0,0 +1,422 @@
+package com.rtasalem.videoGameShopApi.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * An in-process inverted index over the title, developer and genre of every video game. Text is split into
+ * lower-case words and each word maps to the ids of the games that contain it. The words are kept sorted, so all
+ * words that start with a typed prefix form one contiguous range.
+ * 
+ * A game matches a query when every query word is a prefix of one of its words. Matches are ranked by where the
+ * words were found (title over developer over genre), with whole-word matches counting double and ties broken on
+ * the lowest id. Each query word becomes a bitset of the ids under its prefix, the bitsets are intersected, and the
+ * matches are scored in id order until enough of them have the best score the query can reach.
+ * 
+ * The index is built from the database once the application has started and then follows every committed write
+ * through VideoGameChangedEvent. Reads take no locks. Writes are serialised and replace the id lists they change.
+ */
+@Component
+public class VideoGameSearchIndex {
+
+	private static final int TITLE = 0;
+
+	private static final int DEVELOPER = 1;
+
+	private static final int GENRE = 2;
+
+	private static final int[] FIELD_WEIGHTS = {3, 2, 1};
+
+	private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private static final String[] NO_WORDS = new String[0];
+
+	private final static Logger log = LoggerFactory.getLogger(VideoGameSearchIndex.class);
+
+	// Word -> ids of the video games that contain it. Replaced wholesale by rebuild().
+	private volatile ConcurrentSkipListMap<String, Posting> postings = new ConcurrentSkipListMap<>();
+
+	// Id -> the indexed copy of the video game, which is also what searches return.
+	private volatile ConcurrentHashMap<Integer, IndexedGame> games = new ConcurrentHashMap<>();
+
+	// The highest id ever indexed, which sizes the bitsets.
+	private volatile int maxId;
+
+	private final VideoGameDAO videoGameRepo;
+
+	private final EntityManager entityManager;
+
+	private final TransactionTemplate transactionTemplate;
+
+	public VideoGameSearchIndex(VideoGameDAO videoGameRepo, EntityManager entityManager,
+			PlatformTransactionManager transactionManager) {
+		super();
+		this.videoGameRepo = videoGameRepo;
+		this.entityManager = entityManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+	}
+
+	// Streams the whole table once, detaching each row so that memory only grows with the index itself.
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		long started = System.nanoTime();
+		Integer indexed = transactionTemplate.execute(status -> {
+			try (Stream<VideoGame> videoGames = videoGameRepo.streamAllOrderedById()) {
+				return rebuild(videoGames.peek(entityManager::detach));
+			}
+		});
+		log.info("Indexed {} video games for search in {} ms", indexed, (System.nanoTime() - started) / 1_000_000);
+	}
+
+	// Builds a new index from the given games and then swaps it in. Returns the number of games indexed.
+	public synchronized int rebuild(Stream<VideoGame> videoGames) {
+		Map<String, IdList> newPostings = new HashMap<>();
+		ConcurrentHashMap<Integer, IndexedGame> newGames = new ConcurrentHashMap<>();
+		videoGames.forEach(videoGame -> {
+			IndexedGame indexedGame = IndexedGame.of(videoGame);
+			newGames.put(videoGame.getId(), indexedGame);
+			indexedGame.forEachWord((word, field) -> newPostings.computeIfAbsent(word, key -> new IdList()).add(videoGame.getId(), field));
+		});
+		int newMaxId = newGames.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+		ConcurrentSkipListMap<String, Posting> built = new ConcurrentSkipListMap<>();
+		newPostings.forEach((word, ids) -> built.put(word, ids.toPosting(newMaxId)));
+		maxId = newMaxId;
+		postings = built;
+		games = newGames;
+		return newGames.size();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onVideoGameChanged(VideoGameChangedEvent event) {
+		if (event.type() == VideoGameChangedEvent.Type.DELETED) {
+			remove(event.id());
+		} else {
+			index(event.videoGame());
+		}
+	}
+
+	// Returns up to limit video games that match every word of the query, best match first.
+	public List<VideoGame> search(String query, int limit) {
+		String[] terms = tokenize(query);
+		if (terms.length == 0 || limit < 1) {
+			return List.of();
+		}
+		NavigableMap<String, Posting> postings = this.postings;
+		Map<Integer, IndexedGame> games = this.games;
+		List<Collection<Posting>> ranges = new ArrayList<>(terms.length);
+		int bestPossibleScore = 0;
+		for (String term : terms) {
+			NavigableMap<String, Posting> range = postings.subMap(term, true, term + Character.MAX_VALUE, false);
+			if (range.isEmpty()) {
+				return List.of();
+			}
+			ranges.add(range.values());
+			bestPossibleScore += bestPossibleScore(term, range);
+		}
+		long[] matches = new long[bitsetLength(maxId)];
+		for (int i = 0; i < ranges.size(); i++) {
+			long[] termMatches = i == 0 ? matches : new long[matches.length];
+			for (Posting posting : ranges.get(i)) {
+				posting.orInto(termMatches);
+			}
+			if (i > 0) {
+				for (int word = 0; word < matches.length; word++) {
+					matches[word] &= termMatches[word];
+				}
+			}
+		}
+		Comparator<ScoredGame> bestFirst = Comparator.comparingInt(ScoredGame::score).reversed()
+				.thenComparingInt(scored -> scored.game().getId());
+		// Holds the best matches so far with the worst of them at the head, so it never grows past the limit.
+		PriorityQueue<ScoredGame> best = new PriorityQueue<>(limit + 1, bestFirst.reversed());
+		candidates:
+		for (int word = 0; word < matches.length; word++) {
+			long bits = matches[word];
+			while (bits != 0) {
+				int id = (word << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+				IndexedGame indexedGame = games.get(id);
+				// A game changed since the bitsets were read may no longer match.
+				int score = indexedGame == null ? 0 : indexedGame.score(terms);
+				if (score == 0) {
+					continue;
+				}
+				best.offer(new ScoredGame(indexedGame.videoGame(), score));
+				if (best.size() > limit) {
+					best.poll();
+				}
+				// Later games have higher ids, so they can no longer displace a full set of best possible matches.
+				if (best.size() == limit && best.peek().score() >= bestPossibleScore) {
+					break candidates;
+				}
+			}
+		}
+		List<ScoredGame> results = new ArrayList<>(best);
+		results.sort(bestFirst);
+		return results.stream().map(ScoredGame::game).toList();
+	}
+
+	public int size() {
+		return games.size();
+	}
+
+	private synchronized void index(VideoGame videoGame) {
+		int id = videoGame.getId();
+		maxId = Math.max(maxId, id);
+		IndexedGame indexedGame = IndexedGame.of(videoGame);
+		IndexedGame previous = games.put(id, indexedGame);
+		if (previous != null) {
+			previous.forEachWord((word, field) -> postings.computeIfPresent(word, (key, posting) -> posting.without(id, maxId)));
+		}
+		indexedGame.forEachWord((word, field) -> postings.merge(word, Posting.of(new int[] {id}, 1 << field, maxId),
+				(posting, added) -> posting.with(id, field, maxId)));
+	}
+
+	private synchronized void remove(int id) {
+		IndexedGame previous = games.remove(id);
+		if (previous != null) {
+			previous.forEachWord((word, field) -> postings.computeIfPresent(word, (key, posting) -> posting.without(id, maxId)));
+		}
+	}
+
+	// The most one query word can score, given which fields the words under its prefix have appeared in.
+	private static int bestPossibleScore(String term, NavigableMap<String, Posting> range) {
+		int bestPossibleScore = 0;
+		for (Map.Entry<String, Posting> entry : range.entrySet()) {
+			for (int field = TITLE; field <= GENRE; field++) {
+				if ((entry.getValue().fields() & 1 << field) != 0) {
+					int score = FIELD_WEIGHTS[field] * (entry.getKey().equals(term) ? 2 : 1);
+					bestPossibleScore = Math.max(bestPossibleScore, score);
+				}
+			}
+		}
+		return bestPossibleScore;
+	}
+
+	private static int bitsetLength(int maxId) {
+		return (maxId >> 6) + 1;
+	}
+
+	static String[] tokenize(String text) {
+		if (text == null || text.isBlank()) {
+			return NO_WORDS;
+		}
+		return Arrays.stream(WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+				.filter(word -> !word.isEmpty())
+				.distinct()
+				.toArray(String[]::new);
+	}
+
+	/**
+	 * The ids of the games containing one word, and a bit per field the word has been seen in. Rare words keep a
+	 * sorted id array and common words a bitset, whichever is smaller. The field bits are only cleared by a rebuild,
+	 * which keeps them a safe upper bound for ranking.
+	 */
+	private record Posting(int[] ids, long[] bits, int size, int fields) {
+
+		static Posting of(int[] sortedIds, int fields, int maxId) {
+			if (!isDense(sortedIds.length, maxId)) {
+				return new Posting(sortedIds, null, sortedIds.length, fields);
+			}
+			long[] bits = new long[bitsetLength(maxId)];
+			for (int id : sortedIds) {
+				bits[id >> 6] |= 1L << id;
+			}
+			return new Posting(null, bits, sortedIds.length, fields);
+		}
+
+		// An int per id costs more than a bit per possible id once more than 1 in 32 ids is present.
+		private static boolean isDense(int size, int maxId) {
+			return size > 64 && size > maxId >> 5;
+		}
+
+		boolean contains(int id) {
+			if (bits != null) {
+				return id >> 6 < bits.length && (bits[id >> 6] & 1L << id) != 0;
+			}
+			return Arrays.binarySearch(ids, id) >= 0;
+		}
+
+		Posting with(int id, int field, int maxId) {
+			int newFields = fields | 1 << field;
+			if (contains(id)) {
+				return new Posting(ids, bits, size, newFields);
+			}
+			if (bits != null) {
+				long[] newBits = Arrays.copyOf(bits, Math.max(bits.length, bitsetLength(id)));
+				newBits[id >> 6] |= 1L << id;
+				return new Posting(null, newBits, size + 1, newFields);
+			}
+			int position = -Arrays.binarySearch(ids, id) - 1;
+			int[] newIds = new int[ids.length + 1];
+			System.arraycopy(ids, 0, newIds, 0, position);
+			newIds[position] = id;
+			System.arraycopy(ids, position, newIds, position + 1, ids.length - position);
+			return of(newIds, newFields, maxId);
+		}
+
+		// Returns null, which removes the word, once no game contains it.
+		Posting without(int id, int maxId) {
+			if (!contains(id)) {
+				return this;
+			}
+			if (size == 1) {
+				return null;
+			}
+			if (bits != null) {
+				long[] newBits = bits.clone();
+				newBits[id >> 6] &= ~(1L << id);
+				Posting posting = new Posting(null, newBits, size - 1, fields);
+				// Only turns back into an array well below the threshold, so a word near it does not flip every write.
+				return posting.size > maxId >> 6 ? posting : new Posting(posting.toIds(), null, posting.size, fields);
+			}
+			int position = Arrays.binarySearch(ids, id);
+			int[] newIds = new int[ids.length - 1];
+			System.arraycopy(ids, 0, newIds, 0, position);
+			System.arraycopy(ids, position + 1, newIds, position, ids.length - position - 1);
+			return new Posting(newIds, null, newIds.length, fields);
+		}
+
+		// Ids beyond the end of the target were indexed after the query started and are left out.
+		void orInto(long[] target) {
+			if (bits != null) {
+				int length = Math.min(bits.length, target.length);
+				for (int word = 0; word < length; word++) {
+					target[word] |= bits[word];
+				}
+				return;
+			}
+			for (int id : ids) {
+				if (id >> 6 < target.length) {
+					target[id >> 6] |= 1L << id;
+				}
+			}
+		}
+
+		private int[] toIds() {
+			int[] sortedIds = new int[size];
+			int i = 0;
+			for (int word = 0; word < bits.length; word++) {
+				long remaining = bits[word];
+				while (remaining != 0) {
+					sortedIds[i++] = (word << 6) + Long.numberOfTrailingZeros(remaining);
+					remaining &= remaining - 1;
+				}
+			}
+			return sortedIds;
+		}
+
+	}
+
+	// A growable id list used while rebuilding, when copying a posting on every added id would be too slow.
+	private static final class IdList {
+
+		private int[] ids = new int[4];
+
+		private int size;
+
+		private int fields;
+
+		void add(int id, int field) {
+			fields |= 1 << field;
+			// A word found in two fields of the same game is added twice in a row.
+			if (size > 0 && ids[size - 1] == id) {
+				return;
+			}
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			ids[size++] = id;
+		}
+
+		Posting toPosting(int maxId) {
+			int[] sortedIds = Arrays.copyOf(ids, size);
+			Arrays.sort(sortedIds);
+			return Posting.of(sortedIds, fields, maxId);
+		}
+
+	}
+
+	private record ScoredGame(VideoGame game, int score) {
+	}
+
+	private record IndexedGame(VideoGame videoGame, String[][] fieldWords) {
+
+		// Copies the video game, so that results do not change if the caller modifies its own instance later.
+		static IndexedGame of(VideoGame videoGame) {
+			VideoGame copy = new VideoGame(videoGame.getTitle(), videoGame.getGenre(), videoGame.getDeveloper(),
+					videoGame.getPrice());
+			copy.setId(videoGame.getId());
+			copy.setVersion(videoGame.getVersion());
+			copy.setLastModified(videoGame.getLastModified());
+			String[][] fieldWords = new String[3][];
+			fieldWords[TITLE] = tokenize(videoGame.getTitle());
+			fieldWords[DEVELOPER] = tokenize(videoGame.getDeveloper());
+			fieldWords[GENRE] = tokenize(videoGame.getGenre());
+			return new IndexedGame(copy, fieldWords);
+		}
+
+		void forEachWord(WordConsumer consumer) {
+			for (int field = TITLE; field <= GENRE; field++) {
+				for (String word : fieldWords[field]) {
+					consumer.accept(word, field);
+				}
+			}
+		}
+
+		// Each term scores for the best field it starts a word in. Returns 0 unless every term matches somewhere.
+		int score(String[] terms) {
+			int total = 0;
+			for (String term : terms) {
+				int termScore = 0;
+				for (int field = TITLE; field <= GENRE; field++) {
+					for (String word : fieldWords[field]) {
+						if (word.startsWith(term)) {
+							termScore = Math.max(termScore, FIELD_WEIGHTS[field] * (word.length() == term.length() ? 2 : 1));
+						}
+					}
+				}
+				if (termScore == 0) {
+					return 0;
+				}
+				total += termScore;
+			}
+			return total;
+		}
+
+	}
+
+	@FunctionalInterface
+	private interface WordConsumer {
+		void accept(String word, int field);
+	}
+
+}
@@ -0,0 +1,115 @@
+package com.rtasalem.videoGameShopApi.service;
+
+import java.time.Instant;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import com.rtasalem.videoGameShopApi.cache.VideoGameCache;
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.exception.PreconditionFailedException;
+import com.rtasalem.videoGameShopApi.exception.ResourceNotFoundException;
+import com.rtasalem.videoGameShopApi.exception.VideoGameTitleExistsException;
+import com.rtasalem.videoGameShopApi.model.PagedResponse;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.model.VideoGameFilter;
+import com.rtasalem.videoGameShopApi.repository.ReactiveVideoGameRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// The non-blocking counterpart of VideoGameService. It signals the same exceptions, with the same messages, so that
+// VideoGameControllerAdvice answers both stacks identically, and publishes the same VideoGameChangedEvent for every
+// write, so that the cache and the in-memory views such as the search index stay in sync on both stacks.
+@Service
+@Profile("reactive")
+public class ReactiveVideoGameService {
+	
+	private final ReactiveVideoGameRepository videoGameRepo;
+	
+	private final VideoGameCache videoGameCache;
+	
+	private final ApplicationEventPublisher eventPublisher;
+
+	public ReactiveVideoGameService(ReactiveVideoGameRepository videoGameRepo, VideoGameCache videoGameCache,
+			ApplicationEventPublisher eventPublisher) {
+		super();
+		this.videoGameRepo = videoGameRepo;
+		this.videoGameCache = videoGameCache;
+		this.eventPublisher = eventPublisher;
+	}
+	
+	// Reads the page and the total count at the same time, and answers in the same shape as VideoGameController.
+	public Mono<PagedResponse<VideoGame>> findAllGames(VideoGameFilter filter, Pageable pageable) {
+		return Mono.zip(videoGameRepo.findPage(filter, pageable).collectList(), videoGameRepo.count(filter))
+				.map(pageAndTotal -> PagedResponse.from(new PageImpl<>(pageAndTotal.getT1(), pageable, pageAndTotal.getT2())));
+	}
+	
+	public Flux<VideoGame> streamAllGames() {
+		return videoGameRepo.findAllOrderedById();
+	}
+	
+	public Mono<VideoGame> findGameById(int id) {
+		return videoGameRepo.findById(id)
+				.switchIfEmpty(Mono.error(() -> ResourceNotFoundException.forId(id)));
+	}
+	
+	public Mono<VideoGame> createNewGame(VideoGame videoGame) {
+		videoGame.setLastModified(Instant.now());
+		return videoGameRepo.insert(videoGame)
+				.onErrorMap(DataIntegrityViolationException.class, ex -> translateTitleConflict(ex, videoGame.getTitle()))
+				.doOnNext(savedGame -> publish(VideoGameChangedEvent.created(savedGame)));
+	}
+	
+	public Mono<VideoGame> editExistingGame(VideoGame videoGame, int id, Long expectedVersion) {
+		Instant lastModified = Instant.now();
+		return videoGameRepo.updateGame(id, videoGame, expectedVersion, lastModified)
+				.onErrorMap(DataIntegrityViolationException.class, ex -> translateTitleConflict(ex, videoGame.getTitle()))
+				.flatMap(updated -> {
+					if (updated > 0) {
+						videoGame.setId(id);
+						videoGame.setVersion(expectedVersion == null ? null : expectedVersion + 1);
+						videoGame.setLastModified(lastModified);
+						publish(VideoGameChangedEvent.updated(videoGame));
+						return Mono.just(videoGame);
+					}
+					// As in VideoGameService, only a failed conditional update needs a second query.
+					Mono<Boolean> exists = expectedVersion == null ? Mono.just(false) : videoGameRepo.existsById(id);
+					return exists.flatMap(found -> Mono.error(found
+							? PreconditionFailedException.modifiedSince(id, expectedVersion)
+							: ResourceNotFoundException.forId(id)));
+				});
+	}
+	
+	public Mono<Void> removeGameById(int id) {
+		return videoGameRepo.deleteGameById(id)
+				.flatMap(deleted -> {
+					if (deleted == 0) {
+						return Mono.error(ResourceNotFoundException.forId(id));
+					}
+					publish(VideoGameChangedEvent.deleted(id));
+					return Mono.empty();
+				});
+	}
+	
+	// R2DBC commits each statement on its own, so a write that has completed has committed. The listeners only touch
+	// memory, so they are called on the thread that completed the write.
+	private void publish(VideoGameChangedEvent event) {
+		videoGameCache.invalidate(event.id());
+		eventPublisher.publishEvent(event);
+	}
+	
+	// R2DBC reports the constraint only in the driver message, so the name is matched there.
+	private Throwable translateTitleConflict(DataIntegrityViolationException ex, String title) {
+		String message = ex.getMessage();
+		if (message != null && message.toUpperCase().contains(VideoGame.TITLE_CONSTRAINT)) {
+			return VideoGameTitleExistsException.forTitle(title);
+		}
+		return ex;
+	}
+
+}
@@ -1,78 +1,479 @@
 package com.rtasalem.videoGameShopApi.service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.rtasalem.videoGameShopApi.cache.CatalogueVersionHolder;
+import com.rtasalem.videoGameShopApi.cache.SingleFlight;
+import com.rtasalem.videoGameShopApi.cache.VideoGameCache;
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.exception.BatchSizeExceededException;
+import com.rtasalem.videoGameShopApi.exception.PreconditionFailedException;
 import com.rtasalem.videoGameShopApi.exception.ResourceNotFoundException;
 import com.rtasalem.videoGameShopApi.exception.VideoGameTitleExistsException;
+import com.rtasalem.videoGameShopApi.inventory.StockReservations;
+import com.rtasalem.videoGameShopApi.model.BatchItemResult;
+import com.rtasalem.videoGameShopApi.model.CatalogueVersion;
+import com.rtasalem.videoGameShopApi.model.FacetCounts;
+import com.rtasalem.videoGameShopApi.model.MultiGetResponse;
 import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.model.VideoGameFilter;
+import com.rtasalem.videoGameShopApi.pricing.PriceUpdatePipeline;
 import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+import com.rtasalem.videoGameShopApi.repository.VideoGameSpecifications;
+import com.rtasalem.videoGameShopApi.search.VideoGameFacets;
+import com.rtasalem.videoGameShopApi.search.VideoGameSearchIndex;
 
+import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+// Every public method is timed and traced as videogames.service, tagged with its class and method name.
 @Service
+@Observed(name = "videogames.service")
 public class VideoGameService {
 	
 	// Creating an instance of the VideoGameDAO class to access methods from the repository layer.
 	private final VideoGameDAO videoGameRepo;
 	
+	// Used to detach streamed entities so the persistence context does not grow with the size of an export.
+	private final EntityManager entityManager;
+	
+	// Batch payloads are validated item by item so that one bad game does not reject the whole request.
+	private final Validator validator;
+	
+	// Serves findGameById() from memory and is invalidated by every write below.
+	private final VideoGameCache videoGameCache;
+	
+	// Every write below publishes a VideoGameChangedEvent, which keeps in-memory views such as the search index in sync.
+	private final ApplicationEventPublisher eventPublisher;
+	
+	private final VideoGameSearchIndex searchIndex;
+	
+	private final VideoGameFacets facets;
+	
+	// Listings are versioned from memory rather than by aggregating the table on every request.
+	private final CatalogueVersionHolder catalogueVersion;
+	
+	// Price changes are written in batches, and laid over findGameById() until they are.
+	private final PriceUpdatePipeline priceUpdates;
+	
+	// Purchases are taken from stock leased into in-memory counters, and written in batches.
+	private final StockReservations stockReservations;
+	
+	// Concurrent cache misses for the same id and write generation, or requests for the same listing page of the same
+	// catalogue version, share a single query.
+	private final SingleFlight<GameKey, Optional<VideoGame>> gameLoads = new SingleFlight<>();
+	
+	private final SingleFlight<ListingKey, Page<VideoGame>> listingLoads = new SingleFlight<>();
+	
+	private record GameKey(int id, long writeGeneration) {
+	}
+	
+	private record ListingKey(VideoGameFilter filter, Pageable pageable, CatalogueVersion catalogueVersion) {
+	}
 
 	// The repository layer is injected into the service layer via constructor injection.
-	public VideoGameService(VideoGameDAO videoGameRepo) {
+	public VideoGameService(VideoGameDAO videoGameRepo, EntityManager entityManager, Validator validator,
+			VideoGameCache videoGameCache, ApplicationEventPublisher eventPublisher, VideoGameSearchIndex searchIndex,
+			VideoGameFacets facets, CatalogueVersionHolder catalogueVersion, PriceUpdatePipeline priceUpdates,
+			StockReservations stockReservations) {
 		super();
 		this.videoGameRepo = videoGameRepo;
+		this.entityManager = entityManager;
+		this.validator = validator;
+		this.videoGameCache = videoGameCache;
+		this.eventPublisher = eventPublisher;
+		this.searchIndex = searchIndex;
+		this.facets = facets;
+		this.catalogueVersion = catalogueVersion;
+		this.priceUpdates = priceUpdates;
+		this.stockReservations = stockReservations;
 	}
 	
-	private final static Logger log = LoggerFactory.getLogger(VideoGameService.class);
+	public static final int MAX_BATCH_SIZE = 1000;
+	
+	// Multi-get ids travel in the query string, so far fewer are accepted than in a batch body.
+	public static final int MAX_MULTI_GET_SIZE = 100;
 
-	public List<VideoGame> findAllGames() {
-		log.info("Entering findAllGames()");
-		log.info("Exiting findAllGames()");
-		return videoGameRepo.findAll();
+	// The filter and paging are pushed down into SQL so that only the requested page is ever loaded. The catalogue
+	// version is the one the caller's ETag was computed from: a request only shares a load started for the same
+	// version, so a load that began before a write can never be returned with the ETag issued after it.
+	public Page<VideoGame> findAllGames(VideoGameFilter filter, Pageable pageable, CatalogueVersion catalogueVersion) {
+		return listingLoads.execute(new ListingKey(filter, pageable, catalogueVersion),
+				() -> videoGameRepo.findAll(VideoGameSpecifications.matching(filter), pageable));
+	}
+	
+	public CatalogueVersion findCatalogueVersion() {
+		return catalogueVersion.current();
+	}
+	
+	public Slice<VideoGame> findGamesAfter(int afterId, int limit) {
+		return videoGameRepo.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.ofSize(limit));
+	}
+	
+	// Hands every video game to the consumer one at a time, so memory use stays flat whatever the size of the table.
+	@Transactional(readOnly = true)
+	public long exportAllGames(Consumer<VideoGame> consumer) {
+		long exported = 0;
+		try (Stream<VideoGame> videoGames = videoGameRepo.streamAllOrderedById()) {
+			for (VideoGame videoGame : (Iterable<VideoGame>) videoGames::iterator) {
+				consumer.accept(videoGame);
+				entityManager.detach(videoGame);
+				exported++;
+			}
+		}
+		return exported;
+	}
+	
+	// Answered entirely from the search index, without touching the database.
+	public List<VideoGame> searchGames(String query, int limit) {
+		return searchIndex.search(query, limit);
+	}
+	
+	// Read from counters that every write keeps up to date, so the table is never scanned.
+	public FacetCounts findFacetCounts() {
+		return facets.counts();
 	}
 	
 	public VideoGame findGameById(int id) {
-		log.info("Entering findGameById()");
-		Optional<VideoGame> videoGameOpt = videoGameRepo.findById(id);
+		VideoGame cachedGame = videoGameCache.getIfPresent(id);
+		if (cachedGame != null) {
+			return priceUpdates.overlay(cachedGame);
+		}
+		if (videoGameCache.isKnownMissing(id)) {
+			throw ResourceNotFoundException.forId(id);
+		}
+		// Read before the query, so that a write committed while it runs keeps what it loaded out of the cache. A caller
+		// arriving after the write sees a new generation, so it never shares a load started before it either.
+		long writeGeneration = videoGameCache.writeGeneration(id);
+		Optional<VideoGame> videoGameOpt = gameLoads.execute(new GameKey(id, writeGeneration), () -> {
+			Optional<VideoGame> loadedGame = videoGameRepo.findById(id);
+			if (loadedGame.isPresent()) {
+				videoGameCache.putIfUnchanged(loadedGame.get(), writeGeneration);
+			} else {
+				videoGameCache.putMissingIfUnchanged(id, writeGeneration);
+			}
+			return loadedGame;
+		});
 		if (videoGameOpt.isEmpty()) {
-			log.info("Exiting findGameById()");
-			throw new ResourceNotFoundException("A video game with an ID of " + id + " does not exist.");
+			throw ResourceNotFoundException.forId(id);
+		}
+		return priceUpdates.overlay(videoGameOpt.get());
+	}
+	
+	// Answers what it can from the cache, including ids known not to exist, and loads the rest with a single IN query.
+	public MultiGetResponse findGamesById(Collection<Integer> ids) {
+		Set<Integer> requestedIds = new LinkedHashSet<>(ids);
+		checkBatchSize(requestedIds.size(), MAX_MULTI_GET_SIZE);
+		Map<Integer, VideoGame> foundGames = new HashMap<>();
+		// Each id's write generation is read before the query, as in findGameById(), so that an id written while the
+		// query runs is not cached as it was before the write.
+		Map<Integer, Long> idsToLoad = new HashMap<>();
+		for (Integer id : requestedIds) {
+			VideoGame cachedGame = videoGameCache.getIfPresent(id);
+			if (cachedGame != null) {
+				foundGames.put(id, cachedGame);
+			} else if (!videoGameCache.isKnownMissing(id)) {
+				idsToLoad.put(id, videoGameCache.writeGeneration(id));
+			}
+		}
+		if (!idsToLoad.isEmpty()) {
+			for (VideoGame videoGame : videoGameRepo.findAllById(idsToLoad.keySet())) {
+				videoGameCache.putIfUnchanged(videoGame, idsToLoad.get(videoGame.getId()));
+				foundGames.put(videoGame.getId(), videoGame);
+			}
 		}
-		log.info("Exiting findGameById()");
-		return videoGameOpt.get();
+		List<VideoGame> videoGames = new ArrayList<>(foundGames.size());
+		List<Integer> missingIds = new ArrayList<>();
+		for (Integer id : requestedIds) {
+			VideoGame videoGame = foundGames.get(id);
+			if (videoGame != null) {
+				videoGames.add(priceUpdates.overlay(videoGame));
+			} else {
+				if (idsToLoad.containsKey(id)) {
+					videoGameCache.putMissingIfUnchanged(id, idsToLoad.get(id));
+				}
+				missingIds.add(id);
+			}
+		}
+		return new MultiGetResponse(videoGames, missingIds);
 	}
 	
+	// Only checks that the game exists, usually from the cache, before queueing the new price. Returns the game as
+	// findGameById() will now return it.
+	public VideoGame updateGamePrice(int id, double price) {
+		VideoGame videoGame = findGameById(id);
+		priceUpdates.submit(id, price);
+		return priceUpdates.overlay(videoGame);
+	}
+	
+	// Takes the copies from the stock this instance has leased, without touching the database unless it needs to lease
+	// more.
+	public void purchaseGame(int id, int quantity) {
+		stockReservations.purchase(id, quantity);
+	}
+	
+	public void restockGame(int id, int quantity) {
+		stockReservations.restock(id, quantity);
+	}
+	
+	// A single INSERT: a duplicate title is rejected by the unique constraint rather than checked for beforehand.
 	public VideoGame createNewGame(VideoGame videoGame) {
-		log.info("Entering createNewGame()");
-		if (videoGameRepo.existsByTitle(videoGame.getTitle())) {
-			log.info("Exiting createNewGame()");
-			throw new VideoGameTitleExistsException("A video game with the title of " + videoGame.getTitle() + " already exists.");
+		VideoGame savedGame;
+		try {
+			savedGame = videoGameRepo.saveAndFlush(videoGame);
+		} catch (DataIntegrityViolationException ex) {
+			throw translateTitleConflict(ex, VideoGameTitleExistsException.forTitle(videoGame.getTitle()));
 		}
-		log.info("Exiting createNewGame()");
-		return videoGameRepo.save(videoGame);
+		// The new id may have been looked up, and cached as missing, before it was created.
+		videoGameCache.invalidate(savedGame.getId());
+		eventPublisher.publishEvent(VideoGameChangedEvent.created(savedGame));
+		return savedGame;
 	}
 
-	public VideoGame editExistingGame(VideoGame videoGame, int id) {
-		log.info("Entering editExistingGame()");
-		if (!videoGameRepo.existsById(id)) {
-			log.info("Exiting editExistingGame()");
-			throw new ResourceNotFoundException("A video game with an ID of " + id + " does not exist.");
+	// A single UPDATE whose affected-row count tells whether the game exists. The expected version comes from an
+	// If-Match header and may be null, in which case the new version is not known without another query.
+	public VideoGame editExistingGame(VideoGame videoGame, int id, Long expectedVersion) {
+		// The replacement carries its own price, which a queued price update must not overwrite later.
+		priceUpdates.discard(id);
+		Instant lastModified = Instant.now();
+		int updated;
+		try {
+			updated = videoGameRepo.updateGame(id, videoGame, expectedVersion, lastModified);
+		} catch (DataIntegrityViolationException ex) {
+			throw translateTitleConflict(ex, VideoGameTitleExistsException.forTitle(videoGame.getTitle()));
 		}
+		if (updated == 0) {
+			// Only a failed conditional update needs a second query, to tell a stale version from a missing game.
+			if (expectedVersion != null && videoGameRepo.existsById(id)) {
+				throw PreconditionFailedException.modifiedSince(id, expectedVersion);
+			}
+			throw ResourceNotFoundException.forId(id);
+		}
+		videoGameCache.invalidate(id);
 		videoGame.setId(id);
-		log.info("Exiting editExistngGame()");
-		return videoGameRepo.save(videoGame);
+		videoGame.setVersion(expectedVersion == null ? null : expectedVersion + 1);
+		videoGame.setLastModified(lastModified);
+		eventPublisher.publishEvent(VideoGameChangedEvent.updated(videoGame));
+		return videoGame;
 	}
 
+	// A single DELETE whose affected-row count tells whether the game existed.
 	public void removeGameById(int id) {
-		log.info("Entering removeGameById()");
-		if (!videoGameRepo.existsById(id) ) {
-			log.info("Exiting removeGameById()");
-			throw new ResourceNotFoundException("A video game with an ID of " + id + " does not exist.");
+		priceUpdates.discard(id);
+		if (videoGameRepo.deleteGameById(id) == 0) {
+			throw ResourceNotFoundException.forId(id);
+		}
+		stockReservations.discard(id);
+		videoGameCache.invalidate(id);
+		eventPublisher.publishEvent(VideoGameChangedEvent.deleted(id));
+	}
+	
+	// Validates the whole payload up front and checks every title against the database with a single IN query.
+	// The remaining games are inserted in one transaction, which Hibernate sends as JDBC batches.
+	@Transactional
+	public List<BatchItemResult> createNewGames(List<VideoGame> videoGames) {
+		checkBatchSize(videoGames.size());
+		BatchItemResult[] results = new BatchItemResult[videoGames.size()];
+		List<Integer> validIndexes = new ArrayList<>();
+		for (int i = 0; i < videoGames.size(); i++) {
+			String violations = validate(videoGames.get(i));
+			if (violations != null) {
+				results[i] = new BatchItemResult(i, null, HttpStatus.BAD_REQUEST.value(), violations);
+			} else {
+				validIndexes.add(i);
+			}
+		}
+		Set<String> takenTitles = new HashSet<>(videoGameRepo.findTitlesIn(
+				validIndexes.stream().map(i -> videoGames.get(i).getTitle()).collect(Collectors.toSet())));
+		List<VideoGame> newGames = new ArrayList<>();
+		List<Integer> newGameIndexes = new ArrayList<>();
+		for (int i : validIndexes) {
+			VideoGame videoGame = videoGames.get(i);
+			// Adding the title also rejects duplicates within the payload itself.
+			if (!takenTitles.add(videoGame.getTitle())) {
+				results[i] = new BatchItemResult(i, null, HttpStatus.CONFLICT.value(),
+						VideoGameTitleExistsException.messageFor(videoGame.getTitle()));
+				continue;
+			}
+			videoGame.setId(0);
+			newGames.add(videoGame);
+			newGameIndexes.add(i);
+		}
+		// Flushed here rather than at commit, so that a title taken by a concurrent request is answered with 409.
+		try {
+			videoGameRepo.saveAllAndFlush(newGames);
+		} catch (DataIntegrityViolationException ex) {
+			throw translateTitleConflict(ex, VideoGameTitleExistsException.inBatch());
+		}
+		videoGameCache.invalidateAfterCommit(newGames.stream().map(VideoGame::getId).toList());
+		for (int j = 0; j < newGames.size(); j++) {
+			int i = newGameIndexes.get(j);
+			results[i] = new BatchItemResult(i, newGames.get(j).getId(), HttpStatus.CREATED.value(), null);
+			eventPublisher.publishEvent(VideoGameChangedEvent.created(newGames.get(j)));
+		}
+		return Arrays.asList(results);
+	}
+	
+	// Loads every targeted game with a single IN query and copies the new values onto the managed entities, so dirty
+	// checking sends them as batched UPDATE statements. Every new title is checked against the database with a single IN
+	// query first, as in createNewGames(). A title is taken even if the game holding it is renamed in the same batch,
+	// as the UPDATEs would reach the unique constraint one at a time.
+	@Transactional
+	public List<BatchItemResult> editExistingGames(List<VideoGame> videoGames) {
+		checkBatchSize(videoGames.size());
+		BatchItemResult[] results = new BatchItemResult[videoGames.size()];
+		Set<Integer> ids = new HashSet<>();
+		List<Integer> validIndexes = new ArrayList<>();
+		for (int i = 0; i < videoGames.size(); i++) {
+			VideoGame videoGame = videoGames.get(i);
+			String violations = validate(videoGame);
+			if (violations != null) {
+				results[i] = new BatchItemResult(i, null, HttpStatus.BAD_REQUEST.value(), violations);
+			} else if (videoGame.getId() <= 0) {
+				results[i] = new BatchItemResult(i, null, HttpStatus.BAD_REQUEST.value(), "Video game id must be supplied.");
+			} else if (!ids.add(videoGame.getId())) {
+				results[i] = new BatchItemResult(i, videoGame.getId(), HttpStatus.BAD_REQUEST.value(),
+						"A video game with an ID of " + videoGame.getId() + " appears more than once in the batch.");
+			} else {
+				validIndexes.add(i);
+			}
+		}
+		ids.forEach(priceUpdates::discard);
+		Map<Integer, VideoGame> existingGames = videoGameRepo.findAllById(ids).stream()
+				.collect(Collectors.toMap(VideoGame::getId, Function.identity()));
+		// Queried before any entity is changed, so that Hibernate has nothing to flush ahead of the query.
+		Set<String> newTitles = new HashSet<>();
+		for (int i : validIndexes) {
+			VideoGame videoGame = videoGames.get(i);
+			VideoGame existingGame = existingGames.get(videoGame.getId());
+			if (existingGame != null && !videoGame.getTitle().equals(existingGame.getTitle())) {
+				newTitles.add(videoGame.getTitle());
+			}
+		}
+		Set<String> takenTitles = newTitles.isEmpty() ? new HashSet<>() : new HashSet<>(videoGameRepo.findTitlesIn(newTitles));
+		Set<Integer> updatedIds = new HashSet<>();
+		for (int i : validIndexes) {
+			VideoGame videoGame = videoGames.get(i);
+			VideoGame existingGame = existingGames.get(videoGame.getId());
+			if (existingGame == null) {
+				results[i] = new BatchItemResult(i, videoGame.getId(), HttpStatus.NOT_FOUND.value(),
+						"A video game with an ID of " + videoGame.getId() + " does not exist.");
+				continue;
+			}
+			// Adding the title also rejects two games renamed to the same title within the payload.
+			if (!videoGame.getTitle().equals(existingGame.getTitle()) && !takenTitles.add(videoGame.getTitle())) {
+				results[i] = new BatchItemResult(i, videoGame.getId(), HttpStatus.CONFLICT.value(),
+						VideoGameTitleExistsException.messageFor(videoGame.getTitle()));
+				continue;
+			}
+			existingGame.setTitle(videoGame.getTitle());
+			existingGame.setGenre(videoGame.getGenre());
+			existingGame.setDeveloper(videoGame.getDeveloper());
+			existingGame.setPrice(videoGame.getPrice());
+			updatedIds.add(existingGame.getId());
+			results[i] = new BatchItemResult(i, videoGame.getId(), HttpStatus.OK.value(), null);
+			// Listeners run after the commit, by which time the flush has also raised the version.
+			eventPublisher.publishEvent(VideoGameChangedEvent.updated(existingGame));
+		}
+		// Flushed here rather than at commit, so that a title taken by a concurrent request since it was checked is
+		// answered with 409 like a single update.
+		try {
+			videoGameRepo.flush();
+		} catch (DataIntegrityViolationException ex) {
+			throw translateTitleConflict(ex, VideoGameTitleExistsException.inBatch());
+		}
+		videoGameCache.invalidateAfterCommit(updatedIds);
+		return Arrays.asList(results);
+	}
+	
+	// Finds which ids exist with a single IN query and removes them all with a single DELETE statement.
+	@Transactional
+	public List<BatchItemResult> removeGamesById(List<Integer> ids) {
+		checkBatchSize(ids.size());
+		ids.forEach(priceUpdates::discard);
+		Set<Integer> existingIds = new HashSet<>(videoGameRepo.findIdsIn(new HashSet<>(ids)));
+		if (!existingIds.isEmpty()) {
+			videoGameRepo.deleteAllByIdInBatch(existingIds);
+			existingIds.forEach(stockReservations::discard);
+			videoGameCache.invalidateAfterCommit(existingIds);
+			existingIds.forEach(id -> eventPublisher.publishEvent(VideoGameChangedEvent.deleted(id)));
+		}
+		List<BatchItemResult> results = new ArrayList<>(ids.size());
+		Set<Integer> reportedIds = new HashSet<>();
+		for (int i = 0; i < ids.size(); i++) {
+			Integer id = ids.get(i);
+			// A repeated id in the same batch is reported as not found, as it was already removed.
+			if (existingIds.contains(id) && reportedIds.add(id)) {
+				results.add(new BatchItemResult(i, id, HttpStatus.OK.value(), null));
+			} else {
+				results.add(new BatchItemResult(i, id, HttpStatus.NOT_FOUND.value(),
+						"A video game with an ID of " + id + " does not exist."));
+			}
+		}
+		return results;
+	}
+	
+	// Returns the exception to throw: the given conflict if the unique title constraint was violated, otherwise the
+	// original exception.
+	private RuntimeException translateTitleConflict(DataIntegrityViolationException ex, VideoGameTitleExistsException conflict) {
+		Throwable cause = ex;
+		while (cause != null) {
+			if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+					&& violation.getConstraintName().toUpperCase().contains(VideoGame.TITLE_CONSTRAINT)) {
+				return conflict;
+			}
+			cause = cause.getCause();
+		}
+		return ex;
+	}
+	
+	private void checkBatchSize(int size) {
+		checkBatchSize(size, MAX_BATCH_SIZE);
+	}
+	
+	private void checkBatchSize(int size, int maxSize) {
+		if (size > maxSize) {
+			throw BatchSizeExceededException.forLimit(maxSize);
+		}
+	}
+	
+	// Returns the validation messages in the same comma separated format as a rejected single request, or null if valid.
+	private String validate(VideoGame videoGame) {
+		if (videoGame == null) {
+			return "Video game must not be null.";
+		}
+		Set<ConstraintViolation<VideoGame>> violations = validator.validate(videoGame);
+		if (violations.isEmpty()) {
+			return null;
 		}
-		log.info("Exiting removeGameById()");
-		videoGameRepo.deleteById(id);
+		return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
 	}
 
 }
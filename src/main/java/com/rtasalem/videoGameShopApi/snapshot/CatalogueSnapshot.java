@@ -0,0 +1,243 @@
+package com.rtasalem.videoGameShopApi.snapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.rtasalem.videoGameShopApi.model.VideoGameFilter;
+
+/**
+ * An immutable copy of the whole catalogue laid out column by column: one array per field, indexed by the position
+ * of the video game in id order. Genres and developers are dictionary encoded, so each distinct name is held once
+ * and every game only stores its int code. Each game is also held as the JSON it is sent as, serialised once when
+ * the snapshot is built, so reading it allocates nothing.
+ *
+ * Only the listings the controller sorts by id or by price can be answered from here, which are the ones that
+ * storefronts ask for.
+ */
+public final class CatalogueSnapshot {
+
+	// Stand in for a video game that has no version or no last modified time.
+	public static final long NO_VERSION = -1;
+
+	public static final long NO_TIMESTAMP = -1;
+
+	private static final CatalogueSnapshot EMPTY = new CatalogueSnapshot(new int[0], new double[0], new int[0], new int[0],
+			new long[0], new long[0], new byte[0][], new Dictionary(), new Dictionary());
+
+	private final int[] ids;
+
+	private final double[] prices;
+
+	private final int[] genres;
+
+	private final int[] developers;
+
+	private final long[] versions;
+
+	private final long[] lastModified;
+
+	private final byte[][] json;
+
+	// Positions ordered by price and then id, in both directions, as ties are always broken on the lowest id.
+	private final int[] byPriceAscending;
+
+	private final int[] byPriceDescending;
+
+	private final Dictionary genreNames;
+
+	private final Dictionary developerNames;
+
+	private CatalogueSnapshot(int[] ids, double[] prices, int[] genres, int[] developers, long[] versions,
+			long[] lastModified, byte[][] json, Dictionary genreNames, Dictionary developerNames) {
+		this.ids = ids;
+		this.prices = prices;
+		this.genres = genres;
+		this.developers = developers;
+		this.versions = versions;
+		this.lastModified = lastModified;
+		this.json = json;
+		this.genreNames = genreNames;
+		this.developerNames = developerNames;
+		this.byPriceAscending = IntStream.range(0, ids.length).boxed()
+				.sorted(Comparator.<Integer>comparingDouble(i -> prices[i]).thenComparingInt(i -> ids[i]))
+				.mapToInt(Integer::intValue).toArray();
+		this.byPriceDescending = IntStream.range(0, ids.length).boxed()
+				.sorted(Comparator.<Integer>comparingDouble(i -> -prices[i]).thenComparingInt(i -> ids[i]))
+				.mapToInt(Integer::intValue).toArray();
+	}
+
+	public static CatalogueSnapshot empty() {
+		return EMPTY;
+	}
+
+	public static CatalogueSnapshot of(Collection<Game> games) {
+		return EMPTY.withChanges(games, Set.of());
+	}
+
+	// Returns a new snapshot in which the given games have been added or replaced and the removed ids are gone. The
+	// columns are copied, but the JSON of every unchanged game is shared with this snapshot.
+	public CatalogueSnapshot withChanges(Collection<Game> changedGames, Collection<Integer> removedIds) {
+		Map<Integer, Game> changes = new HashMap<>();
+		changedGames.forEach(game -> changes.put(game.id(), game));
+		List<Integer> positions = new ArrayList<>(ids.length);
+		for (int i = 0; i < ids.length; i++) {
+			if (!changes.containsKey(ids[i]) && !removedIds.contains(ids[i])) {
+				positions.add(i);
+			}
+		}
+		List<Game> additions = new ArrayList<>(changes.values());
+		additions.sort(Comparator.comparingInt(Game::id));
+		int size = positions.size() + additions.size();
+		int[] newIds = new int[size];
+		double[] newPrices = new double[size];
+		int[] newGenres = new int[size];
+		int[] newDevelopers = new int[size];
+		long[] newVersions = new long[size];
+		long[] newLastModified = new long[size];
+		byte[][] newJson = new byte[size][];
+		Dictionary newGenreNames = genreNames.copy();
+		Dictionary newDeveloperNames = developerNames.copy();
+		// Merges the kept games, which are in id order already, with the sorted changes.
+		int kept = 0;
+		int added = 0;
+		for (int i = 0; i < size; i++) {
+			if (added == additions.size() || (kept < positions.size() && ids[positions.get(kept)] < additions.get(added).id())) {
+				int from = positions.get(kept++);
+				newIds[i] = ids[from];
+				newPrices[i] = prices[from];
+				newGenres[i] = genres[from];
+				newDevelopers[i] = developers[from];
+				newVersions[i] = versions[from];
+				newLastModified[i] = lastModified[from];
+				newJson[i] = json[from];
+			} else {
+				Game game = additions.get(added++);
+				newIds[i] = game.id();
+				newPrices[i] = game.price();
+				newGenres[i] = newGenreNames.encode(game.genre());
+				newDevelopers[i] = newDeveloperNames.encode(game.developer());
+				newVersions[i] = game.version();
+				newLastModified[i] = game.lastModified();
+				newJson[i] = game.json();
+			}
+		}
+		return new CatalogueSnapshot(newIds, newPrices, newGenres, newDevelopers, newVersions, newLastModified, newJson,
+				newGenreNames, newDeveloperNames);
+	}
+
+	public int size() {
+		return ids.length;
+	}
+
+	// Returns the position of the video game, or a negative number if it is not in the snapshot.
+	public int indexOf(int id) {
+		return Arrays.binarySearch(ids, id);
+	}
+
+	public int id(int index) {
+		return ids[index];
+	}
+
+	public long version(int index) {
+		return versions[index];
+	}
+
+	public long lastModified(int index) {
+		return lastModified[index];
+	}
+
+	public byte[] json(int index) {
+		return json[index];
+	}
+
+	// Finds the requested page of the games that match the filter, in the same order as the database query, or
+	// returns null if the page is sorted in a way the snapshot cannot answer.
+	public Listing list(VideoGameFilter filter, Pageable pageable) {
+		int[] order = null;
+		boolean descending = false;
+		Sort.Order sortOrder = pageable.getSort().iterator().next();
+		if (sortOrder.getProperty().equals("id")) {
+			descending = sortOrder.isDescending();
+		} else if (sortOrder.getProperty().equals("price")) {
+			order = sortOrder.isAscending() ? byPriceAscending : byPriceDescending;
+		} else {
+			return null;
+		}
+		int genre = filter.genre() == null ? -1 : genreNames.codeOf(filter.genre());
+		int developer = filter.developer() == null ? -1 : developerNames.codeOf(filter.developer());
+		long offset = pageable.getOffset();
+		int[] page = new int[pageable.getPageSize()];
+		int pageCount = 0;
+		long matched = 0;
+		// A name that no video game has matches nothing.
+		if (genre != Dictionary.UNKNOWN && developer != Dictionary.UNKNOWN) {
+			for (int n = 0; n < ids.length; n++) {
+				int i = order != null ? order[n] : descending ? ids.length - 1 - n : n;
+				if ((genre >= 0 && genres[i] != genre) || (developer >= 0 && developers[i] != developer)
+						|| (filter.minPrice() != null && prices[i] < filter.minPrice())
+						|| (filter.maxPrice() != null && prices[i] > filter.maxPrice())) {
+					continue;
+				}
+				if (matched >= offset && pageCount < page.length) {
+					page[pageCount++] = i;
+				}
+				matched++;
+			}
+		}
+		return new Listing(page, pageCount, matched);
+	}
+
+	/**
+	 * The state of one video game as it goes into a snapshot.
+	 */
+	public record Game(int id, double price, String genre, String developer, long version, long lastModified, byte[] json) {
+	}
+
+	/**
+	 * One page of a listing: the positions of the first count games in the page array, and how many games matched
+	 * the filter in total.
+	 */
+	public record Listing(int[] page, int count, long totalElements) {
+	}
+
+	// Maps each distinct name to a code. Codes are never reused, so a copy can be extended without touching the
+	// snapshots that share the original.
+	private static final class Dictionary {
+
+		static final int UNKNOWN = -2;
+
+		private final Map<String, Integer> codes;
+
+		Dictionary() {
+			this(new HashMap<>());
+		}
+
+		private Dictionary(Map<String, Integer> codes) {
+			this.codes = codes;
+		}
+
+		Dictionary copy() {
+			return new Dictionary(new HashMap<>(codes));
+		}
+
+		int encode(String name) {
+			return codes.computeIfAbsent(name, key -> codes.size());
+		}
+
+		int codeOf(String name) {
+			return codes.getOrDefault(name, UNKNOWN);
+		}
+
+	}
+
+}
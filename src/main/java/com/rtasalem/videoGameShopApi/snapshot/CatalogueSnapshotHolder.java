@@ -0,0 +1,186 @@
+package com.rtasalem.videoGameShopApi.snapshot;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Holds the current CatalogueSnapshot when videogames.snapshot.enabled=true. The snapshot is built from the database
+ * once the application has started, and replaced with a new one whenever VideoGameChangedEvent reports a committed
+ * write. Readers pick up the new snapshot with a single volatile read and never wait for a write.
+ *
+ * The written games are reloaded from the database rather than taken from the event, which does not always carry
+ * the new version. Reloads run on the application task executor, and writes that arrive while one is running are
+ * picked up together by the next, so a batch of writes costs one query and one new snapshot rather than one each.
+ * Until its reload has finished a written game is reported as stale, and readers should go to the database for it.
+ */
+@Component
+public class CatalogueSnapshotHolder {
+
+	private final static Logger log = LoggerFactory.getLogger(CatalogueSnapshotHolder.class);
+
+	private final boolean enabled;
+
+	// Null until the first snapshot has been built, and always when disabled.
+	private volatile CatalogueSnapshot snapshot;
+
+	// The ids written since the snapshot was built, each with the sequence number of its latest write.
+	private final Map<Integer, Long> staleIds = new ConcurrentHashMap<>();
+
+	private final AtomicLong writeSequence = new AtomicLong();
+
+	private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+	private final VideoGameDAO videoGameRepo;
+
+	private final EntityManager entityManager;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ObjectWriter writer;
+
+	private final Executor executor;
+
+	public CatalogueSnapshotHolder(@Value("${videogames.snapshot.enabled:false}") boolean enabled,
+			VideoGameDAO videoGameRepo, EntityManager entityManager, PlatformTransactionManager transactionManager,
+			ObjectMapper objectMapper,
+			@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
+		super();
+		this.enabled = enabled;
+		this.videoGameRepo = videoGameRepo;
+		this.entityManager = entityManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		this.writer = objectMapper.writerFor(VideoGame.class);
+		this.executor = executor;
+	}
+
+	// Returns the current snapshot, or null if the snapshot is disabled or has not been built yet.
+	public CatalogueSnapshot current() {
+		return snapshot;
+	}
+
+	// True when the video game has been written since the current snapshot was built.
+	public boolean isStale(int id) {
+		return staleIds.containsKey(id);
+	}
+
+	// True when any video game has been written since the current snapshot was built.
+	public boolean hasStaleGames() {
+		return !staleIds.isEmpty();
+	}
+
+	// Streams the whole table once, detaching each row so that memory only grows with the snapshot itself.
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void load() {
+		if (!enabled) {
+			return;
+		}
+		long started = System.nanoTime();
+		List<CatalogueSnapshot.Game> games = transactionTemplate.execute(status -> {
+			try (Stream<VideoGame> videoGames = videoGameRepo.streamAllOrderedById()) {
+				return videoGames.peek(entityManager::detach).map(this::toGame).toList();
+			}
+		});
+		snapshot = CatalogueSnapshot.of(games);
+		log.info("Built a catalogue snapshot of {} video games in {} ms", games.size(), (System.nanoTime() - started) / 1_000_000);
+		// Writes that committed while the table was being read may not be in it.
+		if (!staleIds.isEmpty()) {
+			scheduleRefresh();
+		}
+	}
+
+	// Runs before CatalogueVersionHolder moves the listing version on, so that a listing served from the snapshot is
+	// never sent with a version that counts a write the snapshot does not have yet.
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onVideoGameChanged(VideoGameChangedEvent event) {
+		if (!enabled) {
+			return;
+		}
+		staleIds.put(event.id(), writeSequence.incrementAndGet());
+		scheduleRefresh();
+	}
+
+	// Reloads every stale video game with a single query and swaps in a snapshot that contains them.
+	public synchronized void refresh() {
+		refreshScheduled.set(false);
+		CatalogueSnapshot current = snapshot;
+		if (current == null || staleIds.isEmpty()) {
+			return;
+		}
+		Map<Integer, Long> written = Map.copyOf(staleIds);
+		List<CatalogueSnapshot.Game> changedGames = new ArrayList<>(written.size());
+		Set<Integer> removedIds = new HashSet<>(written.keySet());
+		transactionTemplate.executeWithoutResult(status -> {
+			for (VideoGame videoGame : videoGameRepo.findAllById(written.keySet())) {
+				entityManager.detach(videoGame);
+				changedGames.add(toGame(videoGame));
+				removedIds.remove(videoGame.getId());
+			}
+		});
+		snapshot = current.withChanges(changedGames, removedIds);
+		// A game written again during the reload stays stale for the next one.
+		written.forEach(staleIds::remove);
+	}
+
+	private void scheduleRefresh() {
+		if (refreshScheduled.compareAndSet(false, true)) {
+			executor.execute(this::refreshQuietly);
+		}
+	}
+
+	private void refreshQuietly() {
+		try {
+			refresh();
+		} catch (RuntimeException ex) {
+			// The games stay stale, so they are read from the database until a later write triggers another refresh.
+			log.warn("Failed to refresh the catalogue snapshot for {} video games", staleIds.size(), ex);
+		}
+	}
+
+	private CatalogueSnapshot.Game toGame(VideoGame videoGame) {
+		byte[] json;
+		try {
+			json = writer.writeValueAsBytes(videoGame);
+		} catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Could not serialise video game " + videoGame.getId(), ex);
+		}
+		long version = videoGame.getVersion() == null ? CatalogueSnapshot.NO_VERSION : videoGame.getVersion();
+		long lastModified = videoGame.getLastModified() == null ? CatalogueSnapshot.NO_TIMESTAMP
+				: videoGame.getLastModified().toEpochMilli();
+		return new CatalogueSnapshot.Game(videoGame.getId(), videoGame.getPrice(), videoGame.getGenre(),
+				videoGame.getDeveloper(), version, lastModified, json);
+	}
+
+}
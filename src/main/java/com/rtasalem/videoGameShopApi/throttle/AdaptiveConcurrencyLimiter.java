@@ -0,0 +1,104 @@
+package com.rtasalem.videoGameShopApi.throttle;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Caps how many requests are handled at once, and adjusts the cap from observed latency (additive increase,
+ * multiplicative decrease). Every request that completes within the target latency while the cap is at least half
+ * used raises the cap by one, and every slower request cuts it by the backoff ratio. When the database slows down the
+ * cap therefore shrinks towards the number of requests it can actually serve, and the excess is turned away at once
+ * instead of queueing for a connection.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+	private final boolean enabled;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final long targetLatencyNanos;
+
+	private final double backoffRatio;
+
+	private final AtomicInteger limit;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	@Autowired
+	public AdaptiveConcurrencyLimiter(@Value("${videogames.concurrency-limit.enabled:true}") boolean enabled,
+			@Value("${videogames.concurrency-limit.initial-limit:20}") int initialLimit,
+			@Value("${videogames.concurrency-limit.min-limit:5}") int minLimit,
+			@Value("${videogames.concurrency-limit.max-limit:200}") int maxLimit,
+			@Value("${videogames.concurrency-limit.target-latency:500ms}") Duration targetLatency,
+			@Value("${videogames.concurrency-limit.backoff-ratio:0.9}") double backoffRatio,
+			MeterRegistry meterRegistry) {
+		this(enabled, initialLimit, minLimit, maxLimit, targetLatency, backoffRatio);
+		Gauge.builder("videogames.concurrency.limit", limit, AtomicInteger::get).register(meterRegistry);
+		Gauge.builder("videogames.concurrency.in-flight", inFlight, AtomicInteger::get).register(meterRegistry);
+	}
+
+	public AdaptiveConcurrencyLimiter(boolean enabled, int initialLimit, int minLimit, int maxLimit, Duration targetLatency,
+			double backoffRatio) {
+		this.enabled = enabled;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.targetLatencyNanos = targetLatency.toNanos();
+		this.backoffRatio = backoffRatio;
+		this.limit = new AtomicInteger(Math.max(minLimit, Math.min(maxLimit, initialLimit)));
+	}
+
+	// Returns false, without taking a slot, when as many requests as the limit allows are already in flight.
+	public boolean tryAcquire() {
+		if (!enabled) {
+			return true;
+		}
+		while (true) {
+			int current = inFlight.get();
+			if (current >= limit.get()) {
+				return false;
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	// Frees the slot and adjusts the limit from how long the request took.
+	public void release(long latencyNanos) {
+		if (!enabled) {
+			return;
+		}
+		int inFlightBefore = inFlight.getAndDecrement();
+		if (latencyNanos > targetLatencyNanos) {
+			limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+		} else if (inFlightBefore * 2 >= limit.get()) {
+			limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+		}
+	}
+
+	// Frees the slot without adjusting the limit, for requests such as the export whose duration says nothing about load.
+	public void release() {
+		if (enabled) {
+			inFlight.decrementAndGet();
+		}
+	}
+
+	public int getLimit() {
+		return limit.get();
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+}
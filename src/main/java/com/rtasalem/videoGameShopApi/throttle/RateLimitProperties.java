@@ -0,0 +1,108 @@
+package com.rtasalem.videoGameShopApi.throttle;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Per-client token bucket limits, set under videogames.rate-limit. Endpoints are named after their controller method,
+ * e.g. videogames.rate-limit.endpoints.searchGames.capacity=20, and fall back to the default limit.
+ */
+@ConfigurationProperties("videogames.rate-limit")
+public class RateLimitProperties {
+
+	private boolean enabled = true;
+
+	private Limit defaultLimit = new Limit(100, 50);
+
+	private Map<String, Limit> endpoints = new HashMap<>();
+
+	// A bucket is kept per client and endpoint, up to this many. The least recently used ones are dropped first.
+	private long maximumBuckets = 100_000;
+
+	// Buckets unused for this long are dropped. A dropped bucket comes back full, so this should be longer than any
+	// bucket takes to refill.
+	private Duration idleTimeout = Duration.ofMinutes(10);
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Limit getDefaultLimit() {
+		return defaultLimit;
+	}
+
+	public void setDefaultLimit(Limit defaultLimit) {
+		this.defaultLimit = defaultLimit;
+	}
+
+	public Map<String, Limit> getEndpoints() {
+		return endpoints;
+	}
+
+	public void setEndpoints(Map<String, Limit> endpoints) {
+		this.endpoints = endpoints;
+	}
+
+	public long getMaximumBuckets() {
+		return maximumBuckets;
+	}
+
+	public void setMaximumBuckets(long maximumBuckets) {
+		this.maximumBuckets = maximumBuckets;
+	}
+
+	public Duration getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public void setIdleTimeout(Duration idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	public Limit limitFor(String endpoint) {
+		return endpoints.getOrDefault(endpoint, defaultLimit);
+	}
+
+	// A burst of up to capacity requests, then refillPerSecond requests a second.
+	public static class Limit {
+
+		private int capacity;
+
+		private double refillPerSecond;
+
+		public Limit() {
+			super();
+		}
+
+		public Limit(int capacity, double refillPerSecond) {
+			super();
+			this.capacity = capacity;
+			this.refillPerSecond = refillPerSecond;
+		}
+
+		public int getCapacity() {
+			return capacity;
+		}
+
+		public void setCapacity(int capacity) {
+			this.capacity = capacity;
+		}
+
+		public double getRefillPerSecond() {
+			return refillPerSecond;
+		}
+
+		public void setRefillPerSecond(double refillPerSecond) {
+			this.refillPerSecond = refillPerSecond;
+		}
+
+	}
+
+}
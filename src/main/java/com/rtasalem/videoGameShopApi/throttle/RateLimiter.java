@@ -0,0 +1,53 @@
+package com.rtasalem.videoGameShopApi.throttle;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+/**
+ * Keeps a token bucket per client and endpoint. The buckets live in a bounded Caffeine cache, whose striped hash
+ * table lets different clients be served without contending, and each bucket is itself lock free.
+ */
+@Component
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimiter {
+
+	private final RateLimitProperties properties;
+
+	private final Ticker ticker;
+
+	private final Cache<String, TokenBucket> buckets;
+
+	@Autowired
+	public RateLimiter(RateLimitProperties properties) {
+		this(properties, Ticker.systemTicker());
+	}
+
+	public RateLimiter(RateLimitProperties properties, Ticker ticker) {
+		this.properties = properties;
+		this.ticker = ticker;
+		this.buckets = Caffeine.newBuilder()
+				.maximumSize(properties.getMaximumBuckets())
+				.expireAfterAccess(properties.getIdleTimeout())
+				.ticker(ticker)
+				.build();
+	}
+
+	// Takes a token for the client and returns 0, or returns how many nanoseconds to wait before trying again.
+	public long tryAcquire(String endpoint, String client) {
+		if (!properties.isEnabled()) {
+			return 0;
+		}
+		long now = ticker.read();
+		TokenBucket bucket = buckets.get(endpoint + " " + client, key -> {
+			RateLimitProperties.Limit limit = properties.limitFor(endpoint);
+			return new TokenBucket(limit.getCapacity(), limit.getRefillPerSecond(), now);
+		});
+		return bucket.tryConsume(now);
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.rtasalem.videoGameShopApi.throttle;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket that holds up to capacity tokens and gains refillPerSecond tokens a second. Rather than a token
+ * count and a refill time, it keeps a single timestamp: the time at which the bucket will be full again. Taking a
+ * token pushes that time back by one refill interval, and is refused if it would push it further than capacity
+ * intervals into the future. This makes taking a token one compare-and-set, with no lock and no background refill.
+ */
+public final class TokenBucket {
+
+	private final long refillIntervalNanos;
+
+	private final long burstNanos;
+
+	// When the bucket will next be full. Any time in the past means it is full now.
+	private final AtomicLong fullAtNanos;
+
+	public TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+		if (capacity < 1 || refillPerSecond <= 0) {
+			throw new IllegalArgumentException("A token bucket needs a capacity of at least 1 and a positive refill rate");
+		}
+		this.refillIntervalNanos = (long) (1_000_000_000L / refillPerSecond);
+		this.burstNanos = refillIntervalNanos * capacity;
+		this.fullAtNanos = new AtomicLong(nowNanos);
+	}
+
+	// Takes a token and returns 0, or returns how many nanoseconds to wait until a token will be available.
+	public long tryConsume(long nowNanos) {
+		while (true) {
+			long fullAt = fullAtNanos.get();
+			long newFullAt = Math.max(fullAt, nowNanos) + refillIntervalNanos;
+			long overdraft = newFullAt - nowNanos - burstNanos;
+			if (overdraft > 0) {
+				return overdraft;
+			}
+			if (fullAtNanos.compareAndSet(fullAt, newFullAt)) {
+				return 0;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,20 @@
+-- Ids are handed out in blocks of 50, matching the pooled-lo allocationSize on VideoGame.
+create sequence GAME_ID_SEQ start with 1 increment by 50;
+
+-- Column sizes match the @Size limits on VideoGame. The unique constraint doubles as the index for title lookups.
+create table VideoGame (
+	id integer not null,
+	title varchar(100) not null,
+	genre varchar(100) not null,
+	developer varchar(250) not null,
+	price double precision not null,
+	version bigint,
+	lastModified timestamp(6) with time zone,
+	primary key (id),
+	constraint UK_VIDEOGAME_TITLE unique (title)
+);
+
+-- The listing filters on genre and developer by equality and on price by range.
+create index IX_VIDEOGAME_GENRE on VideoGame (genre);
+create index IX_VIDEOGAME_DEVELOPER on VideoGame (developer);
+create index IX_VIDEOGAME_PRICE on VideoGame (price);
@@ -0,0 +1,6 @@
+INSERT INTO VideoGame (id, title, genre, developer, price, version, lastModified) VALUES (1, 'The Last of Us', 'Horror', 'Naughty Dog', 15.99, 0, CURRENT_TIMESTAMP);
+INSERT INTO VideoGame (id, title, genre, developer, price, version, lastModified) VALUES (2, 'Uncharted 2', 'Adventure', 'Naughty Dog', 12.99, 0, CURRENT_TIMESTAMP);
+INSERT INTO VideoGame (id, title, genre, developer, price, version, lastModified) VALUES (3, 'Heavy Rain', 'Thriller', 'Quantic Dream', 7.99, 0, CURRENT_TIMESTAMP);
+INSERT INTO VideoGame (id, title, genre, developer, price, version, lastModified) VALUES (4, 'Grand Theft Auto V', 'Open-world', 'Rockstar Games', 19.99, 0, CURRENT_TIMESTAMP);
+INSERT INTO VideoGame (id, title, genre, developer, price, version, lastModified) VALUES (5, 'Super Mario Kart', 'Racing', 'Nintendo', 13.99, 0, CURRENT_TIMESTAMP);
+ALTER SEQUENCE GAME_ID_SEQ RESTART WITH 6;
@@ -0,0 +1,13 @@
+-- Responses to requests made with an Idempotency-Key, used when videogames.idempotency.persistent is true.
+-- The key length matches the limit enforced by IdempotencyFilter.
+create table idempotency_key (
+	idempotency_key varchar(255) not null,
+	status integer not null,
+	location varchar(2048),
+	content_type varchar(255),
+	body varbinary(1048576) not null,
+	created_at timestamp(6) with time zone not null,
+	primary key (idempotency_key)
+);
+
+create index IX_IDEMPOTENCY_KEY_CREATED_AT on idempotency_key (created_at);
@@ -0,0 +1,4 @@
+-- Copies left to sell, maintained by StockReservations. The seeded games start with 100 copies each.
+alter table VideoGame add column stock integer default 0 not null;
+
+update VideoGame set stock = 100;
@@ -0,0 +1,3 @@
+-- A hash of the client, path and body of the request each response answers, so that a retry is only sent the
+-- response if it is the same request. Rows written before this column existed have none and are never replayed.
+alter table idempotency_key add column request_hash varchar(64);
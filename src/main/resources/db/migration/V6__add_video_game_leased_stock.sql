@@ -0,0 +1,3 @@
+-- The copies of stock that StockReservations instances have leased to sell from memory. Copies sold are taken from
+-- both columns when the sales are written, so stock - leased is what is left for an instance to lease.
+alter table VideoGame add column leased integer default 0 not null;
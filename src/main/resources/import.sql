@@ -1,5 +0,0 @@
-INSERT INTO VideoGame (id, title, genre, developer, price) VALUES (nextval('GAME_ID_SEQ'), 'The Last of Us', 'Horror', 'Naughty Dog', 15.99);
-INSERT INTO VideoGame (id, title, genre, developer, price) VALUES (nextval('GAME_ID_SEQ'), 'Uncharted 2', 'Adventure', 'Naughty Dog', 12.99);
-INSERT INTO VideoGame (id, title, genre, developer, price) VALUES (nextval('GAME_ID_SEQ'), 'Heavy Rain', 'Thriller', 'Quantic Dream', 7.99);
-INSERT INTO VideoGame (id, title, genre, developer, price) VALUES (nextval('GAME_ID_SEQ'), 'Grand Theft Auto V', 'Open-world', 'Rockstar Games', 19.99);
-INSERT INTO VideoGame (id, title, genre, developer, price) VALUES (nextval('GAME_ID_SEQ'), 'Super Mario Kart', 'Racing', 'Nintendo', 13.99);
@@ -0,0 +1,88 @@
+package com.rtasalem.videoGameShopApi.cacheTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.rtasalem.videoGameShopApi.cache.CatalogueVersionHolder;
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.model.CatalogueVersion;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+
+class CatalogueVersionHolderTests {
+
+	private static final CatalogueVersion LOADED = new CatalogueVersion(3L, 3, 5L, Instant.ofEpochMilli(1_000));
+
+	private VideoGameDAO videoGameRepo;
+
+	private CatalogueVersionHolder catalogueVersion;
+
+	private VideoGame createGame(int id, long lastModifiedMillis) {
+		VideoGame videoGame = new VideoGame("Heavy Rain", "Thriller", "Quantic Dream", 7.99);
+		videoGame.setId(id);
+		videoGame.setLastModified(Instant.ofEpochMilli(lastModifiedMillis));
+		return videoGame;
+	}
+
+	@BeforeEach
+	public void setUp() {
+		videoGameRepo = mock(VideoGameDAO.class);
+		when(videoGameRepo.findCatalogueVersion()).thenReturn(LOADED);
+		catalogueVersion = new CatalogueVersionHolder(videoGameRepo);
+	}
+
+	@Test
+	public void testCurrent_ReadsTheVersionFromTheDatabaseOnlyOnce() {
+		// Act
+		for (int i = 0; i < 3; i++) {
+			assertEquals(LOADED, catalogueVersion.current());
+		}
+
+		// Assert
+		verify(videoGameRepo, times(1)).findCatalogueVersion();
+	}
+
+	@Test
+	public void testOnVideoGameChanged_MovesTheVersionOnForEveryWrite_WithoutQueryingTheDatabase() {
+		// Arrange
+		Set<CatalogueVersion> seen = new HashSet<>(List.of(catalogueVersion.current()));
+
+		// Act
+		catalogueVersion.onVideoGameChanged(VideoGameChangedEvent.created(createGame(4, 2_000)));
+		seen.add(catalogueVersion.current());
+		catalogueVersion.onVideoGameChanged(VideoGameChangedEvent.updated(createGame(2, 3_000)));
+		seen.add(catalogueVersion.current());
+		catalogueVersion.onVideoGameChanged(VideoGameChangedEvent.deleted(4));
+		seen.add(catalogueVersion.current());
+		// Back to as many games as were loaded, which must still be told apart from the catalogue that was loaded.
+		catalogueVersion.onVideoGameChanged(VideoGameChangedEvent.deleted(1));
+		catalogueVersion.onVideoGameChanged(VideoGameChangedEvent.created(createGame(5, 4_000)));
+		seen.add(catalogueVersion.current());
+
+		// Assert
+		assertEquals(5, seen.size());
+		assertEquals(new CatalogueVersion(3L, 5, 6L, Instant.ofEpochMilli(4_000)), catalogueVersion.current());
+		verify(videoGameRepo, times(1)).findCatalogueVersion();
+	}
+
+	@Test
+	public void testOnVideoGameChanged_IsIgnored_BeforeTheVersionHasBeenRead() {
+		// Act
+		catalogueVersion.onVideoGameChanged(VideoGameChangedEvent.created(createGame(4, 2_000)));
+
+		// Assert
+		assertEquals(LOADED, catalogueVersion.current());
+	}
+
+}
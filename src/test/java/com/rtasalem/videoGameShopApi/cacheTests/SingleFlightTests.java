@@ -0,0 +1,128 @@
+package com.rtasalem.videoGameShopApi.cacheTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.rtasalem.videoGameShopApi.cache.SingleFlight;
+
+class SingleFlightTests {
+
+	private static final int CALLERS = 32;
+
+	private final SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+	private final List<Thread> callerThreads = new ArrayList<>();
+
+	@AfterEach
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	// Starts every caller and returns once all of them are blocked, either in the loader or waiting for it.
+	private List<Future<String>> startCallers(CountDownLatch release, AtomicInteger loads, RuntimeException failure)
+			throws InterruptedException {
+		List<Future<String>> results = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			results.add(executor.submit(() -> {
+				synchronized (callerThreads) {
+					callerThreads.add(Thread.currentThread());
+				}
+				return singleFlight.execute(1, () -> {
+					loads.incrementAndGet();
+					try {
+						release.await();
+					} catch (InterruptedException ex) {
+						throw new IllegalStateException(ex);
+					}
+					if (failure != null) {
+						throw failure;
+					}
+					return "Heavy Rain";
+				});
+			}));
+		}
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!allCallersBlocked()) {
+			assertTrue(System.nanoTime() < deadline, "The callers did not all start waiting.");
+			Thread.sleep(1);
+		}
+		return results;
+	}
+
+	private boolean allCallersBlocked() {
+		synchronized (callerThreads) {
+			return callerThreads.size() == CALLERS && callerThreads.stream()
+					.allMatch(thread -> thread.getState() == Thread.State.WAITING || thread.getState() == Thread.State.TIMED_WAITING);
+		}
+	}
+
+	@Test
+	public void testExecute_RunsLoaderOnce_ForConcurrentCallers() throws Exception {
+		// Arrange
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger loads = new AtomicInteger();
+		List<Future<String>> results = startCallers(release, loads, null);
+
+		// Act
+		release.countDown();
+
+		// Assert
+		for (Future<String> result : results) {
+			assertEquals("Heavy Rain", result.get(10, TimeUnit.SECONDS));
+		}
+		assertEquals(1, loads.get());
+		assertEquals(0, singleFlight.inFlight());
+	}
+
+	@Test
+	public void testExecute_SharesLoaderException_AndReleasesKey() throws Exception {
+		// Arrange
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger loads = new AtomicInteger();
+		IllegalStateException failure = new IllegalStateException("Database unavailable");
+		List<Future<String>> results = startCallers(release, loads, failure);
+
+		// Act
+		release.countDown();
+
+		// Assert
+		for (Future<String> result : results) {
+			Exception ex = assertThrows(Exception.class, () -> result.get(10, TimeUnit.SECONDS));
+			assertSame(failure, ex.getCause());
+		}
+		assertEquals(1, loads.get());
+		assertEquals(0, singleFlight.inFlight());
+		assertEquals("Retried", singleFlight.execute(1, () -> "Retried"));
+	}
+
+	@Test
+	public void testExecute_RunsLoaderAgain_OnceEarlierLoadHasFinished() {
+		// Arrange
+		AtomicInteger loads = new AtomicInteger();
+
+		// Act
+		singleFlight.execute(1, () -> "Load " + loads.incrementAndGet());
+		String result = singleFlight.execute(1, () -> "Load " + loads.incrementAndGet());
+
+		// Assert
+		assertEquals("Load 2", result);
+		assertEquals(0, singleFlight.inFlight());
+	}
+
+}
@@ -0,0 +1,91 @@
+package com.rtasalem.videoGameShopApi.cacheTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.rtasalem.videoGameShopApi.cache.VideoGameCache;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+
+class VideoGameCacheTests {
+
+	private final AtomicLong nanos = new AtomicLong();
+
+	private VideoGameCache videoGameCache;
+
+	private VideoGame createGame(int id) {
+		VideoGame videoGame = new VideoGame("Heavy Rain", "Thriller", "Quantic Dream", 7.99);
+		videoGame.setId(id);
+		return videoGame;
+	}
+
+	@BeforeEach
+	public void setUp() {
+		videoGameCache = new VideoGameCache(100, Duration.ofMinutes(5), Duration.ofSeconds(5), nanos::get);
+	}
+
+	@Test
+	public void testGetIfPresent_ReturnsCachedGame_UntilTimeToLiveExpires() {
+		// Arrange
+		VideoGame game = createGame(1);
+		videoGameCache.put(game);
+
+		// Act & Assert
+		assertEquals(game, videoGameCache.getIfPresent(1));
+		nanos.addAndGet(Duration.ofMinutes(6).toNanos());
+		assertNull(videoGameCache.getIfPresent(1));
+	}
+
+	@Test
+	public void testIsKnownMissing_ExpiresAfterTheShorterNegativeTimeToLive() {
+		// Arrange
+		videoGameCache.putMissing(2);
+
+		// Act & Assert
+		assertTrue(videoGameCache.isKnownMissing(2));
+		assertNull(videoGameCache.getIfPresent(2));
+		nanos.addAndGet(Duration.ofSeconds(6).toNanos());
+		assertFalse(videoGameCache.isKnownMissing(2));
+	}
+
+	@Test
+	public void testPutIfUnchanged_DoesNotCache_WhenIdWasInvalidatedSinceGenerationWasRead() {
+		// Arrange
+		long writeGeneration = videoGameCache.writeGeneration(1);
+		videoGameCache.invalidate(1);
+
+		// Act
+		boolean put = videoGameCache.putIfUnchanged(createGame(1), writeGeneration);
+		boolean putMissing = videoGameCache.putMissingIfUnchanged(1, writeGeneration);
+
+		// Assert
+		assertFalse(put);
+		assertFalse(putMissing);
+		assertNull(videoGameCache.getIfPresent(1));
+		assertFalse(videoGameCache.isKnownMissing(1));
+		assertTrue(videoGameCache.putIfUnchanged(createGame(1), videoGameCache.writeGeneration(1)));
+	}
+
+	@Test
+	public void testInvalidateAfterCommit_InvalidatesImmediately_WhenNoTransactionIsActive() {
+		// Arrange
+		videoGameCache.put(createGame(1));
+		videoGameCache.putMissing(2);
+
+		// Act
+		videoGameCache.invalidateAfterCommit(List.of(1, 2));
+
+		// Assert
+		assertNull(videoGameCache.getIfPresent(1));
+		assertFalse(videoGameCache.isKnownMissing(2));
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.rtasalem.videoGameShopApi.controllerTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.rtasalem.videoGameShopApi.controller.ChangeFeedController;
+import com.rtasalem.videoGameShopApi.feed.ChangeFeed;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.service.VideoGameService;
+
+/**
+ * Reads the change feed over a real connection, resuming from a Last-Event-ID as a reconnecting client would.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:changefeed;DB_CLOSE_DELAY=-1"
+})
+class ChangeFeedControllerTests {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private VideoGameService videoGameService;
+
+	@Autowired
+	private ChangeFeed changeFeed;
+
+	private List<ServerSentEvent<String>> readEvents(String lastEventId, int count) {
+		return webTestClient.get().uri("/api/v1/games/changes").accept(MediaType.TEXT_EVENT_STREAM)
+				.header(ChangeFeedController.LAST_EVENT_ID_HEADER, lastEventId).exchange()
+				.expectStatus().isOk()
+				.returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+				})
+				.getResponseBody().take(count).collectList().block(Duration.ofSeconds(10));
+	}
+
+	@Test
+	public void testStreamChanges_ResumesAfterLastEventId() {
+		// Arrange
+		long lastSeen = changeFeed.head();
+		VideoGame created = videoGameService.createNewGame(new VideoGame("Change feed game " + System.nanoTime(),
+				"Puzzle", "Nintendo", 9.99));
+		videoGameService.removeGameById(created.getId());
+
+		// Act
+		List<ServerSentEvent<String>> events = readEvents(Long.toString(lastSeen), 2);
+
+		// Assert
+		assertEquals("created", events.get(0).event());
+		assertEquals(Long.toString(lastSeen + 1), events.get(0).id());
+		assertEquals("deleted", events.get(1).event());
+		assertEquals(Long.toString(lastSeen + 2), events.get(1).id());
+	}
+
+	@Test
+	public void testStreamChanges_SendsReset_WhenLastEventIdIsUnknown() {
+		// Act
+		List<ServerSentEvent<String>> events = readEvents("not-a-sequence", 1);
+
+		// Assert
+		assertEquals(ChangeFeedController.RESET_EVENT, events.get(0).event());
+		assertEquals(Long.toString(changeFeed.head()), events.get(0).id());
+	}
+
+}
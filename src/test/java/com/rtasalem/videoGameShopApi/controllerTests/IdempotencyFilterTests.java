@@ -0,0 +1,236 @@
+package com.rtasalem.videoGameShopApi.controllerTests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.rtasalem.videoGameShopApi.controller.IdempotencyFilter;
+import com.rtasalem.videoGameShopApi.idempotency.IdempotencyStore;
+import com.rtasalem.videoGameShopApi.idempotency.StoredResponse;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.service.VideoGameService;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+
+/**
+ * Sends retries of POST /api/v1/games through the whole servlet stack, with responses persisted as well as cached.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:idempotency;DB_CLOSE_DELAY=-1",
+		"videogames.idempotency.persistent=true"
+})
+@AutoConfigureMockMvc
+class IdempotencyFilterTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@SpyBean
+	private VideoGameService videoGameService;
+
+	private String persistedRequestHash(String key) {
+		return jdbcTemplate.queryForObject("select request_hash from idempotency_key where idempotency_key = ?",
+				String.class, key);
+	}
+
+	private String newGameJson(String title) throws Exception {
+		return objectMapper.writeValueAsString(new VideoGame(title, "Puzzle", "Nintendo", 9.99));
+	}
+
+	@Test
+	public void testAddNewGame_RetryReplaysCreatedResponseWithoutCallingService() throws Exception {
+		// Arrange
+		String key = UUID.randomUUID().toString();
+		String body = newGameJson("Idempotent game");
+		MvcResult first = mockMvc.perform(post("/api/v1/games").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+				.contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isCreated())
+				.andReturn();
+
+		// Act
+		MvcResult retry = mockMvc.perform(post("/api/v1/games").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+				.contentType(MediaType.APPLICATION_JSON).content(body))
+				// Assert
+				.andExpect(status().isCreated())
+				.andExpect(header().string(HttpHeaders.LOCATION, first.getResponse().getHeader(HttpHeaders.LOCATION)))
+				.andExpect(header().string(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER, "true"))
+				.andReturn();
+
+		assertArrayEquals(first.getResponse().getContentAsByteArray(), retry.getResponse().getContentAsByteArray());
+		verify(videoGameService, times(1)).createNewGame(any());
+	}
+
+	@Test
+	public void testAddNewGame_RetryIsHandledAfresh_WhenFirstRequestFailed() throws Exception {
+		// Arrange
+		String key = UUID.randomUUID().toString();
+		mockMvc.perform(post("/api/v1/games").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+				.contentType(MediaType.APPLICATION_JSON).content(newGameJson("")))
+				.andExpect(status().isBadRequest());
+
+		// Act
+		mockMvc.perform(post("/api/v1/games").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+				.contentType(MediaType.APPLICATION_JSON).content(newGameJson("Idempotent retry after failure")))
+				// Assert
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.title").value("Idempotent retry after failure"));
+	}
+
+	@Test
+	public void testAddNewGame_RejectsKeyReusedForADifferentBodyOrClient() throws Exception {
+		// Arrange
+		String key = UUID.randomUUID().toString();
+		String body = newGameJson("Idempotent reused key");
+		mockMvc.perform(post("/api/v1/games").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+				.contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isCreated());
+
+		// Act
+		mockMvc.perform(post("/api/v1/games").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+				.contentType(MediaType.APPLICATION_JSON).content(newGameJson("Idempotent other game")))
+				// Assert
+				.andExpect(status().isUnprocessableEntity())
+				.andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+				.andExpect(jsonPath("$.detail").value("The Idempotency-Key " + key
+						+ " has already been used for a different request. Use a new key for each request."));
+		mockMvc.perform(post("/api/v1/games").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+				.contentType(MediaType.APPLICATION_JSON).content(body).with(request -> {
+					request.setRemoteAddr("192.0.2.1");
+					return request;
+				}))
+				.andExpect(status().isUnprocessableEntity());
+
+		verify(videoGameService, times(1)).createNewGame(any());
+	}
+
+	@Test
+	public void testAddNewGame_RejectsOverlongKeyWithProblemDetail() throws Exception {
+		// Act
+		mockMvc.perform(post("/api/v1/games").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "k".repeat(256))
+				.contentType(MediaType.APPLICATION_JSON).content(newGameJson("Idempotent overlong key")))
+				// Assert
+				.andExpect(status().isBadRequest())
+				.andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+				.andExpect(jsonPath("$.detail").value("The Idempotency-Key must be between 1 and 255 characters long."));
+
+		verify(videoGameService, times(0)).createNewGame(any());
+	}
+
+	@Test
+	public void testAddNewGame_RejectsBodyOverTheCapWithPayloadTooLarge() throws Exception {
+		// Arrange
+		byte[] body = new byte[IdempotencyFilter.MAX_BODY_BYTES + 1];
+		Arrays.fill(body, (byte) ' ');
+
+		// Act
+		mockMvc.perform(post("/api/v1/games").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, UUID.randomUUID().toString())
+				.contentType(MediaType.APPLICATION_JSON).content(body))
+				// Assert
+				.andExpect(status().isPayloadTooLarge())
+				.andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+				.andExpect(jsonPath("$.detail").value(
+						"A request body must not be larger than " + IdempotencyFilter.MAX_BODY_BYTES + " bytes."));
+
+		verify(videoGameService, times(0)).createNewGame(any());
+	}
+
+	@Test
+	public void testDoFilter_HandsTheBufferedBodyToAReadListener() throws Exception {
+		// Arrange
+		IdempotencyFilter filter = new IdempotencyFilter(mock(IdempotencyStore.class), mock(HandlerExceptionResolver.class));
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/games");
+		request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, UUID.randomUUID().toString());
+		request.setContent("{\"title\":\"Non-blocking game\"}".getBytes(StandardCharsets.UTF_8));
+		ByteArrayOutputStream read = new ByteArrayOutputStream();
+		AtomicBoolean allDataRead = new AtomicBoolean();
+
+		// Act
+		filter.doFilter(request, new MockHttpServletResponse(), (filteredRequest, response) -> {
+			ServletInputStream input = filteredRequest.getInputStream();
+			input.setReadListener(new ReadListener() {
+
+				@Override
+				public void onDataAvailable() throws IOException {
+					while (input.isReady() && !input.isFinished()) {
+						read.write(input.read());
+					}
+				}
+
+				@Override
+				public void onAllDataRead() {
+					allDataRead.set(true);
+				}
+
+				@Override
+				public void onError(Throwable throwable) {
+					throw new AssertionError(throwable);
+				}
+
+			});
+		});
+
+		// Assert
+		assertTrue(allDataRead.get());
+		assertArrayEquals(request.getContentAsByteArray(), read.toByteArray());
+	}
+
+	@Test
+	public void testBegin_FindsPersistedResponse_AfterCacheIsGone() throws Exception {
+		// Arrange
+		String key = UUID.randomUUID().toString();
+		mockMvc.perform(post("/api/v1/games").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+				.contentType(MediaType.APPLICATION_JSON).content(newGameJson("Idempotent persisted game")))
+				.andExpect(status().isCreated());
+		// A fresh store has an empty cache, as after a restart.
+		IdempotencyStore restartedStore = new IdempotencyStore(100, Duration.ofHours(1), Ticker.systemTicker(), jdbcTemplate);
+
+		// Act
+		StoredResponse storedResponse = restartedStore.begin(key, persistedRequestHash(key));
+
+		// Assert
+		assertEquals(201, storedResponse.status());
+		assertEquals("Idempotent persisted game",
+				objectMapper.readValue(storedResponse.body(), VideoGame.class).getTitle());
+	}
+
+}
@@ -0,0 +1,184 @@
+package com.rtasalem.videoGameShopApi.controllerTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.rtasalem.videoGameShopApi.cache.VideoGameCache;
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.feed.ChangeFeed;
+import com.rtasalem.videoGameShopApi.model.CatalogueChange;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+
+/**
+ * Runs the games API with the reactive profile, against the H2 database that Flyway creates and seeds, to check
+ * that it answers with the same statuses and messages as the servlet stack.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:reactiveapi;DB_CLOSE_DELAY=-1",
+		"spring.r2dbc.url=r2dbc:h2:mem:///reactiveapi?options=DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("reactive")
+class ReactiveVideoGameApiTests {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private ChangeFeed changeFeed;
+
+	@Autowired
+	private VideoGameCache videoGameCache;
+
+	@Test
+	public void testGetGameById_ReturnsSeededGameWithETag() {
+		// Act & Assert
+		webTestClient.get().uri("/api/v1/games/1").exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+				.expectBody().jsonPath("$.id").isEqualTo(1);
+	}
+
+	@Test
+	public void testGetGameById_ReturnsNotFoundMessage() {
+		// Act & Assert
+		webTestClient.get().uri("/api/v1/games/999999").exchange()
+				.expectStatus().isNotFound()
+				.expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+				.expectBody()
+				.jsonPath("$.status").isEqualTo(404)
+				.jsonPath("$.detail").isEqualTo("A video game with an ID of 999999 does not exist.")
+				.jsonPath("$.instance").isEqualTo("/api/v1/games/999999");
+	}
+
+	@Test
+	public void testAddNewGame_InvalidGameReturnsValidationMessages() {
+		// Arrange
+		VideoGame videoGame = new VideoGame("Reactive invalid", "Puzzle", "Nintendo", 99.0);
+
+		// Act & Assert
+		webTestClient.post().uri("/api/v1/games").bodyValue(videoGame).exchange()
+				.expectStatus().isBadRequest()
+				.expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+				.expectBody()
+				.jsonPath("$.detail").isEqualTo("The request body is invalid.")
+				.jsonPath("$.errors[0].field").isEqualTo("price")
+				.jsonPath("$.errors[0].message").isEqualTo("Video game price must be less than £30.00 (GBP).");
+	}
+
+	@Test
+	public void testCreateUpdateAndDelete_FollowServletSemantics() {
+		// Arrange
+		VideoGame videoGame = new VideoGame("Reactive lifecycle game", "Puzzle", "Nintendo", 9.99);
+
+		// Act
+		VideoGame created = webTestClient.post().uri("/api/v1/games").bodyValue(videoGame).exchange()
+				.expectStatus().isCreated()
+				.expectHeader().exists(HttpHeaders.LOCATION)
+				.expectBody(VideoGame.class).returnResult().getResponseBody();
+
+		// Assert
+		webTestClient.post().uri("/api/v1/games").bodyValue(videoGame).exchange()
+				.expectStatus().isEqualTo(409);
+		videoGame.setPrice(14.99);
+		webTestClient.put().uri("/api/v1/games/" + created.getId()).header(HttpHeaders.IF_MATCH, "\"5\"")
+				.bodyValue(videoGame).exchange()
+				.expectStatus().isEqualTo(412);
+		webTestClient.put().uri("/api/v1/games/" + created.getId()).header(HttpHeaders.IF_MATCH, "\"0\"")
+				.bodyValue(videoGame).exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+				.expectBody().jsonPath("$.price").isEqualTo(14.99);
+		webTestClient.delete().uri("/api/v1/games/" + created.getId()).exchange()
+				.expectStatus().isOk();
+		webTestClient.delete().uri("/api/v1/games/" + created.getId()).exchange()
+				.expectStatus().isNotFound();
+	}
+
+	@Test
+	public void testCreateUpdateAndDelete_PublishChangesAndInvalidateTheCache() {
+		// Arrange
+		VideoGame videoGame = new VideoGame("Reactive published game", "Puzzle", "Nintendo", 9.99);
+		long head = changeFeed.head();
+
+		// Act
+		VideoGame created = webTestClient.post().uri("/api/v1/games").bodyValue(videoGame).exchange()
+				.expectStatus().isCreated()
+				.expectBody(VideoGame.class).returnResult().getResponseBody();
+		videoGameCache.put(created);
+		videoGame.setPrice(12.99);
+		webTestClient.put().uri("/api/v1/games/" + created.getId()).bodyValue(videoGame).exchange()
+				.expectStatus().isOk();
+		// Assert
+		assertNull(videoGameCache.getIfPresent(created.getId()));
+
+		// Act
+		webTestClient.delete().uri("/api/v1/games/" + created.getId()).exchange()
+				.expectStatus().isOk();
+
+		// Assert
+		List<CatalogueChange> changes = changeFeed.changesAfter(head, 10).stream()
+				.filter(change -> change.id() == created.getId())
+				.toList();
+		assertEquals(List.of(VideoGameChangedEvent.Type.CREATED, VideoGameChangedEvent.Type.UPDATED,
+				VideoGameChangedEvent.Type.DELETED), changes.stream().map(CatalogueChange::type).toList());
+		assertEquals(12.99, changes.get(1).videoGame().getPrice());
+	}
+
+	@Test
+	public void testExportAllGames_StreamsNdjsonInIdOrder() {
+		// Act
+		List<VideoGame> videoGames = webTestClient.get().uri("/api/v1/games/export")
+				.accept(MediaType.APPLICATION_NDJSON).exchange()
+				.expectStatus().isOk()
+				.returnResult(VideoGame.class).getResponseBody().collectList().block();
+
+		// Assert
+		assertTrue(videoGames.size() >= 5);
+		for (int i = 1; i < videoGames.size(); i++) {
+			assertTrue(videoGames.get(i - 1).getId() < videoGames.get(i).getId());
+		}
+	}
+
+	@Test
+	public void testGetAllGames_ReturnsRequestedPageWithMetadata() {
+		// Act & Assert
+		webTestClient.get().uri("/api/v1/games?page=1&size=2").exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.content.length()").isEqualTo(2)
+				.jsonPath("$.content[0].id").isEqualTo(3)
+				.jsonPath("$.page").isEqualTo(1)
+				.jsonPath("$.size").isEqualTo(2)
+				.jsonPath("$.totalElements").value(total -> assertTrue(((Number) total).longValue() >= 5));
+	}
+
+	@Test
+	public void testGetAllGames_FiltersAndSortsLikeTheServletStack() {
+		// Act & Assert
+		webTestClient.get().uri("/api/v1/games?developer=Naughty Dog&maxPrice=20&sort=price,desc").exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.content[0].title").isEqualTo("The Last of Us")
+				.jsonPath("$.content[1].title").isEqualTo("Uncharted 2")
+				.jsonPath("$.totalElements").isEqualTo(2)
+				.jsonPath("$.totalPages").isEqualTo(1);
+		webTestClient.get().uri("/api/v1/games?minPrice=20&maxPrice=10").exchange()
+				.expectStatus().isBadRequest()
+				.expectBody().jsonPath("$.detail").isEqualTo("The minPrice must not be greater than the maxPrice.");
+		webTestClient.get().uri("/api/v1/games?sort=stock").exchange()
+				.expectStatus().isBadRequest()
+				.expectBody().jsonPath("$.detail").isEqualTo("Video games cannot be sorted by stock.");
+	}
+
+}
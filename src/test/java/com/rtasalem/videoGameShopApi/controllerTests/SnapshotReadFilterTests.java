@@ -0,0 +1,126 @@
+package com.rtasalem.videoGameShopApi.controllerTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.service.VideoGameService;
+import com.rtasalem.videoGameShopApi.snapshot.CatalogueSnapshotHolder;
+
+/**
+ * Compares what the snapshot serves with what the controller serves for the same request. A listing parameter the
+ * filter does not recognise, or an Accept header that mentions CBOR, sends the request to the controller.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:snapshot;DB_CLOSE_DELAY=-1",
+		"videogames.snapshot.enabled=true"
+})
+@AutoConfigureMockMvc
+class SnapshotReadFilterTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CatalogueSnapshotHolder snapshotHolder;
+
+	@SpyBean
+	private VideoGameService videoGameService;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		awaitFreshSnapshot();
+		clearInvocations(videoGameService);
+	}
+
+	private void awaitFreshSnapshot() throws InterruptedException {
+		long deadline = System.nanoTime() + 10_000_000_000L;
+		while (snapshotHolder.current() == null || snapshotHolder.hasStaleGames()) {
+			assertTrue(System.nanoTime() < deadline, "The snapshot was not refreshed.");
+			Thread.sleep(5);
+		}
+	}
+
+	private MvcResult perform(MockHttpServletRequestBuilder request) throws Exception {
+		return mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+	}
+
+	@Test
+	public void testGetAllGames_ServesSameListingAsController() throws Exception {
+		// Act
+		MvcResult fromSnapshot = perform(get("/api/v1/games").param("sort", "price,desc").param("size", "3").param("page", "1"));
+		verify(videoGameService, never()).findAllGames(any(), any(), any());
+		MvcResult fromController = perform(get("/api/v1/games").param("sort", "price,desc").param("size", "3").param("page", "1")
+				.param("controller", "true"));
+
+		// Assert
+		verify(videoGameService, times(1)).findAllGames(any(), any(), any());
+		assertEquals(fromController.getResponse().getContentAsString(), fromSnapshot.getResponse().getContentAsString());
+		assertEquals(fromController.getResponse().getHeader(HttpHeaders.ETAG), fromSnapshot.getResponse().getHeader(HttpHeaders.ETAG));
+	}
+
+	@Test
+	public void testGetGameById_ServesSameGameAsController_AndAnswersNotModified() throws Exception {
+		// Act
+		MvcResult fromSnapshot = perform(get("/api/v1/games/3"));
+		verify(videoGameService, never()).findGameById(anyInt());
+		// A client that mentions CBOR is left to the controller, which still picks JSON here.
+		MvcResult fromController = perform(get("/api/v1/games/3").header(HttpHeaders.ACCEPT, "application/cbor;q=0.1, application/json"));
+		String eTag = fromSnapshot.getResponse().getHeader(HttpHeaders.ETAG);
+
+		// Assert
+		assertEquals(fromController.getResponse().getContentAsString(), fromSnapshot.getResponse().getContentAsString());
+		assertEquals(fromController.getResponse().getHeader(HttpHeaders.ETAG), eTag);
+		assertEquals(fromController.getResponse().getHeader(HttpHeaders.LAST_MODIFIED),
+				fromSnapshot.getResponse().getHeader(HttpHeaders.LAST_MODIFIED));
+		verify(videoGameService, times(1)).findGameById(3);
+		mockMvc.perform(get("/api/v1/games/3").header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isNotModified());
+		verify(videoGameService, times(1)).findGameById(3);
+	}
+
+	@Test
+	public void testGetGameById_ServesWrittenGame_OnceSnapshotHasBeenRefreshed() throws Exception {
+		// Arrange
+		VideoGame game = videoGameService.createNewGame(new VideoGame("Snapshot game", "Puzzle", "Nintendo", 9.99));
+		game.setPrice(14.99);
+		videoGameService.editExistingGame(game, game.getId(), null);
+		awaitFreshSnapshot();
+		clearInvocations(videoGameService);
+
+		// Act
+		mockMvc.perform(get("/api/v1/games/" + game.getId()))
+				// Assert
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.price").value(14.99))
+				.andExpect(jsonPath("$.version").value(1))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+		mockMvc.perform(get("/api/v1/games").param("genre", "Puzzle"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.content[0].title").value("Snapshot game"));
+		verify(videoGameService, never()).findGameById(anyInt());
+		verify(videoGameService, never()).findAllGames(any(), any(), any());
+	}
+
+}
@@ -3,13 +3,23 @@ package com.rtasalem.videoGameShopApi.controllerTests;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,19 +27,49 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.rtasalem.videoGameShopApi.controller.ThrottlingInterceptor;
 import com.rtasalem.videoGameShopApi.controller.VideoGameController;
+import com.rtasalem.videoGameShopApi.controller.VideoGameControllerAdvice;
+import com.rtasalem.videoGameShopApi.exception.OutOfStockException;
+import com.rtasalem.videoGameShopApi.model.CatalogueVersion;
+import com.rtasalem.videoGameShopApi.model.CursorPage;
+import com.rtasalem.videoGameShopApi.model.FacetCounts;
+import com.rtasalem.videoGameShopApi.model.MultiGetResponse;
+import com.rtasalem.videoGameShopApi.model.PagedResponse;
 import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.model.VideoGameFilter;
 import com.rtasalem.videoGameShopApi.service.VideoGameService;
+import com.rtasalem.videoGameShopApi.throttle.AdaptiveConcurrencyLimiter;
+import com.rtasalem.videoGameShopApi.throttle.RateLimitProperties;
+import com.rtasalem.videoGameShopApi.throttle.RateLimiter;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
@@ -41,9 +81,16 @@ class VideoGameControllerTests {
 	@Mock
 	private VideoGameService mockVideoGameService;
 
+	@Spy
+	private ObjectMapper objectMapper = new ObjectMapper();
+
 	@InjectMocks
 	private VideoGameController mockVideoGameController;
 
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private static final CatalogueVersion CATALOGUE_VERSION = new CatalogueVersion(2L, 2, 0L, Instant.EPOCH);
+
 	private VideoGame createGame(int id) {
 		VideoGame videoGame = new VideoGame();
 		videoGame.setId(id);
@@ -52,24 +99,317 @@ class VideoGameControllerTests {
 
 	@BeforeEach
 	public void setUp() {
-		mockMvc = MockMvcBuilders.standaloneSetup(mockVideoGameController).build();
+		mockMvc = MockMvcBuilders.standaloneSetup(mockVideoGameController)
+				.setControllerAdvice(new VideoGameControllerAdvice(meterRegistry)).build();
 	}
 
 	@Test
-	public void testGetAllGames_ReturnsListOfVideoGamesAndOkResponse() {
+	public void testGetAllGames_ReturnsPageOfVideoGamesAndOkResponse() {
 		// Arrange
 		VideoGame game1 = createGame(1);
 		VideoGame game2 = createGame(2);
 		List<VideoGame> videoGames = Arrays.asList(game1, game2);
-		when(mockVideoGameService.findAllGames()).thenReturn(videoGames);
+		Pageable pageable = PageRequest.of(0, 20, Sort.by("id"));
+		when(mockVideoGameService.findCatalogueVersion()).thenReturn(CATALOGUE_VERSION);
+		when(mockVideoGameService.findAllGames(VideoGameFilter.none(), pageable, CATALOGUE_VERSION))
+				.thenReturn(new PageImpl<>(videoGames, pageable, 2));
 
 		// Act
-		ResponseEntity<List<VideoGame>> response = mockVideoGameController.getAllGames();
+		ResponseEntity<PagedResponse<VideoGame>> response = mockVideoGameController.getAllGames(0, 20, "id,asc", null, null,
+				null, null, new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse()));
 
 		// Assert
 		assertEquals(HttpStatus.OK, response.getStatusCode());
-		assertEquals(videoGames, response.getBody());
-		verify(mockVideoGameService, times(1)).findAllGames();
+		assertEquals(videoGames, response.getBody().getContent());
+		assertEquals(2, response.getBody().getTotalElements());
+		verify(mockVideoGameService, times(1)).findAllGames(VideoGameFilter.none(), pageable, CATALOGUE_VERSION);
+	}
+
+	@Test
+	public void testGetAllGames_PassesFiltersAndClampsPageSize() throws Exception {
+		// Arrange
+		ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+		VideoGameFilter filter = new VideoGameFilter("Racing", "Nintendo", 5.0, 20.0);
+		when(mockVideoGameService.findCatalogueVersion()).thenReturn(CATALOGUE_VERSION);
+		when(mockVideoGameService.findAllGames(eq(filter), pageableCaptor.capture(), eq(CATALOGUE_VERSION))).thenReturn(Page.empty());
+
+		// Act
+		mockMvc.perform(get("/api/v1/games").param("size", "5000").param("sort", "price,desc")
+				.param("genre", "Racing").param("developer", "Nintendo").param("minPrice", "5").param("maxPrice", "20"))
+				// Assert
+				.andExpect(status().isOk());
+
+		Pageable pageable = pageableCaptor.getValue();
+		assertEquals(VideoGameController.MAX_PAGE_SIZE, pageable.getPageSize());
+		assertEquals(Sort.by(Sort.Direction.DESC, "price").and(Sort.by("id")), pageable.getSort());
+	}
+
+	@Test
+	public void testGetAllGames_ReturnsNotModifiedWithoutLoadingRows_WhenCatalogueIsUnchanged() throws Exception {
+		// Arrange
+		when(mockVideoGameService.findCatalogueVersion()).thenReturn(CATALOGUE_VERSION);
+		when(mockVideoGameService.findAllGames(any(), any(), any())).thenReturn(Page.empty());
+		String eTag = mockMvc.perform(get("/api/v1/games")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		// Act
+		mockMvc.perform(get("/api/v1/games").header(HttpHeaders.IF_NONE_MATCH, eTag))
+				// Assert
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+
+		verify(mockVideoGameService, times(1)).findAllGames(any(), any(), any());
+	}
+
+	@Test
+	public void testGetAllGames_ReturnsBadRequest_WhenSortPropertyIsUnknown() throws Exception {
+		// Act
+		mockMvc.perform(get("/api/v1/games").param("sort", "publisher,asc"))
+				// Assert
+				.andExpect(status().isBadRequest());
+
+		verify(mockVideoGameService, never()).findAllGames(any(), any(), any());
+	}
+
+	@Test
+	public void testGetAllGames_CountsErrorByExceptionType_WhenSortPropertyIsUnknown() throws Exception {
+		// Act
+		mockMvc.perform(get("/api/v1/games").param("sort", "publisher,asc"));
+		mockMvc.perform(get("/api/v1/games").param("page", "-1"));
+
+		// Assert
+		assertEquals(2.0, meterRegistry.get("videogames.errors").tag("exception", "InvalidQueryParameterException")
+				.tag("status", "400").counter().count());
+	}
+
+	@Test
+	public void testGetAllGames_ReturnsProblemDetail_WhenPriceRangeIsInverted() throws Exception {
+		// Act
+		mockMvc.perform(get("/api/v1/games").param("minPrice", "20").param("maxPrice", "10"))
+				// Assert
+				.andExpect(status().isBadRequest())
+				.andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+				.andExpect(jsonPath("$.status").value(400))
+				.andExpect(jsonPath("$.title").value("Bad Request"))
+				.andExpect(jsonPath("$.detail").value("The minPrice must not be greater than the maxPrice."))
+				.andExpect(jsonPath("$.instance").value("/api/v1/games"));
+	}
+
+	@Test
+	public void testAddNewGame_ReturnsProblemDetailWithFieldErrors_WhenGameIsInvalid() throws Exception {
+		// Arrange
+		VideoGame videoGame = new VideoGame("Invalid game", "Puzzle", "Nin", 99.0);
+
+		// Act
+		mockMvc.perform(post("/api/v1/games").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(videoGame)))
+				// Assert
+				.andExpect(status().isBadRequest())
+				.andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+				.andExpect(jsonPath("$.detail").value(VideoGameControllerAdvice.INVALID_BODY_DETAIL))
+				.andExpect(jsonPath("$.errors.length()").value(2))
+				.andExpect(jsonPath("$.errors[?(@.field == 'developer')].message")
+						.value("Video game developer must be greater than 5 characters and less than 250 characters."))
+				.andExpect(jsonPath("$.errors[?(@.field == 'price')].message")
+						.value("Video game price must be less than £30.00 (GBP)."));
+
+		verify(mockVideoGameService, never()).createNewGame(any());
+	}
+
+	@Test
+	public void testSearchGames_ClampsLimitAndRejectsBlankQuery() throws Exception {
+		// Arrange
+		List<VideoGame> videoGames = List.of(createGame(1));
+		when(mockVideoGameService.searchGames("zel", VideoGameController.MAX_PAGE_SIZE)).thenReturn(videoGames);
+
+		// Act
+		mockMvc.perform(get("/api/v1/games/search").param("q", "zel").param("limit", "5000"))
+				// Assert
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].id").value(1));
+		mockMvc.perform(get("/api/v1/games/search").param("q", " "))
+				.andExpect(status().isBadRequest());
+
+		verify(mockVideoGameService, times(1)).searchGames(any(), anyInt());
+	}
+
+	@Test
+	public void testGetFacetCounts_ReturnsCountsFromService() throws Exception {
+		// Arrange
+		FacetCounts facetCounts = new FacetCounts(1, Map.of("Racing", 1L), Map.of("Nintendo", 1L),
+				List.of(new FacetCounts.PriceRange(5.00, 10.00, 1)));
+		when(mockVideoGameService.findFacetCounts()).thenReturn(facetCounts);
+
+		// Act
+		mockMvc.perform(get("/api/v1/games/facets"))
+				// Assert
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.total").value(1))
+				.andExpect(jsonPath("$.genres.Racing").value(1))
+				.andExpect(jsonPath("$.prices[0].from").value(5.00));
+	}
+
+	@Test
+	public void testGetGamesByIds_ReturnsFoundGamesAndMissingIds() throws Exception {
+		// Arrange
+		when(mockVideoGameService.findGamesById(List.of(2, 7))).thenReturn(new MultiGetResponse(List.of(createGame(2)), List.of(7)));
+
+		// Act
+		mockMvc.perform(get("/api/v1/games").param("ids", "2,7"))
+				// Assert
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.videoGames[0].id").value(2))
+				.andExpect(jsonPath("$.missingIds[0]").value(7));
+		mockMvc.perform(get("/api/v1/games").param("ids", "2,,7"))
+				.andExpect(status().isBadRequest());
+
+		verify(mockVideoGameService, never()).findAllGames(any(), any(), any());
+		verify(mockVideoGameService, times(1)).findGamesById(any());
+	}
+
+	@Test
+	public void testGetGamesByIds_ReturnsProblemDetail_WhenAnIdIsNotANumber() throws Exception {
+		// Act
+		mockMvc.perform(get("/api/v1/games").param("ids", "abc"))
+				// Assert
+				.andExpect(status().isBadRequest())
+				.andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+				.andExpect(jsonPath("$.status").value(400))
+				.andExpect(jsonPath("$.detail").value("The value 'abc' is not valid for the ids parameter."))
+				.andExpect(jsonPath("$.instance").value("/api/v1/games"));
+
+		verify(mockVideoGameService, never()).findGamesById(any());
+	}
+
+	@Test
+	public void testUpdateGamePrice_ReturnsAcceptedGameWithNewPrice() throws Exception {
+		// Arrange
+		VideoGame videoGame = new VideoGame("Heavy Rain", "Thriller", "Quantic Dream", 12.49);
+		videoGame.setId(1);
+		when(mockVideoGameService.updateGamePrice(1, 12.49)).thenReturn(videoGame);
+
+		// Act
+		mockMvc.perform(patch("/api/v1/games/1/price").contentType(MediaType.APPLICATION_JSON).content("{\"price\":12.49}"))
+				// Assert
+				.andExpect(status().isAccepted())
+				.andExpect(jsonPath("$.price").value(12.49));
+		mockMvc.perform(patch("/api/v1/games/1/price").contentType(MediaType.APPLICATION_JSON).content("{\"price\":99}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errors[0].field").value("price"));
+
+		verify(mockVideoGameService, times(1)).updateGamePrice(anyInt(), anyDouble());
+	}
+
+	@Test
+	public void testPurchaseGame_ReturnsNoContent_OrConflictWhenOutOfStock() throws Exception {
+		// Arrange
+		lenient().doThrow(new OutOfStockException("The video game with an ID of 2 does not have 1 copy left in stock."))
+				.when(mockVideoGameService).purchaseGame(2, 1);
+
+		// Act
+		mockMvc.perform(post("/api/v1/games/1/purchase").contentType(MediaType.APPLICATION_JSON).content("{\"quantity\":3}"))
+				// Assert
+				.andExpect(status().isNoContent());
+		mockMvc.perform(post("/api/v1/games/2/purchase").contentType(MediaType.APPLICATION_JSON).content("{\"quantity\":1}"))
+				.andExpect(status().isConflict())
+				.andExpect(jsonPath("$.detail").value("The video game with an ID of 2 does not have 1 copy left in stock."));
+		mockMvc.perform(post("/api/v1/games/1/purchase").contentType(MediaType.APPLICATION_JSON).content("{\"quantity\":11}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errors[0].field").value("quantity"));
+
+		verify(mockVideoGameService).purchaseGame(1, 3);
+		verify(mockVideoGameService, times(2)).purchaseGame(anyInt(), anyInt());
+	}
+
+	@Test
+	public void testGetGameById_ReturnsTooManyRequestsWithRetryAfter_WhenRateLimitIsUsedUp() throws Exception {
+		// Arrange
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setDefaultLimit(new RateLimitProperties.Limit(1, 0.5));
+		AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(true, 5, 1, 5, Duration.ofSeconds(1), 0.9);
+		MockMvc throttledMockMvc = MockMvcBuilders.standaloneSetup(mockVideoGameController)
+				.setControllerAdvice(new VideoGameControllerAdvice(meterRegistry))
+				.addInterceptors(new ThrottlingInterceptor(new RateLimiter(properties), concurrencyLimiter)).build();
+		when(mockVideoGameService.findGameById(1)).thenReturn(createGame(1));
+
+		// Act
+		throttledMockMvc.perform(get("/api/v1/games/1"))
+				// Assert
+				.andExpect(status().isOk());
+		throttledMockMvc.perform(get("/api/v1/games/1"))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+		verify(mockVideoGameService, times(1)).findGameById(1);
+		assertEquals(0, concurrencyLimiter.getInFlight());
+	}
+
+	@Test
+	public void testGetGameById_ReturnsServiceUnavailable_WhenConcurrencyLimitIsReached() throws Exception {
+		// Arrange
+		AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(true, 1, 1, 1, Duration.ofSeconds(1), 0.9);
+		concurrencyLimiter.tryAcquire();
+		MockMvc throttledMockMvc = MockMvcBuilders.standaloneSetup(mockVideoGameController)
+				.setControllerAdvice(new VideoGameControllerAdvice(meterRegistry))
+				.addInterceptors(new ThrottlingInterceptor(new RateLimiter(new RateLimitProperties()), concurrencyLimiter)).build();
+
+		// Act
+		throttledMockMvc.perform(get("/api/v1/games/1"))
+				// Assert
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+		verify(mockVideoGameService, times(0)).findGameById(anyInt());
+	}
+
+	@Test
+	public void testGetGamesAfterCursor_ReturnsNextCursor_WhenMoreGamesExist() throws Exception {
+		// Arrange
+		List<VideoGame> firstPage = Arrays.asList(createGame(1), createGame(2));
+		when(mockVideoGameService.findGamesAfter(0, 2)).thenReturn(new SliceImpl<>(firstPage, PageRequest.ofSize(2), true));
+
+		// Act
+		ResponseEntity<CursorPage<VideoGame>> firstResponse = mockVideoGameController.getGamesAfterCursor(null, 2);
+		String nextCursor = firstResponse.getBody().getNextCursor();
+		List<VideoGame> secondPage = Arrays.asList(createGame(3));
+		when(mockVideoGameService.findGamesAfter(2, 2)).thenReturn(new SliceImpl<>(secondPage, PageRequest.ofSize(2), false));
+		ResponseEntity<CursorPage<VideoGame>> secondResponse = mockVideoGameController.getGamesAfterCursor(nextCursor, 2);
+
+		// Assert
+		assertEquals(firstPage, firstResponse.getBody().getContent());
+		assertEquals(secondPage, secondResponse.getBody().getContent());
+		assertNull(secondResponse.getBody().getNextCursor());
+	}
+
+	@Test
+	public void testGetGamesAfterCursor_ReturnsBadRequest_WhenCursorIsMalformed() throws Exception {
+		// Act
+		mockMvc.perform(get("/api/v1/games/cursor").param("after", "not-a-cursor"))
+				// Assert
+				.andExpect(status().isBadRequest());
+
+		verify(mockVideoGameService, never()).findGamesAfter(anyInt(), anyInt());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testExportAllGames_WritesOneJsonObjectPerLine() throws Exception {
+		// Arrange
+		when(mockVideoGameService.exportAllGames(any())).thenAnswer(invocation -> {
+			Consumer<VideoGame> consumer = invocation.getArgument(0);
+			consumer.accept(new VideoGame("Heavy Rain", "Thriller", "Quantic Dream", 7.99));
+			consumer.accept(new VideoGame("Super Mario Kart", "Racing", "Nintendo", 13.99));
+			return 2L;
+		});
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		// Act
+		ResponseEntity<StreamingResponseBody> response = mockVideoGameController.exportAllGames();
+		response.getBody().writeTo(outputStream);
+
+		// Assert
+		String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(MediaType.parseMediaType(VideoGameController.APPLICATION_NDJSON_VALUE), response.getHeaders().getContentType());
+		assertEquals(2, lines.length);
+		assertEquals("Heavy Rain", objectMapper.readValue(lines[0], VideoGame.class).getTitle());
+		assertEquals("Super Mario Kart", objectMapper.readValue(lines[1], VideoGame.class).getTitle());
 	}
 
 	@Test
@@ -88,6 +428,36 @@ class VideoGameControllerTests {
 		verify(mockVideoGameService, times(1)).findGameById(id);
 	}
 
+	@Test
+	public void testGetGameById_ReturnsNotModified_WhenETagMatchesVersion() throws Exception {
+		// Arrange
+		VideoGame game = createGame(1);
+		game.setVersion(3L);
+		when(mockVideoGameService.findGameById(1)).thenReturn(game);
+
+		// Act
+		mockMvc.perform(get("/api/v1/games/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+				// Assert
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+				.andExpect(content().string(""));
+	}
+
+	@Test
+	public void testGetGameById_ReturnsBody_WhenETagIsStale() throws Exception {
+		// Arrange
+		VideoGame game = createGame(1);
+		game.setVersion(4L);
+		when(mockVideoGameService.findGameById(1)).thenReturn(game);
+
+		// Act
+		mockMvc.perform(get("/api/v1/games/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+				// Assert
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+				.andExpect(jsonPath("$.version").value(4));
+	}
+
 	@Test
 	public void testAddNewGame_CreatesNewGameSuccessfully() throws Exception {
 		// Arrange
@@ -112,15 +482,41 @@ class VideoGameControllerTests {
 		// Arrange
 		int id = 1;
 		VideoGame updatedGame = createGame(id);
-		when(mockVideoGameService.editExistingGame(any(), eq(id))).thenReturn(updatedGame);
+		when(mockVideoGameService.editExistingGame(any(), eq(id), eq(null))).thenReturn(updatedGame);
 
 		// Act
-		ResponseEntity<VideoGame> response = mockVideoGameController.updateExistingGame(id, updatedGame);
+		ResponseEntity<VideoGame> response = mockVideoGameController.updateExistingGame(id, null, updatedGame);
 
 		// Assert
 		assertEquals(HttpStatus.OK, response.getStatusCode());
 		assertEquals(updatedGame, response.getBody());
-		verify(mockVideoGameService, times(1)).editExistingGame(updatedGame, id);
+		verify(mockVideoGameService, times(1)).editExistingGame(updatedGame, id, null);
+	}
+
+	@Test
+	public void testUpdateExistingGame_PassesIfMatchVersionToService() {
+		// Arrange
+		int id = 1;
+		VideoGame updatedGame = createGame(id);
+		updatedGame.setVersion(8L);
+		when(mockVideoGameService.editExistingGame(updatedGame, id, 7L)).thenReturn(updatedGame);
+
+		// Act
+		ResponseEntity<VideoGame> response = mockVideoGameController.updateExistingGame(id, "\"7\"", updatedGame);
+
+		// Assert
+		assertEquals("\"8\"", response.getHeaders().getETag());
+	}
+
+	@Test
+	public void testUpdateExistingGame_ReturnsPreconditionFailed_WhenIfMatchIsWeak() throws Exception {
+		// Act
+		mockMvc.perform(put("/api/v1/games/1").header(HttpHeaders.IF_MATCH, "W/\"7\"").contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(new VideoGame("Minecraft", "Open-world", "Mojang Studios", 26.99))))
+				// Assert
+				.andExpect(status().isPreconditionFailed());
+
+		verify(mockVideoGameService, never()).editExistingGame(any(), anyInt(), any());
 	}
 
 	@Test
@@ -0,0 +1,100 @@
+package com.rtasalem.videoGameShopApi.controllerTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.service.VideoGameService;
+
+/**
+ * Checks the encodings the servlet stack negotiates over a real connection: gzip above the size threshold, and
+ * CBOR for clients that ask for it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:encoding;DB_CLOSE_DELAY=-1"
+})
+class VideoGameEncodingTests {
+
+	private static final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private VideoGameService videoGameService;
+
+	// The JDK client hands back the body as sent, whereas WebTestClient would decompress it and drop the header.
+	private HttpResponse<byte[]> getGzipped(String path) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip").build();
+		return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+	}
+
+	private static String gunzip(byte[] body) throws IOException {
+		try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			return new String(inputStream.readAllBytes());
+		}
+	}
+
+	@Test
+	public void testGetAllGames_GzipsOnlyResponsesAboveThreshold() throws Exception {
+		// Arrange
+		for (int i = 1; i <= 20; i++) {
+			videoGameService.createNewGame(new VideoGame("Compressed game " + i, "Puzzle", "Nintendo", 9.99));
+		}
+
+		// Act
+		HttpResponse<byte[]> listing = getGzipped("/api/v1/games?size=50");
+		HttpResponse<byte[]> singleGame = getGzipped("/api/v1/games/1");
+
+		// Assert
+		assertEquals(Optional.of("gzip"), listing.headers().firstValue(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(25, new ObjectMapper().readTree(gunzip(listing.body())).get("content").size());
+		assertEquals(Optional.empty(), singleGame.headers().firstValue(HttpHeaders.CONTENT_ENCODING));
+	}
+
+	@Test
+	public void testGetAndAddGames_SpeakCbor_WhenAskedFor() throws IOException {
+		// Arrange
+		byte[] newGame = cborMapper.writeValueAsBytes(new VideoGame("CBOR game", "Puzzle", "Nintendo", 9.99));
+
+		// Act
+		byte[] listing = webTestClient.get().uri("/api/v1/games?size=5").accept(MediaType.APPLICATION_CBOR).exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(MediaType.APPLICATION_CBOR)
+				.expectBody().returnResult().getResponseBody();
+		byte[] created = webTestClient.post().uri("/api/v1/games").contentType(MediaType.APPLICATION_CBOR)
+				.accept(MediaType.APPLICATION_CBOR).bodyValue(newGame).exchange()
+				.expectStatus().isCreated()
+				.expectBody().returnResult().getResponseBody();
+
+		// Assert
+		JsonNode firstGame = cborMapper.readTree(listing).get("content").get(0);
+		assertEquals(1, firstGame.get("id").asInt());
+		assertEquals("The Last of Us", firstGame.get("title").asText());
+		assertEquals("CBOR game", cborMapper.readValue(created, VideoGame.class).getTitle());
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.rtasalem.videoGameShopApi.controllerTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.OutputStream;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rtasalem.videoGameShopApi.cache.CatalogueVersionHolder;
+import com.rtasalem.videoGameShopApi.cache.VideoGameCache;
+import com.rtasalem.videoGameShopApi.controller.VideoGameController;
+import com.rtasalem.videoGameShopApi.inventory.StockReservations;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.pricing.PriceUpdatePipeline;
+import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+import com.rtasalem.videoGameShopApi.search.VideoGameFacets;
+import com.rtasalem.videoGameShopApi.search.VideoGameSearchIndex;
+import com.rtasalem.videoGameShopApi.service.VideoGameService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+
+/**
+ * Runs in its own surefire execution with a small heap (see the low-memory execution in the pom), so buffering
+ * the export anywhere between the repository stream and the response would fail with an OutOfMemoryError.
+ */
+@Tag("low-memory")
+class VideoGameExportLowMemoryTests {
+
+	private static final int ROW_COUNT = 1_000_000;
+
+	@Test
+	public void testExportAllGames_StreamsOneMillionGamesWithoutBuffering() throws Exception {
+		// Arrange
+		// Stub-only mocks do not record invocations, otherwise Mockito itself would hold on to every row.
+		VideoGameDAO videoGameRepo = mock(VideoGameDAO.class, withSettings().stubOnly());
+		EntityManager entityManager = mock(EntityManager.class, withSettings().stubOnly());
+		when(videoGameRepo.streamAllOrderedById()).thenReturn(IntStream.rangeClosed(1, ROW_COUNT).mapToObj(id -> {
+			VideoGame videoGame = new VideoGame("Game number " + id, "Adventure", "Naughty Dog", 15.99);
+			videoGame.setId(id);
+			return videoGame;
+		}));
+		VideoGameController controller = new VideoGameController(new VideoGameService(videoGameRepo, entityManager, mock(Validator.class),
+				mock(VideoGameCache.class), mock(ApplicationEventPublisher.class), mock(VideoGameSearchIndex.class),
+				mock(VideoGameFacets.class), mock(CatalogueVersionHolder.class), mock(PriceUpdatePipeline.class),
+				mock(StockReservations.class)), new ObjectMapper());
+		LineCountingOutputStream outputStream = new LineCountingOutputStream();
+
+		// Act
+		ResponseEntity<StreamingResponseBody> response = controller.exportAllGames();
+		response.getBody().writeTo(outputStream);
+
+		// Assert
+		assertEquals(ROW_COUNT, outputStream.lines);
+	}
+
+	private static class LineCountingOutputStream extends OutputStream {
+
+		private long lines;
+
+		@Override
+		public void write(int b) {
+			if (b == '\n') {
+				lines++;
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			for (int i = off; i < off + len; i++) {
+				write(b[i]);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,171 @@
+package com.rtasalem.videoGameShopApi.feedTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.feed.ChangeFeed;
+import com.rtasalem.videoGameShopApi.model.CatalogueChange;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ChangeFeedTests {
+
+	// Sends on the calling thread, so every change has been delivered by the time append() returns.
+	private final ChangeFeed changeFeed = new ChangeFeed(4, Duration.ofMinutes(1), Runnable::run);
+
+	private static class RecordingSubscriber implements ChangeFeed.Subscriber {
+
+		private final List<Long> sent = new ArrayList<>();
+
+		private final List<Long> resets = new ArrayList<>();
+
+		private boolean failing;
+
+		private volatile boolean closed;
+
+		@Override
+		public void send(CatalogueChange change) throws IOException {
+			if (failing) {
+				throw new IOException("Broken pipe");
+			}
+			sent.add(change.sequence());
+		}
+
+		@Override
+		public void reset(long sequence) {
+			resets.add(sequence);
+		}
+
+		@Override
+		public void heartbeat() {
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+
+	}
+
+	private long append(int id) {
+		return changeFeed.append(VideoGameChangedEvent.Type.DELETED, id, null).sequence();
+	}
+
+	@Test
+	public void testSubscribe_ReplaysChangesAfterLastSequenceThenSendsNewOnes() {
+		// Arrange
+		long first = append(1);
+		long second = append(2);
+		long third = append(3);
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+
+		// Act
+		changeFeed.subscribe(first, subscriber);
+		long fourth = append(4);
+
+		// Assert
+		assertEquals(List.of(second, third, fourth), subscriber.sent);
+		assertEquals(List.of(), subscriber.resets);
+	}
+
+	@Test
+	public void testSubscribe_ResetsToHead_WhenMissedChangesWereOverwritten() {
+		// Arrange
+		long first = append(1);
+		for (int id = 2; id <= 6; id++) {
+			append(id);
+		}
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+
+		// Act
+		changeFeed.subscribe(first, subscriber);
+		long next = append(7);
+
+		// Assert
+		assertNull(changeFeed.changesAfter(first, 10));
+		assertEquals(List.of(next - 1), subscriber.resets);
+		assertEquals(List.of(next), subscriber.sent);
+	}
+
+	@Test
+	public void testSubscribe_ResetsToHead_WhenSequenceIsFromBeforeARestart() {
+		// Arrange
+		append(1);
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+
+		// Act
+		changeFeed.subscribe(42L, subscriber);
+
+		// Assert
+		assertEquals(List.of(changeFeed.head()), subscriber.resets);
+	}
+
+	@Test
+	public void testAppend_DropsSubscriber_WhenSendFails() {
+		// Arrange
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		changeFeed.subscribe(null, subscriber);
+		subscriber.failing = true;
+
+		// Act
+		append(1);
+
+		// Assert
+		assertEquals(0, changeFeed.subscriberCount());
+	}
+
+	@Test
+	public void testAppend_DropsSubscriber_WhenDeliveryPoolIsFull() throws Exception {
+		// Arrange
+		ChangeFeed pooledFeed = new ChangeFeed(4, Duration.ofMinutes(1), 1, 1, new SimpleMeterRegistry());
+		pooledFeed.start();
+		CountDownLatch sending = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		RecordingSubscriber blocked = new RecordingSubscriber() {
+
+			@Override
+			public void send(CatalogueChange change) throws IOException {
+				sending.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				super.send(change);
+			}
+
+		};
+		RecordingSubscriber queued = new RecordingSubscriber();
+		RecordingSubscriber rejected = new RecordingSubscriber();
+		pooledFeed.subscribe(null, blocked);
+		pooledFeed.append(VideoGameChangedEvent.Type.DELETED, 1, null);
+		assertTrue(sending.await(10, TimeUnit.SECONDS));
+
+		// Act
+		pooledFeed.subscribe(null, queued);
+		pooledFeed.subscribe(null, rejected);
+
+		// Assert
+		assertTrue(rejected.closed);
+		assertFalse(queued.closed);
+		assertEquals(2, pooledFeed.subscriberCount());
+		release.countDown();
+		pooledFeed.stop();
+		assertTrue(blocked.closed);
+		assertTrue(queued.closed);
+		assertEquals(0, pooledFeed.subscriberCount());
+	}
+
+}
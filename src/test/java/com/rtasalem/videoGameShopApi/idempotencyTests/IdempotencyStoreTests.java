@@ -0,0 +1,102 @@
+package com.rtasalem.videoGameShopApi.idempotencyTests;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.rtasalem.videoGameShopApi.exception.IdempotencyKeyInProgressException;
+import com.rtasalem.videoGameShopApi.exception.IdempotencyKeyMismatchException;
+import com.rtasalem.videoGameShopApi.idempotency.IdempotencyStore;
+import com.rtasalem.videoGameShopApi.idempotency.StoredResponse;
+
+class IdempotencyStoreTests {
+
+	private final AtomicLong nanos = new AtomicLong();
+
+	private IdempotencyStore idempotencyStore;
+
+	private static final StoredResponse CREATED = new StoredResponse("hash-1", 201, "http://localhost/api/v1/games/1",
+			"application/json", "{\"id\":1}".getBytes());
+
+	@BeforeEach
+	public void setUp() {
+		idempotencyStore = new IdempotencyStore(100, Duration.ofHours(1), nanos::get, null);
+	}
+
+	@Test
+	public void testBegin_ReturnsStoredResponse_UntilTimeToLiveExpires() {
+		// Arrange
+		assertNull(idempotencyStore.begin("key-1", "hash-1"));
+		idempotencyStore.complete("key-1", CREATED);
+
+		// Act & Assert
+		assertSame(CREATED, idempotencyStore.begin("key-1", "hash-1"));
+		nanos.addAndGet(Duration.ofHours(2).toNanos());
+		assertNull(idempotencyStore.begin("key-1", "hash-1"));
+	}
+
+	@Test
+	public void testBegin_ThrowsInProgress_UntilKeyIsReleased() {
+		// Arrange
+		assertNull(idempotencyStore.begin("key-2", "hash-1"));
+
+		// Act & Assert
+		assertThrows(IdempotencyKeyInProgressException.class, () -> idempotencyStore.begin("key-2", "hash-1"));
+		idempotencyStore.release("key-2");
+		assertNull(idempotencyStore.begin("key-2", "hash-1"));
+	}
+
+	@Test
+	public void testRelease_KeepsCompletedResponse() {
+		// Arrange
+		idempotencyStore.begin("key-3", "hash-1");
+		idempotencyStore.complete("key-3", CREATED);
+
+		// Act
+		idempotencyStore.release("key-3");
+
+		// Assert
+		assertSame(CREATED, idempotencyStore.begin("key-3", "hash-1"));
+	}
+
+	@Test
+	public void testBegin_ThrowsMismatch_WhenKeyIsReusedForADifferentRequest() {
+		// Arrange
+		idempotencyStore.begin("key-4", "hash-1");
+		idempotencyStore.complete("key-4", CREATED);
+
+		// Act & Assert
+		assertThrows(IdempotencyKeyMismatchException.class, () -> idempotencyStore.begin("key-4", "hash-2"));
+		assertSame(CREATED, idempotencyStore.begin("key-4", "hash-1"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testBegin_ReleasesKey_WhenPersistedResponseCannotBeRead() {
+		// Arrange
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class)))
+				.thenThrow(new DataAccessResourceFailureException("Database unavailable"))
+				.thenReturn(List.of());
+		IdempotencyStore persistentStore = new IdempotencyStore(100, Duration.ofHours(1), nanos::get, jdbcTemplate);
+
+		// Act & Assert
+		assertThrows(DataAccessResourceFailureException.class, () -> persistentStore.begin("key-5", "hash-1"));
+		assertNull(persistentStore.begin("key-5", "hash-1"));
+	}
+
+}
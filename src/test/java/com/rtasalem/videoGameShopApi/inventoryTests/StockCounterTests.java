@@ -0,0 +1,162 @@
+package com.rtasalem.videoGameShopApi.inventoryTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.rtasalem.videoGameShopApi.inventory.StockCounter;
+
+/**
+ * Stress tests: many threads buy the same game at once, as on a launch day, and every copy must be sold exactly once.
+ */
+class StockCounterTests {
+
+	private static final int BUYERS = 32;
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(BUYERS + 4);
+
+	@AfterEach
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	// Starts every task at the same moment and returns their results once all have finished.
+	private <T> List<T> runTogether(List<Callable<T>> tasks) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<T>> futures = new ArrayList<>();
+		for (Callable<T> task : tasks) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				return task.call();
+			}));
+		}
+		start.countDown();
+		List<T> results = new ArrayList<>();
+		for (Future<T> future : futures) {
+			results.add(future.get());
+		}
+		return results;
+	}
+
+	// Buys 1 to 3 copies at a time until not even one is left, and returns how many copies were bought.
+	private static long buyUntilSoldOut(StockCounter counter, int buyer, AtomicBoolean restocking) {
+		long bought = 0;
+		int purchases = 0;
+		while (true) {
+			// Read first, so that a refusal after the last delivery really means sold out.
+			boolean delivered = !restocking.get();
+			int quantity = 1 + (buyer + purchases++) % 3;
+			if (counter.tryTake(quantity)) {
+				bought += quantity;
+			} else if (counter.tryTake(1)) {
+				bought++;
+			} else if (delivered) {
+				return bought;
+			}
+		}
+	}
+
+	@Test
+	public void testTryTake_SellsEveryCopyExactlyOnce_WhenManyThreadsBuyTheSameGame() throws Exception {
+		// Arrange
+		StockCounter counter = new StockCounter(100_000, 8);
+		AtomicBoolean restocking = new AtomicBoolean();
+		List<Callable<Long>> buyers = new ArrayList<>();
+		for (int i = 0; i < BUYERS; i++) {
+			int buyer = i;
+			buyers.add(() -> buyUntilSoldOut(counter, buyer, restocking));
+		}
+
+		// Act
+		List<Long> bought = runTogether(buyers);
+
+		// Assert
+		assertEquals(100_000, bought.stream().mapToLong(Long::longValue).sum());
+		assertEquals(0, counter.available());
+		assertEquals(100_000, counter.takeSold());
+		assertFalse(counter.tryTake(1));
+	}
+
+	@Test
+	public void testTryTakeAndAdd_NeitherOversellNorLoseStock_WhenRestockedDuringPurchases() throws Exception {
+		// Arrange
+		StockCounter counter = new StockCounter(0, 8);
+		AtomicBoolean restocking = new AtomicBoolean(true);
+		CountDownLatch restocked = new CountDownLatch(4);
+		List<Callable<Long>> tasks = new ArrayList<>();
+		for (int i = 0; i < BUYERS; i++) {
+			int buyer = i;
+			tasks.add(() -> buyUntilSoldOut(counter, buyer, restocking));
+		}
+		for (int i = 0; i < 4; i++) {
+			tasks.add(() -> {
+				for (int delivery = 0; delivery < 5_000; delivery++) {
+					counter.add(5);
+				}
+				restocked.countDown();
+				if (restocked.getCount() == 0) {
+					restocking.set(false);
+				}
+				return 0L;
+			});
+		}
+
+		// Act
+		List<Long> bought = runTogether(tasks);
+
+		// Assert
+		assertEquals(4 * 5_000 * 5, bought.stream().mapToLong(Long::longValue).sum());
+		assertEquals(0, counter.available());
+		assertEquals(4 * 5_000 * 5, counter.takeSold());
+	}
+
+	@Test
+	public void testTryTake_TakesNothing_WhenFewerCopiesThanAskedForAreLeft() {
+		// Arrange
+		StockCounter counter = new StockCounter(5, 8);
+
+		// Act
+		boolean tooMany = counter.tryTake(6);
+		boolean all = counter.tryTake(5);
+
+		// Assert
+		assertFalse(tooMany);
+		assertTrue(all);
+		assertEquals(0, counter.available());
+		assertFalse(counter.tryTake(1));
+		counter.add(2);
+		assertTrue(counter.tryTake(2));
+		assertEquals(7, counter.takeSold());
+	}
+
+	@Test
+	public void testDrain_TakesEveryCopyLeftWithoutCountingThemAsSold() {
+		// Arrange
+		StockCounter counter = new StockCounter(10, 8);
+		counter.tryTake(3);
+
+		// Act
+		long drained = counter.drain();
+
+		// Assert
+		assertEquals(7, drained);
+		assertEquals(0, counter.available());
+		assertFalse(counter.tryTake(1));
+		assertEquals(3, counter.takeSold());
+		counter.add(1);
+		assertTrue(counter.tryTake(1));
+	}
+
+}
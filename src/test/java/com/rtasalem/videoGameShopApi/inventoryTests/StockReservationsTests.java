@@ -0,0 +1,279 @@
+package com.rtasalem.videoGameShopApi.inventoryTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.rtasalem.videoGameShopApi.cache.VideoGameCache;
+import com.rtasalem.videoGameShopApi.exception.OutOfStockException;
+import com.rtasalem.videoGameShopApi.exception.ResourceNotFoundException;
+import com.rtasalem.videoGameShopApi.inventory.StockReservations;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+import com.rtasalem.videoGameShopApi.service.VideoGameService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Sells stock through the service against the real H2 database. The scheduled flush is pushed far enough out that
+ * each test decides when to flush.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:stockreservations;DB_CLOSE_DELAY=-1",
+		"videogames.stock.flush-interval=1h"
+})
+class StockReservationsTests {
+
+	@Autowired
+	private VideoGameService videoGameService;
+
+	@Autowired
+	private StockReservations stockReservations;
+
+	@Autowired
+	private VideoGameCache videoGameCache;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private VideoGameDAO videoGameRepo;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	// Another instance of the service selling from the same database.
+	private StockReservations otherInstance() {
+		return new StockReservations(8, 50, Duration.ofHours(1), jdbcTemplate, transactionManager, videoGameRepo,
+				videoGameCache, eventPublisher, new SimpleMeterRegistry());
+	}
+
+	private int leasedInDatabase(int id) {
+		return jdbcTemplate.queryForObject("select leased from VideoGame where id = ?", Integer.class, id);
+	}
+
+	// Buys one copy at a time until none is left, and returns how many were bought.
+	private int buyUntilSoldOut(StockReservations reservations, int id) {
+		int bought = 0;
+		try {
+			while (true) {
+				reservations.purchase(id, 1);
+				bought++;
+			}
+		} catch (OutOfStockException ex) {
+			return bought;
+		}
+	}
+
+	private VideoGame createGame(String title) {
+		return videoGameService.createNewGame(new VideoGame(title + " " + System.nanoTime(), "Puzzle", "Nintendo", 9.99));
+	}
+
+	private int stockInDatabase(int id) {
+		return jdbcTemplate.queryForObject("select stock from VideoGame where id = ?", Integer.class, id);
+	}
+
+	@Test
+	public void testPurchaseGame_SellsEveryCopyOnceAndWritesThemInOneFlush_WhenBuyersRaceForTheSameGame() throws Exception {
+		// Arrange
+		VideoGame game = createGame("Launch day game");
+		jdbcTemplate.update("update VideoGame set stock = 500 where id = ?", game.getId());
+		long version = videoGameService.findGameById(game.getId()).getVersion();
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> buyers = new ArrayList<>();
+
+		// Act
+		for (int i = 0; i < 16; i++) {
+			buyers.add(executor.submit(() -> {
+				start.await();
+				int bought = 0;
+				try {
+					while (true) {
+						videoGameService.purchaseGame(game.getId(), 1);
+						bought++;
+					}
+				} catch (OutOfStockException ex) {
+					return bought;
+				}
+			}));
+		}
+		start.countDown();
+		int sold = 0;
+		for (Future<Integer> buyer : buyers) {
+			sold += buyer.get();
+		}
+		executor.shutdown();
+
+		// Assert
+		assertEquals(500, sold);
+		assertEquals(0, stockReservations.available(game.getId()));
+		assertEquals(500, stockInDatabase(game.getId()));
+		assertEquals(1, stockReservations.flush());
+		assertEquals(0, stockInDatabase(game.getId()));
+		assertNull(videoGameCache.getIfPresent(game.getId()));
+		VideoGame written = videoGameService.findGameById(game.getId());
+		assertEquals(0, written.getStock());
+		assertEquals(version + 1, written.getVersion());
+	}
+
+	@Test
+	public void testPurchaseGame_RefusesTheWholePurchase_WhenFewerCopiesAreLeft() {
+		// Arrange
+		VideoGame game = createGame("Scarce game");
+		videoGameService.restockGame(game.getId(), 3);
+		videoGameService.purchaseGame(game.getId(), 2);
+
+		// Act
+		assertThrows(OutOfStockException.class, () -> videoGameService.purchaseGame(game.getId(), 2));
+
+		// Assert
+		assertEquals(1, stockReservations.available(game.getId()));
+		stockReservations.flush();
+		assertEquals(1, stockInDatabase(game.getId()));
+	}
+
+	@Test
+	public void testEditExistingGame_LeavesStockAlone() {
+		// Arrange
+		VideoGame game = createGame("Edited stock game");
+		videoGameService.restockGame(game.getId(), 10);
+		videoGameService.purchaseGame(game.getId(), 4);
+		stockReservations.flush();
+		VideoGame replacement = new VideoGame(game.getTitle(), game.getGenre(), game.getDeveloper(), 6.00);
+		replacement.setStock(99);
+
+		// Act
+		videoGameService.editExistingGame(replacement, game.getId(), null);
+		replacement.setId(game.getId());
+		videoGameService.editExistingGames(List.of(replacement));
+
+		// Assert
+		assertEquals(6, stockInDatabase(game.getId()));
+		assertEquals(6, stockReservations.available(game.getId()));
+	}
+
+	@Test
+	public void testPurchaseGame_ThrowsResourceNotFound_WhenGameDoesNotExistOrHasBeenDeleted() {
+		// Arrange
+		VideoGame game = createGame("Deleted stock game");
+		videoGameService.restockGame(game.getId(), 5);
+
+		// Act
+		videoGameService.removeGameById(game.getId());
+
+		// Assert
+		assertThrows(ResourceNotFoundException.class, () -> videoGameService.purchaseGame(game.getId(), 1));
+		assertThrows(ResourceNotFoundException.class, () -> videoGameService.purchaseGame(Integer.MAX_VALUE, 1));
+	}
+
+	@Test
+	public void testPurchaseGame_RemembersMissingGame_AndCreatingItForgetsThat() {
+		// Arrange
+		int id = jdbcTemplate.queryForObject("select max(id) + 1 from VideoGame", Integer.class);
+
+		// Act
+		assertThrows(ResourceNotFoundException.class, () -> videoGameService.purchaseGame(id, 1));
+
+		// Assert
+		assertTrue(videoGameCache.isKnownMissing(id));
+		assertThrows(ResourceNotFoundException.class, () -> videoGameService.restockGame(id, 1));
+		VideoGame game = createGame("Once missing stock game");
+		assertEquals(id, game.getId());
+		videoGameService.restockGame(id, 1);
+		videoGameService.purchaseGame(id, 1);
+		assertEquals(0, stockReservations.available(id));
+	}
+
+	@Test
+	public void testPurchaseGame_NeverSellsCopiesLeasedByAnInstanceThatDiedWithoutWritingItsSales() {
+		// Arrange
+		VideoGame game = createGame("Crashed instance game");
+		videoGameService.restockGame(game.getId(), 120);
+		videoGameService.purchaseGame(game.getId(), 3);
+
+		// Act
+		// This instance never flushes, as if it had died. Another one sells whatever it can.
+		int soldElsewhere = buyUntilSoldOut(otherInstance(), game.getId());
+
+		// Assert
+		// The 47 copies the first instance leased and never sold are lost, rather than sold twice.
+		assertEquals(70, soldElsewhere);
+		assertEquals(120, leasedInDatabase(game.getId()));
+	}
+
+	@Test
+	public void testPurchaseGame_NeverOversells_WhenTwoInstancesRaceForTheSameGame() throws Exception {
+		// Arrange
+		VideoGame game = createGame("Two instance game");
+		videoGameService.restockGame(game.getId(), 300);
+		StockReservations other = otherInstance();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<Integer>> buyers = new ArrayList<>();
+
+		// Act
+		for (int i = 0; i < 8; i++) {
+			StockReservations reservations = i % 2 == 0 ? stockReservations : other;
+			buyers.add(executor.submit(() -> {
+				int bought = buyUntilSoldOut(reservations, game.getId());
+				// Hands back the leases of the game as soon as this instance has sold nothing more, for the other one.
+				reservations.flush();
+				reservations.flush();
+				return bought + buyUntilSoldOut(reservations, game.getId());
+			}));
+		}
+		int sold = 0;
+		for (Future<Integer> buyer : buyers) {
+			sold += buyer.get();
+		}
+		executor.shutdown();
+		stockReservations.flush();
+		other.flush();
+
+		// Assert
+		assertTrue(sold <= 300);
+		assertEquals(300 - sold, stockInDatabase(game.getId()));
+		assertEquals(0, leasedInDatabase(game.getId()) - stockReservations.available(game.getId())
+				- other.available(game.getId()));
+	}
+
+	@Test
+	public void testFlush_HandsBackTheLease_OnceTheGameHasSoldNothingSinceThePreviousFlush() {
+		// Arrange
+		VideoGame game = createGame("Idle lease game");
+		videoGameService.restockGame(game.getId(), 100);
+		videoGameService.purchaseGame(game.getId(), 1);
+
+		// Act
+		stockReservations.flush();
+		int leasedAfterSale = leasedInDatabase(game.getId());
+		stockReservations.flush();
+
+		// Assert
+		assertEquals(49, leasedAfterSale);
+		assertEquals(0, leasedInDatabase(game.getId()));
+		assertEquals(99, stockInDatabase(game.getId()));
+		assertEquals(0, stockReservations.available(game.getId()));
+		assertEquals(99, buyUntilSoldOut(otherInstance(), game.getId()));
+	}
+
+}
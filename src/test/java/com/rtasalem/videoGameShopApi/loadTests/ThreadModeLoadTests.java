@@ -0,0 +1,103 @@
+package com.rtasalem.videoGameShopApi.loadTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.rtasalem.videoGameShopApi.VideoGameShopApiApplication;
+import com.rtasalem.videoGameShopApi.config.VirtualThreadConfig;
+
+/**
+ * Starts the application in each thread mode and fires the same burst of concurrent requests, each on its own
+ * connection, at it. Half of the requests hit the paged listing, which goes to the database on every call, and half
+ * hit a single game. Every request must succeed in both modes, and virtual threads must answer the burst with a p99
+ * no worse than platform threads, give or take noise. Run with mvn test -Pload-tests; the comparison needs JDK 21.
+ */
+@Tag("load")
+class ThreadModeLoadTests {
+
+	static final int CONCURRENT_CONNECTIONS = Integer.getInteger("load.connections", 5000);
+
+	// Allows for run to run noise in the p99 of a single burst.
+	private static final double MAX_P99_RATIO = 1.1;
+
+	@Test
+	public void testBurstOfConcurrentRequests_HasNoWorseP99OnVirtualThreads() throws Exception {
+		// Act
+		long platformP99 = p99UnderBurst(false);
+		assumeTrue(Runtime.version().feature() >= 21, "Virtual threads need JDK 21 or later");
+		long virtualP99 = p99UnderBurst(true);
+
+		// Assert
+		assertTrue(virtualP99 <= platformP99 * MAX_P99_RATIO, "The p99 was " + virtualP99 + " ms on virtual threads and "
+				+ platformP99 + " ms on platform threads, at " + CONCURRENT_CONNECTIONS + " concurrent connections");
+	}
+
+	// Returns the p99 latency in milliseconds of a burst of requests, every one of which must have succeeded.
+	private static long p99UnderBurst(boolean virtualThreads) {
+		// Passed as arguments, which take precedence over application.properties.
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(VideoGameShopApiApplication.class).run(
+				"--server.port=0",
+				"--spring.datasource.url=jdbc:h2:mem:load" + (virtualThreads ? "virtual" : "platform") + ";DB_CLOSE_DELAY=-1",
+				"--" + VirtualThreadConfig.ENABLED_PROPERTY + "=" + virtualThreads,
+				"--spring.jpa.show-sql=false",
+				"--logging.level.com.rtasalem.videoGameShopApi=WARN",
+				"--server.tomcat.max-connections=10000",
+				"--server.tomcat.accept-count=10000",
+				// Measures how the thread modes cope with a burst, rather than how much of it is turned away.
+				"--videogames.rate-limit.enabled=false",
+				"--videogames.concurrency-limit.enabled=false");
+		ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+		HttpClient client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(60))
+				.executor(clientExecutor)
+				.build();
+		try {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			// Warms up the JIT, the connection pool and the cache before anything is measured.
+			sendBurst(client, port, 500);
+			long[] latencies = sendBurst(client, port, CONCURRENT_CONNECTIONS);
+			Arrays.sort(latencies);
+			return latencies[(int) Math.ceil(0.99 * latencies.length) - 1];
+		} finally {
+			clientExecutor.shutdownNow();
+			context.close();
+		}
+	}
+
+	private static long[] sendBurst(HttpClient client, int port, int requests) {
+		List<CompletableFuture<Long>> responses = new ArrayList<>(requests);
+		for (int i = 0; i < requests; i++) {
+			String path = i % 2 == 0 ? "/api/v1/games?size=5&page=" + (i % 3) : "/api/v1/games/" + (1 + i % 5);
+			HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+					.timeout(Duration.ofSeconds(120))
+					.build();
+			long start = System.nanoTime();
+			responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(response -> {
+				assertEquals(200, response.statusCode(), "GET " + path);
+				return Duration.ofNanos(System.nanoTime() - start).toMillis();
+			}));
+		}
+		return responses.stream().mapToLong(CompletableFuture::join).toArray();
+	}
+
+}
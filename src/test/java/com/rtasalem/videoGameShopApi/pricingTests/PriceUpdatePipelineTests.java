@@ -0,0 +1,166 @@
+package com.rtasalem.videoGameShopApi.pricingTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.rtasalem.videoGameShopApi.cache.VideoGameCache;
+import com.rtasalem.videoGameShopApi.inventory.StockReservations;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.pricing.PriceUpdatePipeline;
+import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+import com.rtasalem.videoGameShopApi.service.VideoGameService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs price changes through the pipeline against the real H2 database. The scheduled flush is pushed far enough
+ * out that each test decides when to flush.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:priceupdates;DB_CLOSE_DELAY=-1",
+		"videogames.price-updates.flush-interval=1h",
+		"videogames.price-updates.flush-size=100000"
+})
+class PriceUpdatePipelineTests {
+
+	@Autowired
+	private VideoGameService videoGameService;
+
+	@Autowired
+	private PriceUpdatePipeline priceUpdates;
+
+	@Autowired
+	private VideoGameDAO videoGameRepo;
+
+	@Autowired
+	private StockReservations stockReservations;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private VideoGameCache videoGameCache;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	private VideoGame createGame(String title) {
+		return videoGameService.createNewGame(new VideoGame(title + " " + System.nanoTime(), "Puzzle", "Nintendo", 9.99));
+	}
+
+	@Test
+	public void testSubmit_CoalescesChangesAndFindGameByIdSeesLatestPriceBeforeFlush() {
+		// Arrange
+		VideoGame game = createGame("Coalesced price game");
+		long version = videoGameService.findGameById(game.getId()).getVersion();
+
+		// Act
+		videoGameService.updateGamePrice(game.getId(), 10.00);
+		videoGameService.updateGamePrice(game.getId(), 11.00);
+		videoGameService.updateGamePrice(game.getId(), 12.50);
+
+		// Assert
+		assertEquals(1, priceUpdates.pendingCount());
+		assertEquals(12.50, videoGameService.findGameById(game.getId()).getPrice());
+		assertNull(videoGameService.findGameById(game.getId()).getVersion());
+		assertEquals(9.99, videoGameRepo.findById(game.getId()).get().getPrice());
+
+		assertEquals(1, priceUpdates.flush());
+		assertNull(videoGameCache.getIfPresent(game.getId()));
+		VideoGame written = videoGameRepo.findById(game.getId()).get();
+		assertEquals(12.50, written.getPrice());
+		assertEquals(version + 1, written.getVersion());
+		assertEquals(written.getVersion(), videoGameService.findGameById(game.getId()).getVersion());
+		assertEquals(0, priceUpdates.pendingCount());
+	}
+
+	@Test
+	public void testFindGameById_KeepsStock_WhilePriceIsQueued() {
+		// Arrange
+		VideoGame game = createGame("Stocked price game");
+		videoGameService.restockGame(game.getId(), 7);
+		stockReservations.flush();
+
+		// Act
+		videoGameService.updateGamePrice(game.getId(), 14.00);
+
+		// Assert
+		VideoGame overlaid = videoGameService.findGameById(game.getId());
+		assertEquals(14.00, overlaid.getPrice());
+		assertEquals(7, overlaid.getStock());
+		priceUpdates.flush();
+		assertEquals(7, videoGameService.findGameById(game.getId()).getStock());
+	}
+
+	@Test
+	public void testFlush_WritesEveryWaitingPriceInOneFlush() {
+		// Arrange
+		List<VideoGame> games = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			games.add(createGame("Batched price game " + i));
+		}
+		for (VideoGame game : games) {
+			videoGameService.updateGamePrice(game.getId(), 20.00);
+		}
+
+		// Act
+		int flushed = priceUpdates.flush();
+
+		// Assert
+		assertEquals(games.size(), flushed);
+		videoGameRepo.findAllById(games.stream().map(VideoGame::getId).toList())
+				.forEach(game -> assertEquals(20.00, game.getPrice()));
+	}
+
+	@Test
+	public void testEditExistingGame_WinsOverEarlierQueuedPrice() {
+		// Arrange
+		VideoGame game = createGame("Replaced price game");
+		videoGameService.updateGamePrice(game.getId(), 25.00);
+		VideoGame replacement = new VideoGame(game.getTitle(), game.getGenre(), game.getDeveloper(), 6.00);
+
+		// Act
+		videoGameService.editExistingGame(replacement, game.getId(), null);
+		priceUpdates.flush();
+
+		// Assert
+		assertEquals(6.00, videoGameRepo.findById(game.getId()).get().getPrice());
+		assertEquals(6.00, videoGameService.findGameById(game.getId()).getPrice());
+	}
+
+	@Test
+	public void testSubmit_FlushesQueueItself_WhenCapacityIsReached() {
+		// Arrange
+		PriceUpdatePipeline smallPipeline = new PriceUpdatePipeline(2, 100, Duration.ofHours(1), jdbcTemplate,
+				transactionManager, videoGameRepo, videoGameCache, eventPublisher, new SimpleMeterRegistry());
+		VideoGame first = createGame("Backpressure price game");
+		VideoGame second = createGame("Backpressure price game");
+		VideoGame third = createGame("Backpressure price game");
+		smallPipeline.submit(first.getId(), 15.00);
+		smallPipeline.submit(second.getId(), 16.00);
+
+		// Act
+		smallPipeline.submit(third.getId(), 17.00);
+
+		// Assert
+		assertEquals(1, smallPipeline.pendingCount());
+		assertEquals(15.00, videoGameRepo.findById(first.getId()).get().getPrice());
+		assertEquals(16.00, videoGameRepo.findById(second.getId()).get().getPrice());
+		assertEquals(9.99, videoGameRepo.findById(third.getId()).get().getPrice());
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.rtasalem.videoGameShopApi.repositoryTests;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Inserts generated video games with ids from 100, clear of the games seeded by the migrations. Every game has its
+ * own title, and the genres, developers and prices repeat every 1000, 5000 and 2501 games.
+ */
+final class SeededVideoGames {
+
+	// H2 slows down sharply on a single transaction of a million rows.
+	private static final int CHUNK_SIZE = 50_000;
+
+	private SeededVideoGames() {
+	}
+
+	static void insert(JdbcTemplate jdbcTemplate, int rowCount) {
+		for (int from = 100; from < rowCount + 100; from += CHUNK_SIZE) {
+			int to = Math.min(from + CHUNK_SIZE, rowCount + 100) - 1;
+			jdbcTemplate.update("insert into VideoGame (id, title, genre, developer, price, version, lastModified) direct "
+					+ "select x, 'Seeded game ' || x, 'Genre ' || mod(x, 1000), 'Developer ' || mod(x, 5000), "
+					+ "5 + mod(x, 2501) / 100.0, 0, current_timestamp from system_range(?, ?)", from, to);
+		}
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.rtasalem.videoGameShopApi.repositoryTests;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Seeds a million video games and times the count query behind each filtered page, which has to visit every matching
+ * row. Run with mvn test -Pload-tests -Dtest=VideoGameIndexLoadTests.
+ */
+@Tag("load")
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class VideoGameIndexLoadTests {
+
+	private static final int ROW_COUNT = 1_000_000;
+
+	// Counting the matches through an index takes a few milliseconds here, a full scan of a million rows around 80.
+	private static final double MAX_MEDIAN_MILLIS = 20;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeAll
+	public void seedRows() {
+		SeededVideoGames.insert(jdbcTemplate, ROW_COUNT);
+	}
+
+	private int count(String where, Object... args) {
+		return jdbcTemplate.queryForObject("select count(*) from VideoGame where " + where, Integer.class, args);
+	}
+
+	// Each run looks up a different value, because H2 reuses the result of a repeated query on an unchanged table.
+	private double medianMillis(IntUnaryOperator query) {
+		double[] millis = new double[25];
+		for (int i = 0; i < millis.length; i++) {
+			long started = System.nanoTime();
+			query.applyAsInt(i);
+			millis[i] = (System.nanoTime() - started) / 1_000_000.0;
+		}
+		Arrays.sort(millis);
+		return millis[millis.length / 2];
+	}
+
+	@Test
+	public void testLookups_AreFastAtAMillionRows() {
+		// Act
+		double titleMillis = medianMillis(i -> count("title = ?", "Seeded game " + (500_000 + i)));
+		double genreMillis = medianMillis(i -> count("genre = ?", "Genre " + i));
+		double developerMillis = medianMillis(i -> count("developer = ?", "Developer " + i));
+		double priceMillis = medianMillis(i -> count("price >= ? and price <= ?", 9.00 + i / 10.0, 9.01 + i / 10.0));
+
+		// Assert
+		assertTrue(titleMillis < MAX_MEDIAN_MILLIS, "Title lookup took " + titleMillis + " ms");
+		assertTrue(genreMillis < MAX_MEDIAN_MILLIS, "Genre filter took " + genreMillis + " ms");
+		assertTrue(developerMillis < MAX_MEDIAN_MILLIS, "Developer filter took " + developerMillis + " ms");
+		assertTrue(priceMillis < MAX_MEDIAN_MILLIS, "Price filter took " + priceMillis + " ms");
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.rtasalem.videoGameShopApi.repositoryTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.model.VideoGameFilter;
+import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+import com.rtasalem.videoGameShopApi.repository.VideoGameSpecifications;
+
+/**
+ * Seeds video games into the schema built by the Flyway migrations and checks from H2's query plan that every lookup
+ * the API makes is answered from an index. A dropped or renamed index makes one of these queries scan the whole
+ * table, which fails the build rather than only slowing production down. VideoGameIndexLoadTests times the same
+ * lookups at a million rows.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class VideoGameIndexTests {
+
+	// Enough rows for H2 to plan the lookups as it would on a large table, in a fraction of the time a million take.
+	private static final int ROW_COUNT = 20_000;
+
+	@Autowired
+	private VideoGameDAO videoGameRepo;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// Runs once outside the per-test transactions, so the rows are committed and shared by every test.
+	@BeforeAll
+	public void seedRows() {
+		SeededVideoGames.insert(jdbcTemplate, ROW_COUNT);
+	}
+
+	private String explain(String where) {
+		return jdbcTemplate.queryForObject("explain select * from VideoGame where " + where, String.class);
+	}
+
+	@Test
+	public void testQueryPlans_UseAnIndexForEveryLookup() {
+		// Act & Assert
+		assertTrue(explain("title = 'Seeded game 500'").contains("UK_VIDEOGAME_TITLE"));
+		assertTrue(explain("genre = 'Genre 7'").contains("IX_VIDEOGAME_GENRE"));
+		assertTrue(explain("developer = 'Developer 42'").contains("IX_VIDEOGAME_DEVELOPER"));
+		assertTrue(explain("price >= 9.00 and price <= 9.01").contains("IX_VIDEOGAME_PRICE"));
+	}
+
+	@Test
+	public void testRepositoryLookups_FindTheSeededRows() {
+		// Arrange
+		VideoGameFilter byDeveloper = new VideoGameFilter(null, "Developer 42", null, null);
+
+		// Act
+		List<String> titles = videoGameRepo.findTitlesIn(List.of("Seeded game 10000", "Missing game"));
+		Page<VideoGame> page = videoGameRepo.findAll(VideoGameSpecifications.matching(byDeveloper), PageRequest.of(0, 2));
+
+		// Assert
+		assertEquals(List.of("Seeded game 10000"), titles);
+		assertEquals(ROW_COUNT / 5000, page.getTotalElements());
+		assertEquals(2, page.getNumberOfElements());
+	}
+
+}
@@ -0,0 +1,78 @@
+package com.rtasalem.videoGameShopApi.searchTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.model.FacetCounts;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+import com.rtasalem.videoGameShopApi.search.VideoGameFacets;
+
+import jakarta.persistence.EntityManager;
+
+class VideoGameFacetsTests {
+
+	private VideoGameFacets facets;
+
+	private VideoGame createGame(int id, String genre, String developer, double price) {
+		VideoGame videoGame = new VideoGame("Game " + id, genre, developer, price);
+		videoGame.setId(id);
+		return videoGame;
+	}
+
+	private List<Long> priceCounts(FacetCounts counts) {
+		return counts.prices().stream().map(FacetCounts.PriceRange::count).toList();
+	}
+
+	@BeforeEach
+	public void setUp() {
+		facets = new VideoGameFacets(mock(VideoGameDAO.class), mock(EntityManager.class),
+				mock(PlatformTransactionManager.class));
+		facets.rebuild(Stream.of(
+				createGame(1, "Racing", "Nintendo", 5.00),
+				createGame(2, "Racing", "Codemasters", 9.99),
+				createGame(3, "Platformer", "Nintendo", 10.00),
+				createGame(4, "Racing", "Nintendo", 30.00)));
+	}
+
+	@Test
+	public void testCounts_CountsGenresDevelopersAndPriceRanges() {
+		// Act
+		FacetCounts counts = facets.counts();
+
+		// Assert
+		assertEquals(4, counts.total());
+		assertEquals(Map.of("Racing", 3L, "Platformer", 1L), counts.genres());
+		assertEquals(List.of("Racing", "Platformer"), List.copyOf(counts.genres().keySet()));
+		assertEquals(List.of("Nintendo", "Codemasters"), List.copyOf(counts.developers().keySet()));
+		assertEquals(List.of(2L, 1L, 0L, 0L, 1L), priceCounts(counts));
+		assertEquals(25.00, counts.prices().get(4).from());
+		assertEquals(30.00, counts.prices().get(4).to());
+	}
+
+	@Test
+	public void testOnVideoGameChanged_MovesUpdatedGamesAndForgetsDeletedGames() {
+		// Act
+		facets.onVideoGameChanged(VideoGameChangedEvent.updated(createGame(2, "Platformer", "Nintendo", 19.99)));
+		facets.onVideoGameChanged(VideoGameChangedEvent.deleted(4));
+		facets.onVideoGameChanged(VideoGameChangedEvent.deleted(99));
+		facets.onVideoGameChanged(VideoGameChangedEvent.created(createGame(5, "Sports", "EA Sports", 24.99)));
+
+		// Assert
+		FacetCounts counts = facets.counts();
+		assertEquals(4, counts.total());
+		assertEquals(Map.of("Racing", 1L, "Platformer", 2L, "Sports", 1L), counts.genres());
+		assertEquals(Map.of("Nintendo", 3L, "EA Sports", 1L), counts.developers());
+		assertEquals(List.of(1L, 1L, 1L, 1L, 0L), priceCounts(counts));
+	}
+
+}
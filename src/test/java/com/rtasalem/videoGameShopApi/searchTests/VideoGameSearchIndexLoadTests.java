@@ -0,0 +1,91 @@
+package com.rtasalem.videoGameShopApi.searchTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+import com.rtasalem.videoGameShopApi.search.VideoGameSearchIndex;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Fills the search index with a million generated video games and checks the latency of typical search box queries.
+ * The median of every query is held to the sub-millisecond target. The p99 of the broadest prefixes, such as zel,
+ * runs to a few milliseconds when a collection lands in the middle of the run, so it is only held to a looser bound.
+ * Run with mvn test -Pload-tests -Dtest=VideoGameSearchIndexLoadTests and a heap of at least 2GB.
+ */
+@Tag("load")
+class VideoGameSearchIndexLoadTests {
+
+	private static final int GAMES = 1_000_000;
+
+	private static final String[] TITLE_WORDS = {"dark", "knight", "legend", "star", "racer", "shadow", "kingdom",
+			"quest", "zelda", "mario", "galaxy", "storm", "empire", "hunter", "ghost", "dragon", "fury", "ocean",
+			"city", "rebellion", "frontier", "crystal", "titan", "nova", "echo", "phantom", "rogue", "saga", "forge"};
+
+	private static final String[] GENRES = {"Action", "Adventure", "Racing", "Puzzle", "Sports", "Strategy",
+			"Simulation", "Role-playing", "Shooter", "Platformer", "Fighting", "Horror"};
+
+	private static final String[] QUERIES = {"zel", "dark kni", "mario gal 12", "nintendo rac", "phantom ech",
+			"studio 42 hor", "legend qu", "crystal titan 9"};
+
+	private static final long MAX_MEDIAN_NANOS = 1_000_000;
+
+	private static final long MAX_P99_NANOS = 10_000_000;
+
+	@Test
+	public void testSearch_AtOneMillionGames() {
+		// Arrange
+		VideoGameSearchIndex searchIndex = new VideoGameSearchIndex(mock(VideoGameDAO.class), mock(EntityManager.class),
+				mock(PlatformTransactionManager.class));
+		Random random = new Random(42);
+		searchIndex.rebuild(IntStream.rangeClosed(1, GAMES).mapToObj(id -> {
+			String title = TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " " + TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]
+					+ " " + random.nextInt(100);
+			String developer = random.nextInt(10) == 0 ? "Nintendo" : "Studio " + random.nextInt(500);
+			VideoGame videoGame = new VideoGame(title, GENRES[random.nextInt(GENRES.length)], developer, 9.99);
+			videoGame.setId(id);
+			return videoGame;
+		}));
+		// Single writes after the rebuild, as the service makes them, copy the id lists they touch.
+		for (int id = GAMES + 1; id <= GAMES + 1000; id++) {
+			VideoGame videoGame = new VideoGame("Zelda echo " + id, "Action", "Nintendo", 9.99);
+			videoGame.setId(id);
+			searchIndex.onVideoGameChanged(VideoGameChangedEvent.created(videoGame));
+		}
+		for (int i = 0; i < 2000; i++) {
+			searchIndex.search(QUERIES[i % QUERIES.length], 20);
+		}
+
+		// Act
+		long[][] latencies = new long[QUERIES.length][200];
+		for (int q = 0; q < QUERIES.length; q++) {
+			for (int i = 0; i < latencies[q].length; i++) {
+				long start = System.nanoTime();
+				assertFalse(searchIndex.search(QUERIES[q], 20).isEmpty());
+				latencies[q][i] = System.nanoTime() - start;
+			}
+			Arrays.sort(latencies[q]);
+		}
+
+		// Assert
+		for (int q = 0; q < QUERIES.length; q++) {
+			assertTrue(latencies[q][100] < MAX_MEDIAN_NANOS, QUERIES[q] + " took " + latencies[q][100] / 1e6 + " ms at the median");
+			assertTrue(latencies[q][197] < MAX_P99_NANOS, QUERIES[q] + " took " + latencies[q][197] / 1e6 + " ms at the 99th percentile");
+		}
+		assertEquals(GAMES + 1000, searchIndex.size());
+	}
+
+}
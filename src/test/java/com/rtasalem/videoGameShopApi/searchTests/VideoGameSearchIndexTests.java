@@ -0,0 +1,83 @@
+package com.rtasalem.videoGameShopApi.searchTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+import com.rtasalem.videoGameShopApi.search.VideoGameSearchIndex;
+
+import jakarta.persistence.EntityManager;
+
+class VideoGameSearchIndexTests {
+
+	private VideoGameSearchIndex searchIndex;
+
+	private VideoGame createGame(int id, String title, String genre, String developer) {
+		VideoGame videoGame = new VideoGame(title, genre, developer, 9.99);
+		videoGame.setId(id);
+		return videoGame;
+	}
+
+	private List<Integer> searchIds(String query, int limit) {
+		return searchIndex.search(query, limit).stream().map(VideoGame::getId).toList();
+	}
+
+	@BeforeEach
+	public void setUp() {
+		searchIndex = new VideoGameSearchIndex(mock(VideoGameDAO.class), mock(EntityManager.class),
+				mock(PlatformTransactionManager.class));
+		searchIndex.onVideoGameChanged(VideoGameChangedEvent.created(createGame(1, "The Last of Us", "Action-adventure", "Naughty Dog")));
+		searchIndex.onVideoGameChanged(VideoGameChangedEvent.created(createGame(2, "Uncharted 4", "Action-adventure", "Naughty Dog")));
+		searchIndex.onVideoGameChanged(VideoGameChangedEvent.created(createGame(3, "Mario Kart 8", "Racing", "Nintendo")));
+		searchIndex.onVideoGameChanged(VideoGameChangedEvent.created(createGame(4, "Racing Legends", "Sports", "Codemasters")));
+	}
+
+	@Test
+	public void testSearch_MatchesPrefixesOfEveryWordIgnoringCase() {
+		// Act & Assert
+		assertEquals(List.of(2), searchIds("UNCH", 10));
+		assertEquals(List.of(1, 2), searchIds("naughty act", 10));
+		assertEquals(List.of(), searchIds("naughty racing", 10));
+	}
+
+	@Test
+	public void testSearch_RanksTitleMatchesAndWholeWordsFirst() {
+		// Act
+		List<Integer> ids = searchIds("racing", 10);
+
+		// Assert
+		assertEquals(List.of(4, 3), ids);
+		assertEquals(List.of(1, 2), searchIds("naughty", 10));
+	}
+
+	@Test
+	public void testSearch_ReturnsAtMostLimitGames() {
+		// Act & Assert
+		assertEquals(List.of(1), searchIds("a", 1));
+		assertEquals(List.of(1, 2), searchIds("a", 10));
+		assertTrue(searchIds("   ", 10).isEmpty());
+	}
+
+	@Test
+	public void testOnVideoGameChanged_ReindexesUpdatedGamesAndDropsDeletedGames() {
+		// Act
+		searchIndex.onVideoGameChanged(VideoGameChangedEvent.updated(createGame(2, "Uncharted 4", "Action-adventure", "Sony")));
+		searchIndex.onVideoGameChanged(VideoGameChangedEvent.deleted(3));
+
+		// Assert
+		assertEquals(List.of(1), searchIds("naughty", 10));
+		assertEquals(List.of(2), searchIds("sony", 10));
+		assertEquals(List.of(4), searchIds("racing", 10));
+		assertEquals(3, searchIndex.size());
+	}
+
+}
@@ -0,0 +1,128 @@
+package com.rtasalem.videoGameShopApi.serviceTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.rtasalem.videoGameShopApi.exception.ResourceNotFoundException;
+import com.rtasalem.videoGameShopApi.exception.VideoGameTitleExistsException;
+import com.rtasalem.videoGameShopApi.model.MultiGetResponse;
+import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.service.VideoGameService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Counts the JDBC statements each write prepares, using Hibernate statistics against the real H2 database, to make
+ * sure every single-game write stays at exactly one round trip.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:statementcount",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class VideoGameServiceStatementCountTests {
+
+	@Autowired
+	private VideoGameService videoGameService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	private int gameNumber;
+
+	private VideoGame newGame() {
+		return new VideoGame("Statement count game " + (++gameNumber) + " " + System.nanoTime(), "Puzzle", "Nintendo", 9.99);
+	}
+
+	@BeforeEach
+	public void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		// Warms up the pooled id generator so that the measured insert does not also fetch a block of ids.
+		videoGameService.createNewGame(newGame());
+		statistics.clear();
+	}
+
+	@Test
+	public void testCreateNewGame_ExecutesOneStatement() {
+		// Act
+		videoGameService.createNewGame(newGame());
+
+		// Assert
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void testCreateNewGame_ExecutesOneStatement_WhenTitleExists() {
+		// Act & Assert
+		assertThrows(VideoGameTitleExistsException.class, () -> videoGameService.createNewGame(
+				new VideoGame("The Last of Us", "Horror", "Naughty Dog", 15.99)));
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void testEditExistingGame_ExecutesOneStatement() {
+		// Arrange
+		VideoGame game = videoGameService.createNewGame(newGame());
+		statistics.clear();
+
+		// Act
+		videoGameService.editExistingGame(newGame(), game.getId(), null);
+
+		// Assert
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void testEditExistingGame_ExecutesOneStatement_WhenGameDoesNotExist() {
+		// Act & Assert
+		assertThrows(ResourceNotFoundException.class, () -> videoGameService.editExistingGame(newGame(), 999_999, null));
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void testRemoveGameById_ExecutesOneStatement() {
+		// Arrange
+		VideoGame game = videoGameService.createNewGame(newGame());
+		statistics.clear();
+
+		// Act
+		videoGameService.removeGameById(game.getId());
+
+		// Assert
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void testRemoveGameById_ExecutesOneStatement_WhenGameDoesNotExist() {
+		// Act & Assert
+		assertThrows(ResourceNotFoundException.class, () -> videoGameService.removeGameById(999_999));
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void testFindGamesById_ExecutesOneStatement_ForUncachedIds() {
+		// Arrange
+		VideoGame first = videoGameService.createNewGame(newGame());
+		VideoGame second = videoGameService.createNewGame(newGame());
+		statistics.clear();
+
+		// Act
+		MultiGetResponse result = videoGameService.findGamesById(List.of(first.getId(), second.getId(), 999_998));
+
+		// Assert
+		assertEquals(2, result.getVideoGames().size());
+		assertEquals(List.of(999_998), result.getMissingIds());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+}
@@ -1,48 +1,176 @@
 package com.rtasalem.videoGameShopApi.serviceTests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.hibernate.exception.ConstraintViolationException;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.rtasalem.videoGameShopApi.cache.CatalogueVersionHolder;
+import com.rtasalem.videoGameShopApi.cache.VideoGameCache;
+import com.rtasalem.videoGameShopApi.event.VideoGameChangedEvent;
+import com.rtasalem.videoGameShopApi.exception.BatchSizeExceededException;
+import com.rtasalem.videoGameShopApi.exception.PreconditionFailedException;
 import com.rtasalem.videoGameShopApi.exception.ResourceNotFoundException;
 import com.rtasalem.videoGameShopApi.exception.VideoGameTitleExistsException;
+import com.rtasalem.videoGameShopApi.inventory.StockReservations;
+import com.rtasalem.videoGameShopApi.model.BatchItemResult;
+import com.rtasalem.videoGameShopApi.model.CatalogueVersion;
+import com.rtasalem.videoGameShopApi.model.MultiGetResponse;
 import com.rtasalem.videoGameShopApi.model.VideoGame;
+import com.rtasalem.videoGameShopApi.model.VideoGameFilter;
+import com.rtasalem.videoGameShopApi.pricing.PriceUpdatePipeline;
 import com.rtasalem.videoGameShopApi.repository.VideoGameDAO;
+import com.rtasalem.videoGameShopApi.search.VideoGameFacets;
+import com.rtasalem.videoGameShopApi.search.VideoGameSearchIndex;
 import com.rtasalem.videoGameShopApi.service.VideoGameService;
 
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
 @ExtendWith(MockitoExtension.class)
 class VideoGameServiceTests {
 
 	@Mock
 	private VideoGameDAO videoGameRepo;
 
+	@Mock
+	private EntityManager entityManager;
+
+	@Mock
+	private Validator validator;
+
+	@Mock
+	private VideoGameCache videoGameCache;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	@Mock
+	private VideoGameSearchIndex searchIndex;
+
+	@Mock
+	private VideoGameFacets facets;
+
+	@Mock
+	private CatalogueVersionHolder catalogueVersion;
+
+	@Mock
+	private PriceUpdatePipeline priceUpdates;
+
+	@Mock
+	private StockReservations stockReservations;
+
 	@InjectMocks
 	private VideoGameService videoGameService;
 
+	private static final CatalogueVersion CATALOGUE_VERSION = new CatalogueVersion(2L, 2, 0L, Instant.EPOCH);
+
+	@BeforeEach
+	public void setUp() {
+		// No price updates are waiting unless a test says otherwise.
+		lenient().when(priceUpdates.overlay(any())).thenAnswer(invocation -> invocation.getArgument(0));
+	}
+
+	private DataIntegrityViolationException titleConstraintViolation() {
+		return new DataIntegrityViolationException("could not execute statement", new ConstraintViolationException(
+				"Unique index or primary key violation", null, "PUBLIC." + VideoGame.TITLE_CONSTRAINT + "_INDEX_1"));
+	}
+
 	@Test
-	public void testFindAllGames_ReturnsListOfVideoGames() {
+	public void testFindAllGames_ReturnsPageOfVideoGames() {
 		// Arrange
 		List<VideoGame> games = new ArrayList<>();
-		when(videoGameRepo.findAll()).thenReturn(games);
+		Pageable pageable = PageRequest.of(0, 20);
+		Page<VideoGame> page = new PageImpl<>(games, pageable, 0);
+		when(videoGameRepo.findAll(ArgumentMatchers.<Specification<VideoGame>>any(), eq(pageable))).thenReturn(page);
+
+		// Act
+		Page<VideoGame> result = videoGameService.findAllGames(VideoGameFilter.none(), pageable, CATALOGUE_VERSION);
+
+		// Assert
+		assertEquals(page, result);
+		verify(videoGameRepo).findAll(ArgumentMatchers.<Specification<VideoGame>>any(), eq(pageable));
+	}
+
+	@Test
+	public void testFindGamesAfter_QueriesByIdRange() {
+		// Arrange
+		Slice<VideoGame> slice = new SliceImpl<>(new ArrayList<>());
+		when(videoGameRepo.findByIdGreaterThanOrderByIdAsc(10, PageRequest.ofSize(50))).thenReturn(slice);
+
+		// Act
+		Slice<VideoGame> result = videoGameService.findGamesAfter(10, 50);
+
+		// Assert
+		assertEquals(slice, result);
+		verify(videoGameRepo).findByIdGreaterThanOrderByIdAsc(10, PageRequest.ofSize(50));
+	}
+
+	@Test
+	public void testExportAllGames_PassesEachGameToConsumerAndDetachesIt() {
+		// Arrange
+		VideoGame game1 = new VideoGame();
+		VideoGame game2 = new VideoGame();
+		when(videoGameRepo.streamAllOrderedById()).thenReturn(Stream.of(game1, game2));
+		List<VideoGame> exported = new ArrayList<>();
 
 		// Act
-		List<VideoGame> result = videoGameService.findAllGames();
+		long count = videoGameService.exportAllGames(exported::add);
 
 		// Assert
-		assertEquals(games, result);
-		verify(videoGameRepo).findAll();
+		assertEquals(2, count);
+		assertEquals(List.of(game1, game2), exported);
+		verify(entityManager).detach(game1);
+		verify(entityManager).detach(game2);
 	}
 
 	@Test
@@ -71,21 +199,379 @@ class VideoGameServiceTests {
 		verify(videoGameRepo).findById(id);
 	}
 
+	@Test
+	public void testFindGameById_ReturnsCachedGameWithoutQuerying_WhenGameIsCached() {
+		// Arrange
+		int id = 1;
+		VideoGame cachedGame = new VideoGame();
+		when(videoGameCache.getIfPresent(id)).thenReturn(cachedGame);
+
+		// Act
+		VideoGame result = videoGameService.findGameById(id);
+
+		// Assert
+		assertEquals(cachedGame, result);
+		verify(videoGameRepo, never()).findById(id);
+	}
+
+	@Test
+	public void testFindGameById_CachesMissingId_WhenGameDoesNotExist() {
+		// Arrange
+		int id = 1;
+		when(videoGameRepo.findById(id)).thenReturn(Optional.empty());
+
+		// Act & Assert
+		assertThrows(ResourceNotFoundException.class, () -> videoGameService.findGameById(id));
+		verify(videoGameCache).putMissingIfUnchanged(id, 0L);
+	}
+
+	@Test
+	public void testFindGameById_ThrowsWithoutQuerying_WhenIdIsKnownMissing() {
+		// Arrange
+		int id = 1;
+		when(videoGameCache.isKnownMissing(id)).thenReturn(true);
+
+		// Act & Assert
+		assertThrows(ResourceNotFoundException.class, () -> videoGameService.findGameById(id));
+		verify(videoGameRepo, never()).findById(id);
+	}
+
+	private VideoGame gameWithId(int id) {
+		VideoGame videoGame = new VideoGame("Game " + id, "Puzzle", "Nintendo", 9.99);
+		videoGame.setId(id);
+		return videoGame;
+	}
+	
+	@Test
+	public void testFindGamesById_LoadsUncachedIdsInOneQuery_AndReturnsGamesInRequestOrder() {
+		// Arrange
+		VideoGame cachedGame = gameWithId(2);
+		lenient().when(videoGameCache.getIfPresent(2)).thenReturn(cachedGame);
+		when(videoGameRepo.findAllById(Set.of(3, 1))).thenReturn(List.of(gameWithId(1), gameWithId(3)));
+
+		// Act
+		MultiGetResponse result = videoGameService.findGamesById(List.of(3, 2, 1));
+
+		// Assert
+		assertEquals(List.of(3, 2, 1), result.getVideoGames().stream().map(VideoGame::getId).toList());
+		assertEquals(List.of(), result.getMissingIds());
+		verify(videoGameRepo).findAllById(Set.of(3, 1));
+		verify(videoGameCache).putIfUnchanged(result.getVideoGames().get(0), 0L);
+	}
+
+	@Test
+	public void testFindGamesById_ReportsMissingIdsOnce_AndCachesThemAsMissing() {
+		// Arrange
+		lenient().when(videoGameCache.isKnownMissing(5)).thenReturn(true);
+		when(videoGameRepo.findAllById(Set.of(1, 4))).thenReturn(List.of(gameWithId(1)));
+
+		// Act
+		MultiGetResponse result = videoGameService.findGamesById(List.of(4, 1, 5, 4));
+
+		// Assert
+		assertEquals(1, result.getVideoGames().size());
+		assertEquals(List.of(4, 5), result.getMissingIds());
+		verify(videoGameCache).putMissingIfUnchanged(4, 0L);
+		verify(videoGameCache, never()).putMissingIfUnchanged(eq(5), anyLong());
+	}
+
+	@Test
+	public void testFindGamesById_DoesNotQuery_WhenEveryIdIsCached() {
+		// Arrange
+		when(videoGameCache.getIfPresent(1)).thenReturn(gameWithId(1));
+
+		// Act
+		MultiGetResponse result = videoGameService.findGamesById(List.of(1));
+
+		// Assert
+		assertEquals(1, result.getVideoGames().size());
+		verify(videoGameRepo, never()).findAllById(any());
+	}
+
+	@Test
+	public void testFindGamesById_ThrowsBatchSizeExceededException_WhenTooManyIds() {
+		// Arrange
+		List<Integer> ids = new ArrayList<>();
+		for (int id = 1; id <= VideoGameService.MAX_MULTI_GET_SIZE + 1; id++) {
+			ids.add(id);
+		}
+
+		// Act & Assert
+		assertThrows(BatchSizeExceededException.class, () -> videoGameService.findGamesById(ids));
+		verify(videoGameRepo, never()).findAllById(any());
+	}
+
+	// Calls the service from many threads at once and only lets the repository answer once every caller is blocked,
+	// either inside the repository or waiting for the caller that is.
+	private <T> List<T> callConcurrently(int callers, Callable<T> call, CountDownLatch release)
+			throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(callers);
+		try {
+			List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+			List<Future<T>> futures = new ArrayList<>();
+			for (int i = 0; i < callers; i++) {
+				futures.add(executor.submit(() -> {
+					threads.add(Thread.currentThread());
+					return call.call();
+				}));
+			}
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (threads.size() < callers || !threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+				assertTrue(System.nanoTime() < deadline, "The callers did not all start waiting.");
+				Thread.sleep(1);
+			}
+			release.countDown();
+			List<T> results = new ArrayList<>();
+			for (Future<T> future : futures) {
+				results.add(future.get(10, TimeUnit.SECONDS));
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testFindGameById_SharesOneQuery_WhenCalledConcurrently() throws Exception {
+		// Arrange
+		VideoGame game = gameWithId(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(videoGameRepo.findById(1)).thenAnswer(invocation -> {
+			release.await();
+			return Optional.of(game);
+		});
+
+		// Act
+		List<VideoGame> results = callConcurrently(50, () -> videoGameService.findGameById(1), release);
+
+		// Assert
+		assertTrue(results.stream().allMatch(result -> result == game));
+		verify(videoGameRepo, times(1)).findById(1);
+		verify(videoGameCache, times(1)).putIfUnchanged(game, 0L);
+	}
+
+	// A service over a real cache, for the tests of how loads race writes.
+	private VideoGameService serviceWithCache(VideoGameCache cache) {
+		return new VideoGameService(videoGameRepo, entityManager, validator, cache, eventPublisher, searchIndex, facets,
+				catalogueVersion, priceUpdates, stockReservations);
+	}
+
+	private VideoGameCache realCache() {
+		return new VideoGameCache(100, Duration.ofMinutes(5), Duration.ofSeconds(5), Ticker.systemTicker());
+	}
+
+	@Test
+	public void testFindGameById_DoesNotCacheGameLoadedBeforeAWrite() throws Exception {
+		// Arrange
+		VideoGameCache cache = realCache();
+		VideoGameService service = serviceWithCache(cache);
+		VideoGame gameBeforeWrite = gameWithId(1);
+		VideoGame replacement = new VideoGame("Game 1 Remastered", "Puzzle", "Nintendo", 19.99);
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(videoGameRepo.findById(1)).thenAnswer(invocation -> {
+			loading.countDown();
+			release.await();
+			return Optional.of(gameBeforeWrite);
+		});
+		when(videoGameRepo.updateGame(eq(1), eq(replacement), any(), any())).thenReturn(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<VideoGame> reader = executor.submit(() -> service.findGameById(1));
+			assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+			// Act
+			// The write commits and invalidates while the reader is still waiting for the old row.
+			service.editExistingGame(replacement, 1, null);
+			release.countDown();
+			reader.get(10, TimeUnit.SECONDS);
+
+			// Assert
+			assertNull(cache.getIfPresent(1));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testFindGamesById_DoesNotCacheGamesLoadedBeforeAWrite() {
+		// Arrange
+		VideoGameCache cache = realCache();
+		VideoGameService service = serviceWithCache(cache);
+		VideoGame gameBeforeWrite = gameWithId(1);
+		VideoGame replacement = new VideoGame("Game 1 Remastered", "Puzzle", "Nintendo", 19.99);
+		when(videoGameRepo.updateGame(eq(1), eq(replacement), any(), any())).thenReturn(1);
+		// The write commits and invalidates game 1 while the query is still reading the old rows.
+		when(videoGameRepo.findAllById(Set.of(1, 2, 3))).thenAnswer(invocation -> {
+			service.editExistingGame(replacement, 1, null);
+			return List.of(gameBeforeWrite, gameWithId(2));
+		});
+
+		// Act
+		MultiGetResponse result = service.findGamesById(List.of(1, 2, 3));
+
+		// Assert
+		assertEquals(List.of(3), result.getMissingIds());
+		assertNull(cache.getIfPresent(1));
+		assertNotNull(cache.getIfPresent(2));
+		assertTrue(cache.isKnownMissing(3));
+	}
+
+	@Test
+	public void testFindGameById_DoesNotShareLoadStartedBeforeAWrite() throws Exception {
+		// Arrange
+		VideoGameService service = serviceWithCache(realCache());
+		VideoGame gameBeforeWrite = gameWithId(1);
+		VideoGame replacement = new VideoGame("Game 1 Remastered", "Puzzle", "Nintendo", 19.99);
+		VideoGame gameAfterWrite = new VideoGame("Game 1 Remastered", "Puzzle", "Nintendo", 19.99);
+		gameAfterWrite.setId(1);
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(videoGameRepo.findById(1)).thenAnswer(invocation -> {
+			loading.countDown();
+			release.await();
+			return Optional.of(gameBeforeWrite);
+		}).thenReturn(Optional.of(gameAfterWrite));
+		when(videoGameRepo.updateGame(eq(1), eq(replacement), any(), any())).thenReturn(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<VideoGame> leader = executor.submit(() -> service.findGameById(1));
+			assertTrue(loading.await(10, TimeUnit.SECONDS));
+			service.editExistingGame(replacement, 1, null);
+
+			// Act
+			// The write has committed, so this caller must not be handed the row the leader is still loading.
+			Future<VideoGame> follower = executor.submit(() -> service.findGameById(1));
+			VideoGame followerResult = follower.get(10, TimeUnit.SECONDS);
+			release.countDown();
+
+			// Assert
+			assertEquals(gameAfterWrite, followerResult);
+			assertEquals(gameBeforeWrite, leader.get(10, TimeUnit.SECONDS));
+			verify(videoGameRepo, times(2)).findById(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testFindAllGames_SharesOneQuery_WhenSamePageIsRequestedConcurrently() throws Exception {
+		// Arrange
+		Pageable pageable = PageRequest.of(0, 20);
+		Page<VideoGame> page = new PageImpl<>(List.of(gameWithId(1)), pageable, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(videoGameRepo.findAll(ArgumentMatchers.<Specification<VideoGame>>any(), eq(pageable))).thenAnswer(invocation -> {
+			release.await();
+			return page;
+		});
+
+		// Act
+		List<Page<VideoGame>> results = callConcurrently(50,
+				() -> videoGameService.findAllGames(new VideoGameFilter("Puzzle", null, null, null), PageRequest.of(0, 20),
+						CATALOGUE_VERSION),
+				release);
+
+		// Assert
+		assertTrue(results.stream().allMatch(result -> result == page));
+		verify(videoGameRepo, times(1)).findAll(ArgumentMatchers.<Specification<VideoGame>>any(), eq(pageable));
+	}
+
+	@Test
+	public void testFindAllGames_DoesNotShareLoadStartedBeforeAWrite() throws Exception {
+		// Arrange
+		Pageable pageable = PageRequest.of(0, 20);
+		Page<VideoGame> pageBeforeWrite = new PageImpl<>(List.of(gameWithId(1)), pageable, 1);
+		Page<VideoGame> pageAfterWrite = new PageImpl<>(List.of(gameWithId(1), gameWithId(2)), pageable, 2);
+		CatalogueVersion versionAfterWrite = new CatalogueVersion(3L, 3, 0L, Instant.EPOCH.plusSeconds(1));
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(videoGameRepo.findAll(ArgumentMatchers.<Specification<VideoGame>>any(), eq(pageable))).thenAnswer(invocation -> {
+			loading.countDown();
+			release.await();
+			return pageBeforeWrite;
+		}).thenReturn(pageAfterWrite);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Page<VideoGame>> leader = executor.submit(
+					() -> videoGameService.findAllGames(VideoGameFilter.none(), pageable, CATALOGUE_VERSION));
+			assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+			// Act
+			// The write has committed: the follower's ETag was computed from the new catalogue version.
+			Future<Page<VideoGame>> follower = executor.submit(
+					() -> videoGameService.findAllGames(VideoGameFilter.none(), pageable, versionAfterWrite));
+			Page<VideoGame> followerResult = follower.get(10, TimeUnit.SECONDS);
+			release.countDown();
+
+			// Assert
+			assertEquals(pageAfterWrite, followerResult);
+			assertEquals(pageBeforeWrite, leader.get(10, TimeUnit.SECONDS));
+			verify(videoGameRepo, times(2)).findAll(ArgumentMatchers.<Specification<VideoGame>>any(), eq(pageable));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testUpdateGamePrice_QueuesPriceAndReturnsOverlaidGame() {
+		// Arrange
+		int id = 1;
+		VideoGame cachedGame = new VideoGame("Heavy Rain", "Thriller", "Quantic Dream", 7.99);
+		VideoGame overlaidGame = new VideoGame("Heavy Rain", "Thriller", "Quantic Dream", 12.49);
+		when(videoGameCache.getIfPresent(id)).thenReturn(cachedGame);
+		when(priceUpdates.overlay(cachedGame)).thenReturn(cachedGame, overlaidGame);
+
+		// Act
+		VideoGame result = videoGameService.updateGamePrice(id, 12.49);
+
+		// Assert
+		assertEquals(overlaidGame, result);
+		verify(priceUpdates).submit(id, 12.49);
+		verify(videoGameRepo, never()).updateGame(anyInt(), any(), any(), any());
+	}
+
+	@Test
+	public void testUpdateGamePrice_ThrowsWithoutQueuing_WhenGameDoesNotExist() {
+		// Arrange
+		int id = 1;
+		when(videoGameRepo.findById(id)).thenReturn(Optional.empty());
+
+		// Act & Assert
+		assertThrows(ResourceNotFoundException.class, () -> videoGameService.updateGamePrice(id, 12.49));
+		verify(priceUpdates, never()).submit(anyInt(), ArgumentMatchers.anyDouble());
+	}
+
+	@Test
+	public void testEditExistingGame_DiscardsQueuedPriceBeforeUpdating() {
+		// Arrange
+		int id = 1;
+		VideoGame videoGame = new VideoGame("Heavy Rain", "Thriller", "Quantic Dream", 7.99);
+		when(videoGameRepo.updateGame(eq(id), eq(videoGame), eq(null), any())).thenReturn(1);
+
+		// Act
+		videoGameService.editExistingGame(videoGame, id, null);
+
+		// Assert
+		InOrder inOrder = inOrder(priceUpdates, videoGameRepo);
+		inOrder.verify(priceUpdates).discard(id);
+		inOrder.verify(videoGameRepo).updateGame(eq(id), eq(videoGame), eq(null), any());
+	}
+
 	@Test
 	public void testCreateNewGame_CreatesGame_WhenValidData() {
 		// Arrange
 		VideoGame newGame = new VideoGame();
 		newGame.setTitle("Uncharted");
 		newGame.setDeveloper("Naughty Dog");
-		when(videoGameRepo.existsByTitle(newGame.getTitle())).thenReturn(false);
-		when(videoGameRepo.save(newGame)).thenReturn(newGame);
+		when(videoGameRepo.saveAndFlush(newGame)).thenReturn(newGame);
 
 		// Act
 		VideoGame result = videoGameService.createNewGame(newGame);
 
 		// Assert
 		assertEquals(newGame, result);
-		verify(videoGameRepo).save(newGame);
+		verify(videoGameRepo).saveAndFlush(newGame);
+		verify(eventPublisher).publishEvent(VideoGameChangedEvent.created(newGame));
 	}
 
 	@Test
@@ -93,28 +579,39 @@ class VideoGameServiceTests {
 		// Arrange
 		VideoGame newGame = new VideoGame();
 		newGame.setTitle("Uncharted");
-		when(videoGameRepo.existsByTitle(newGame.getTitle())).thenReturn(true);
+		when(videoGameRepo.saveAndFlush(newGame)).thenThrow(titleConstraintViolation());
 
 		// Act & Assert
 		assertThrows(VideoGameTitleExistsException.class, () -> videoGameService.createNewGame(newGame));
-		verify(videoGameRepo, never()).save(newGame);
+		verify(videoGameCache, never()).invalidate(anyInt());
+	}
+
+	@Test
+	public void testCreateNewGame_RethrowsOtherIntegrityViolations() {
+		// Arrange
+		VideoGame newGame = new VideoGame();
+		DataIntegrityViolationException otherViolation = new DataIntegrityViolationException("NULL not allowed");
+		when(videoGameRepo.saveAndFlush(newGame)).thenThrow(otherViolation);
+
+		// Act & Assert
+		assertThrows(DataIntegrityViolationException.class, () -> videoGameService.createNewGame(newGame));
 	}
 
 	@Test 
 	public void testEditExistingGame_UpdatesGame_WhenValidData() {
 		// Arrange
 		int id = 1;
-		VideoGame game = new VideoGame();
-		game.setId(id);
-		when(videoGameRepo.existsById(id)).thenReturn(true);
-		when(videoGameRepo.save(game)).thenReturn(game);
+		VideoGame game = new VideoGame("Uncharted", "Adventure", "Naughty Dog", 9.99);
+		when(videoGameRepo.updateGame(eq(id), eq(game), eq(3L), any())).thenReturn(1);
 
 		// Act
-		VideoGame result = videoGameService.editExistingGame(game, id);
+		VideoGame result = videoGameService.editExistingGame(game, id, 3L);
 
 		// Assert
-		assertEquals(game, result);
-		verify(videoGameRepo).save(game);
+		assertEquals(id, result.getId());
+		assertEquals(4L, result.getVersion());
+		verify(videoGameRepo, never()).existsById(id);
+		verify(videoGameCache).invalidate(id);
 	}
 
 	@Test
@@ -122,34 +619,174 @@ class VideoGameServiceTests {
 		// Arrange
 		int id = 1;
 		VideoGame game = new VideoGame();
-		when(videoGameRepo.existsById(id)).thenReturn(false);
+		when(videoGameRepo.updateGame(eq(id), eq(game), eq(null), any())).thenReturn(0);
 
 		// Act & Assert
-		assertThrows(ResourceNotFoundException.class, () -> videoGameService.editExistingGame(game, id));
-		verify(videoGameRepo, never()).save(game);
+		assertThrows(ResourceNotFoundException.class, () -> videoGameService.editExistingGame(game, id, null));
+		verify(videoGameCache, never()).invalidate(id);
 	}
 
 	@Test
-	public void testRemoveGameById_RemovesGame_WhenGameExists() {
+	public void testEditExistingGame_ThrowsPreconditionFailedException_WhenVersionDoesNotMatch() {
 		// Arrange
 		int id = 1;
+		VideoGame game = new VideoGame();
+		when(videoGameRepo.updateGame(eq(id), eq(game), eq(3L), any())).thenReturn(0);
 		when(videoGameRepo.existsById(id)).thenReturn(true);
 
+		// Act & Assert
+		assertThrows(PreconditionFailedException.class, () -> videoGameService.editExistingGame(game, id, 3L));
+	}
+
+	@Test
+	public void testEditExistingGame_ThrowsVideoGameTitleExistsException_WhenTitleIsTaken() {
+		// Arrange
+		int id = 1;
+		VideoGame game = new VideoGame();
+		when(videoGameRepo.updateGame(eq(id), eq(game), eq(null), any())).thenThrow(titleConstraintViolation());
+
+		// Act & Assert
+		assertThrows(VideoGameTitleExistsException.class, () -> videoGameService.editExistingGame(game, id, null));
+	}
+
+	@Test
+	public void testRemoveGameById_RemovesGame_WhenGameExists() {
+		// Arrange
+		int id = 1;
+		when(videoGameRepo.deleteGameById(id)).thenReturn(1);
+
 		// Act
 		videoGameService.removeGameById(id);
 
 		// Assert
-		verify(videoGameRepo).deleteById(id);
+		verify(videoGameRepo).deleteGameById(id);
+		verify(videoGameCache).invalidate(id);
+		verify(eventPublisher).publishEvent(VideoGameChangedEvent.deleted(id));
 	}
 
 	@Test
 	public void testRemoveGameById_ThrowsResourceNotFoundException_WhenGameNotExists() {
 		// Arrange
 		int id = 1;
-		when(videoGameRepo.existsById(id)).thenReturn(false);
+		when(videoGameRepo.deleteGameById(id)).thenReturn(0);
 
 		// Act & Assert
 		assertThrows(ResourceNotFoundException.class, () -> videoGameService.removeGameById(id));
-		verify(videoGameRepo, never()).deleteById(id);
+		verify(videoGameCache, never()).invalidate(id);
+		verify(eventPublisher, never()).publishEvent(any(Object.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testCreateNewGames_ReportsInvalidAndDuplicateItemsAndSavesTheRest() {
+		// Arrange
+		VideoGame invalidGame = new VideoGame("", "Racing", "Nintendo", 13.99);
+		VideoGame existingGame = new VideoGame("Heavy Rain", "Thriller", "Quantic Dream", 7.99);
+		VideoGame newGame = new VideoGame("Minecraft", "Open-world", "Mojang Studios", 26.99);
+		VideoGame repeatedGame = new VideoGame("Minecraft", "Open-world", "Mojang Studios", 26.99);
+		ConstraintViolation<VideoGame> violation = mock(ConstraintViolation.class);
+		when(violation.getMessage()).thenReturn("Video game title must not be left blank.");
+		when(validator.validate(invalidGame)).thenReturn(Set.of(violation));
+		when(videoGameRepo.findTitlesIn(Set.of("Heavy Rain", "Minecraft"))).thenReturn(List.of("Heavy Rain"));
+		when(videoGameRepo.saveAllAndFlush(List.of(newGame))).thenAnswer(invocation -> {
+			newGame.setId(6);
+			return List.of(newGame);
+		});
+
+		// Act
+		List<BatchItemResult> results = videoGameService.createNewGames(List.of(invalidGame, existingGame, newGame, repeatedGame));
+
+		// Assert
+		assertEquals(List.of(400, 409, 201, 409), results.stream().map(BatchItemResult::getStatus).toList());
+		assertEquals("Video game title must not be left blank.", results.get(0).getMessage());
+		assertEquals(6, results.get(2).getId());
+		verify(videoGameRepo, times(1)).findTitlesIn(any());
+	}
+
+	@Test
+	public void testCreateNewGames_ThrowsBatchSizeExceededException_WhenBatchIsTooLarge() {
+		// Arrange
+		List<VideoGame> games = Collections.nCopies(VideoGameService.MAX_BATCH_SIZE + 1, new VideoGame());
+
+		// Act & Assert
+		assertThrows(BatchSizeExceededException.class, () -> videoGameService.createNewGames(games));
+		verify(videoGameRepo, never()).saveAllAndFlush(any());
+	}
+
+	@Test
+	public void testEditExistingGames_UpdatesManagedGamesAndReportsMissingIds() {
+		// Arrange
+		VideoGame managedGame = new VideoGame("Uncharted 2", "Adventure", "Naughty Dog", 12.99);
+		managedGame.setId(2);
+		VideoGame update = new VideoGame("Uncharted 2", "Adventure", "Naughty Dog", 9.99);
+		update.setId(2);
+		VideoGame missing = new VideoGame("Halo", "Shooter", "Bungie Studios", 19.99);
+		missing.setId(99);
+		when(videoGameRepo.findAllById(Set.of(2, 99))).thenReturn(List.of(managedGame));
+
+		// Act
+		List<BatchItemResult> results = videoGameService.editExistingGames(List.of(update, missing));
+
+		// Assert
+		assertEquals(List.of(200, 404), results.stream().map(BatchItemResult::getStatus).toList());
+		assertEquals(9.99, managedGame.getPrice());
+	}
+
+	private VideoGame managedGame(int id, String title) {
+		VideoGame videoGame = new VideoGame(title, "Adventure", "Naughty Dog", 12.99);
+		videoGame.setId(id);
+		return videoGame;
+	}
+
+	@Test
+	public void testEditExistingGames_ReportsTitlesTakenInTheDatabaseOrWithinTheBatchAsConflicts() {
+		// Arrange
+		VideoGame renamedOntoTakenTitle = managedGame(1, "Uncharted");
+		VideoGame renamed = managedGame(2, "Uncharted 2");
+		VideoGame renamedOntoSameTitle = managedGame(3, "Uncharted 3");
+		VideoGame swapped = managedGame(4, "The Last of Us");
+		VideoGame unchanged = managedGame(5, "Jak and Daxter");
+		when(videoGameRepo.findAllById(Set.of(1, 2, 3, 4, 5)))
+				.thenReturn(List.of(renamedOntoTakenTitle, renamed, renamedOntoSameTitle, swapped, unchanged));
+		when(videoGameRepo.findTitlesIn(Set.of("Crash Bandicoot", "Uncharted 4", "Uncharted"))).thenReturn(List.of("Crash Bandicoot", "Uncharted"));
+
+		// Act
+		List<BatchItemResult> results = videoGameService.editExistingGames(List.of(
+				managedGame(1, "Crash Bandicoot"), managedGame(2, "Uncharted 4"), managedGame(3, "Uncharted 4"),
+				managedGame(4, "Uncharted"), managedGame(5, "Jak and Daxter")));
+
+		// Assert
+		assertEquals(List.of(409, 200, 409, 409, 200), results.stream().map(BatchItemResult::getStatus).toList());
+		assertEquals("A video game with the title of Uncharted 4 already exists.", results.get(2).getMessage());
+		assertEquals("Uncharted", renamedOntoTakenTitle.getTitle());
+		assertEquals("Uncharted 4", renamed.getTitle());
+		assertEquals("The Last of Us", swapped.getTitle());
+		verify(videoGameRepo).flush();
+	}
+
+	@Test
+	public void testEditExistingGames_ThrowsVideoGameTitleExistsException_WhenTitleIsTakenBeforeTheFlush() {
+		// Arrange
+		when(videoGameRepo.findAllById(Set.of(1))).thenReturn(List.of(managedGame(1, "Uncharted")));
+		when(videoGameRepo.findTitlesIn(Set.of("Crash Bandicoot"))).thenReturn(List.of());
+		doThrow(titleConstraintViolation()).when(videoGameRepo).flush();
+
+		// Act & Assert
+		assertThrows(VideoGameTitleExistsException.class,
+				() -> videoGameService.editExistingGames(List.of(managedGame(1, "Crash Bandicoot"))));
+		verify(videoGameCache, never()).invalidateAfterCommit(any());
+	}
+
+	@Test
+	public void testRemoveGamesById_DeletesExistingIdsInOneStatement() {
+		// Arrange
+		when(videoGameRepo.findIdsIn(Set.of(1, 2, 99))).thenReturn(List.of(1, 2));
+
+		// Act
+		List<BatchItemResult> results = videoGameService.removeGamesById(List.of(1, 99, 2));
+
+		// Assert
+		assertEquals(List.of(200, 404, 200), results.stream().map(BatchItemResult::getStatus).toList());
+		verify(videoGameRepo).deleteAllByIdInBatch(Set.of(1, 2));
 	}
 }
@@ -0,0 +1,99 @@
+package com.rtasalem.videoGameShopApi.snapshotTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.rtasalem.videoGameShopApi.model.VideoGameFilter;
+import com.rtasalem.videoGameShopApi.snapshot.CatalogueSnapshot;
+
+class CatalogueSnapshotTests {
+
+	private CatalogueSnapshot.Game game(int id, double price, String genre, long version) {
+		return new CatalogueSnapshot.Game(id, price, genre, "Nintendo", version, 1_000L * id,
+				("{\"id\":" + id + "}").getBytes(StandardCharsets.UTF_8));
+	}
+
+	private CatalogueSnapshot catalogue() {
+		return CatalogueSnapshot.of(List.of(game(4, 9.99, "Puzzle", 2), game(1, 19.99, "Racing", 0),
+				game(3, 9.99, "Racing", 1), game(2, 5.99, "Puzzle", 0)));
+	}
+
+	private List<Integer> ids(CatalogueSnapshot snapshot, CatalogueSnapshot.Listing listing) {
+		return Arrays.stream(listing.page(), 0, listing.count()).map(snapshot::id).boxed().toList();
+	}
+
+	@Test
+	public void testOf_OrdersGamesById() {
+		// Act
+		CatalogueSnapshot snapshot = catalogue();
+
+		// Assert
+		assertEquals(4, snapshot.size());
+		assertEquals(2, snapshot.indexOf(3));
+		assertTrue(snapshot.indexOf(5) < 0);
+	}
+
+	@Test
+	public void testList_FiltersAndSortsByPriceThenId() {
+		// Arrange
+		CatalogueSnapshot snapshot = catalogue();
+
+		// Act
+		CatalogueSnapshot.Listing cheapestFirst = snapshot.list(VideoGameFilter.none(),
+				PageRequest.of(0, 10, Sort.by("price").and(Sort.by("id"))));
+		CatalogueSnapshot.Listing dearestFirst = snapshot.list(VideoGameFilter.none(),
+				PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "price").and(Sort.by("id"))));
+		CatalogueSnapshot.Listing racing = snapshot.list(new VideoGameFilter("Racing", null, 10.0, null), PageRequest.of(0, 10, Sort.by("id")));
+
+		// Assert
+		assertEquals(List.of(2, 3, 4, 1), ids(snapshot, cheapestFirst));
+		assertEquals(List.of(1, 3, 4, 2), ids(snapshot, dearestFirst));
+		assertEquals(List.of(1), ids(snapshot, racing));
+	}
+
+	@Test
+	public void testList_PagesAndCountsEveryMatch() {
+		// Arrange
+		CatalogueSnapshot snapshot = catalogue();
+
+		// Act
+		CatalogueSnapshot.Listing secondPage = snapshot.list(VideoGameFilter.none(), PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "id")));
+		CatalogueSnapshot.Listing unknownGenre = snapshot.list(new VideoGameFilter("Horror", null, null, null), PageRequest.of(0, 3, Sort.by("id")));
+		CatalogueSnapshot.Listing byTitle = snapshot.list(VideoGameFilter.none(), PageRequest.of(0, 3, Sort.by("title")));
+
+		// Assert
+		assertEquals(List.of(1), ids(snapshot, secondPage));
+		assertEquals(4, secondPage.totalElements());
+		assertEquals(0, unknownGenre.totalElements());
+		assertNull(byTitle);
+	}
+
+	@Test
+	public void testWithChanges_ReplacesAddsAndRemovesGames_AndSharesUnchangedJson() {
+		// Arrange
+		CatalogueSnapshot snapshot = catalogue();
+
+		// Act
+		CatalogueSnapshot changed = snapshot.withChanges(List.of(game(3, 24.99, "Horror", 2), game(7, 5.99, "Puzzle", 0)), Set.of(1));
+
+		// Assert
+		assertEquals(List.of(2, 3, 4, 7), ids(changed, changed.list(VideoGameFilter.none(), PageRequest.of(0, 10, Sort.by("id")))));
+		assertEquals(List.of(3), ids(changed, changed.list(new VideoGameFilter("Horror", null, null, null), PageRequest.of(0, 10, Sort.by("id")))));
+		assertSame(snapshot.json(snapshot.indexOf(4)), changed.json(changed.indexOf(4)));
+		// The original snapshot is left as it was.
+		assertTrue(snapshot.indexOf(7) < 0);
+		assertTrue(snapshot.indexOf(1) >= 0);
+	}
+
+}
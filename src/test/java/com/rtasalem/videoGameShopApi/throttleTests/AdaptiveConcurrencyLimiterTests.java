@@ -0,0 +1,89 @@
+package com.rtasalem.videoGameShopApi.throttleTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.rtasalem.videoGameShopApi.throttle.AdaptiveConcurrencyLimiter;
+
+class AdaptiveConcurrencyLimiterTests {
+
+	private static final long FAST = Duration.ofMillis(10).toNanos();
+
+	private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+	private AdaptiveConcurrencyLimiter newLimiter(int initialLimit) {
+		return new AdaptiveConcurrencyLimiter(true, initialLimit, 2, 10, Duration.ofMillis(500), 0.5);
+	}
+
+	@Test
+	public void testTryAcquire_RejectsOnceLimitIsInFlight() {
+		// Arrange
+		AdaptiveConcurrencyLimiter limiter = newLimiter(2);
+
+		// Act & Assert
+		assertTrue(limiter.tryAcquire());
+		assertTrue(limiter.tryAcquire());
+		assertFalse(limiter.tryAcquire());
+		limiter.release();
+		assertTrue(limiter.tryAcquire());
+		assertEquals(2, limiter.getInFlight());
+	}
+
+	@Test
+	public void testRelease_GrowsLimitWhileFastAndBusy() {
+		// Arrange
+		AdaptiveConcurrencyLimiter limiter = newLimiter(4);
+
+		// Act
+		for (int i = 0; i < 5; i++) {
+			int acquired = 0;
+			while (limiter.tryAcquire()) {
+				acquired++;
+			}
+			for (int j = 0; j < acquired; j++) {
+				limiter.release(FAST);
+			}
+		}
+
+		// Assert
+		assertEquals(10, limiter.getLimit());
+	}
+
+	@Test
+	public void testRelease_DoesNotGrowLimitWhileMostlyIdle() {
+		// Arrange
+		AdaptiveConcurrencyLimiter limiter = newLimiter(8);
+
+		// Act
+		limiter.tryAcquire();
+		limiter.release(FAST);
+
+		// Assert
+		assertEquals(8, limiter.getLimit());
+	}
+
+	@Test
+	public void testRelease_ShrinksLimitWhenSlowButNotBelowMinimum() {
+		// Arrange
+		AdaptiveConcurrencyLimiter limiter = newLimiter(8);
+
+		// Act
+		limiter.tryAcquire();
+		limiter.release(SLOW);
+		int afterOneSlowRequest = limiter.getLimit();
+		for (int i = 0; i < 5; i++) {
+			limiter.tryAcquire();
+			limiter.release(SLOW);
+		}
+
+		// Assert
+		assertEquals(4, afterOneSlowRequest);
+		assertEquals(2, limiter.getLimit());
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.rtasalem.videoGameShopApi.throttleTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.rtasalem.videoGameShopApi.throttle.RateLimitProperties;
+import com.rtasalem.videoGameShopApi.throttle.RateLimiter;
+
+class RateLimiterTests {
+
+	private final AtomicLong nanos = new AtomicLong();
+
+	private RateLimitProperties properties;
+
+	private RateLimiter rateLimiter;
+
+	@BeforeEach
+	public void setUp() {
+		properties = new RateLimitProperties();
+		properties.setDefaultLimit(new RateLimitProperties.Limit(2, 1));
+		properties.getEndpoints().put("exportAllGames", new RateLimitProperties.Limit(1, 0.1));
+		rateLimiter = new RateLimiter(properties, nanos::get);
+	}
+
+	@Test
+	public void testTryAcquire_LimitsEachClientAndEndpointSeparately() {
+		// Act & Assert
+		assertEquals(0, rateLimiter.tryAcquire("getAllGames", "10.0.0.1"));
+		assertEquals(0, rateLimiter.tryAcquire("getAllGames", "10.0.0.1"));
+		assertTrue(rateLimiter.tryAcquire("getAllGames", "10.0.0.1") > 0);
+		assertEquals(0, rateLimiter.tryAcquire("getAllGames", "10.0.0.2"));
+		assertEquals(0, rateLimiter.tryAcquire("getGameById", "10.0.0.1"));
+	}
+
+	@Test
+	public void testTryAcquire_UsesEndpointLimitAndRefillsOverTime() {
+		// Act & Assert
+		assertEquals(0, rateLimiter.tryAcquire("exportAllGames", "10.0.0.1"));
+		assertEquals(TimeUnit.SECONDS.toNanos(10), rateLimiter.tryAcquire("exportAllGames", "10.0.0.1"));
+		nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+		assertEquals(0, rateLimiter.tryAcquire("exportAllGames", "10.0.0.1"));
+	}
+
+	@Test
+	public void testTryAcquire_AllowsEverything_WhenDisabled() {
+		// Arrange
+		properties.setEnabled(false);
+
+		// Act & Assert
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, rateLimiter.tryAcquire("exportAllGames", "10.0.0.1"));
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.rtasalem.videoGameShopApi.throttleTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.rtasalem.videoGameShopApi.throttle.TokenBucket;
+
+class TokenBucketTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	public void testTryConsume_AllowsBurstThenRefillsAtRate() {
+		// Arrange
+		TokenBucket bucket = new TokenBucket(3, 2, 0);
+
+		// Act & Assert
+		assertEquals(0, bucket.tryConsume(0));
+		assertEquals(0, bucket.tryConsume(0));
+		assertEquals(0, bucket.tryConsume(0));
+		assertEquals(SECOND / 2, bucket.tryConsume(0));
+		assertEquals(SECOND / 4, bucket.tryConsume(SECOND / 4));
+		assertEquals(0, bucket.tryConsume(SECOND / 2));
+		assertEquals(SECOND / 2, bucket.tryConsume(SECOND / 2));
+	}
+
+	@Test
+	public void testTryConsume_NeverHoldsMoreThanCapacity() {
+		// Arrange
+		TokenBucket bucket = new TokenBucket(2, 1, 0);
+
+		// Act
+		long idleFor = 60 * SECOND;
+
+		// Assert
+		assertEquals(0, bucket.tryConsume(idleFor));
+		assertEquals(0, bucket.tryConsume(idleFor));
+		assertEquals(SECOND, bucket.tryConsume(idleFor));
+	}
+
+	@Test
+	public void testTryConsume_HandsOutExactlyCapacityTokensToConcurrentCallers() throws InterruptedException {
+		// Arrange
+		TokenBucket bucket = new TokenBucket(1000, 1, 0);
+		AtomicInteger granted = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		// Act
+		for (int i = 0; i < 8; i++) {
+			executor.execute(() -> {
+				for (int j = 0; j < 500; j++) {
+					if (bucket.tryConsume(0) == 0) {
+						granted.incrementAndGet();
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+
+		// Assert
+		assertEquals(1000, granted.get());
+	}
+
+}